@@ -0,0 +1,24 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR event of emitting a burst of particles of an emitter.
+ *
+ * @author JavaSaBr
+ */
+@Name("tonegod.emitter.Emission")
+@Label("Particle Emission")
+@Description("Emitting a burst of particles of an emitter in a frame")
+public class EmissionEvent extends ParticleEmitterEvent {
+
+    @Label("Emitted Particles")
+    int emittedParticles;
+
+    @Override
+    void setValue(final long value) {
+        emittedParticles = (int) value;
+    }
+}
@@ -0,0 +1,83 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.EventType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.metrics.ParticlePhase;
+import tonegod.emitter.metrics.ParticleTracer;
+import tonegod.emitter.metrics.ParticleTracing;
+
+/**
+ * The tracer which writes phases of emitters as JFR events. Events are created only when their types are enabled in a
+ * running recording.
+ * <pre>
+ * JfrParticleTracer.install();
+ * </pre>
+ *
+ * @author JavaSaBr
+ */
+public final class JfrParticleTracer implements ParticleTracer {
+
+    @NotNull
+    private static final EventType SIMULATION_TYPE = EventType.getEventType(SimulationEvent.class);
+
+    @NotNull
+    private static final EventType EMISSION_TYPE = EventType.getEventType(EmissionEvent.class);
+
+    @NotNull
+    private static final EventType MESH_FILL_TYPE = EventType.getEventType(MeshFillEvent.class);
+
+    @NotNull
+    private static final EventType STRUCTURAL_CHANGE_TYPE = EventType.getEventType(StructuralChangeEvent.class);
+
+    /**
+     * Installs the JFR tracer as the global tracer of emitters.
+     */
+    public static void install() {
+        ParticleTracing.setTracer(new JfrParticleTracer());
+    }
+
+    @Override
+    public @Nullable Object begin(@NotNull final ParticlePhase phase, @NotNull final ParticleEmitterNode emitterNode) {
+
+        final ParticleEmitterEvent event;
+
+        switch (phase) {
+            case SIMULATION: {
+                if (!SIMULATION_TYPE.isEnabled()) return null;
+                event = new SimulationEvent();
+                break;
+            }
+            case EMISSION: {
+                if (!EMISSION_TYPE.isEnabled()) return null;
+                event = new EmissionEvent();
+                break;
+            }
+            case MESH_FILL: {
+                if (!MESH_FILL_TYPE.isEnabled()) return null;
+                event = new MeshFillEvent();
+                break;
+            }
+            default: {
+                if (!STRUCTURAL_CHANGE_TYPE.isEnabled()) return null;
+                event = new StructuralChangeEvent(phase.name());
+            }
+        }
+
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(@NotNull final Object event, @NotNull final ParticleEmitterNode emitterNode, final long value) {
+
+        final ParticleEmitterEvent emitterEvent = (ParticleEmitterEvent) event;
+        emitterEvent.end();
+
+        if (emitterEvent.shouldCommit()) {
+            emitterEvent.fill(emitterNode, value);
+            emitterEvent.commit();
+        }
+    }
+}
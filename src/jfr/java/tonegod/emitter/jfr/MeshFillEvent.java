@@ -0,0 +1,27 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR event of filling the particle mesh of an emitter.
+ *
+ * @author JavaSaBr
+ */
+@Name("tonegod.emitter.MeshFill")
+@Label("Particle Mesh Fill")
+@Description("Filling vertex buffers of the particle mesh of an emitter")
+public class MeshFillEvent extends ParticleEmitterEvent {
+
+    @Label("Uploaded Size")
+    @Description("The size of vertex data which was marked to upload")
+    @DataAmount
+    long uploadedBytes;
+
+    @Override
+    void setValue(final long value) {
+        uploadedBytes = value;
+    }
+}
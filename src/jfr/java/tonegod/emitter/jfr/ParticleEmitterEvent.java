@@ -0,0 +1,41 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.ParticleEmitterNode;
+
+/**
+ * The base JFR event of a phase of an emitter.
+ *
+ * @author JavaSaBr
+ */
+@Category({"tonegod.emitter", "Particles"})
+public abstract class ParticleEmitterEvent extends Event {
+
+    @Label("Emitter")
+    String emitterName;
+
+    @Label("Emitter Id")
+    int emitterId;
+
+    /**
+     * Fills fields of this event before committing.
+     *
+     * @param emitterNode the emitter.
+     * @param value       the value of the phase.
+     */
+    void fill(@NotNull final ParticleEmitterNode emitterNode, final long value) {
+        emitterName = emitterNode.getName();
+        emitterId = System.identityHashCode(emitterNode);
+        setValue(value);
+    }
+
+    /**
+     * Sets the value of the phase.
+     *
+     * @param value the value of the phase.
+     */
+    abstract void setValue(long value);
+}
@@ -0,0 +1,24 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR event of updating and emitting particles of an emitter in a frame.
+ *
+ * @author JavaSaBr
+ */
+@Name("tonegod.emitter.Simulation")
+@Label("Particle Simulation")
+@Description("Updating and emitting particles of an emitter in a frame")
+public class SimulationEvent extends ParticleEmitterEvent {
+
+    @Label("Active Particles")
+    int activeParticles;
+
+    @Override
+    void setValue(final long value) {
+        activeParticles = (int) value;
+    }
+}
@@ -0,0 +1,33 @@
+package tonegod.emitter.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The JFR event of a costly structural change of an emitter: creating particles, changing the particle mesh or the
+ * max count of particles and cloning.
+ *
+ * @author JavaSaBr
+ */
+@Name("tonegod.emitter.StructuralChange")
+@Label("Particle Emitter Change")
+@Description("Creating particles, changing the particle mesh or the max count of particles, cloning an emitter")
+public class StructuralChangeEvent extends ParticleEmitterEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Max Particles")
+    int maxParticles;
+
+    StructuralChangeEvent(@NotNull final String operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    void setValue(final long value) {
+        maxParticles = (int) value;
+    }
+}
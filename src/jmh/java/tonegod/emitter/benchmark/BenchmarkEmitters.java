@@ -0,0 +1,158 @@
+package tonegod.emitter.benchmark;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.particle.ParticleDataLayout;
+import tonegod.emitter.particle.ParticleDataMesh;
+import tonegod.emitter.particle.ParticleDataTemplateMesh;
+
+import java.util.Random;
+
+/**
+ * The utility methods to build headless emitters for benchmarks.
+ *
+ * @author JavaSaBr
+ */
+public class BenchmarkEmitters {
+
+    /**
+     * The simulated frame rate.
+     */
+    public static final int FPS = 60;
+
+    /**
+     * The time per frame.
+     */
+    public static final float TPF = 1F / FPS;
+
+    private static AssetManager assetManager;
+
+    /**
+     * Gets the shared headless asset manager.
+     *
+     * @return the asset manager.
+     */
+    public static synchronized @NotNull AssetManager getAssetManager() {
+
+        if (assetManager == null) {
+            assetManager = new DesktopAssetManager(true);
+        }
+
+        return assetManager;
+    }
+
+    /**
+     * Creates an enabled emitter which holds about the target count of active particles in the steady state.
+     *
+     * @param meshType     the particle mesh type.
+     * @param maxParticles the max count of particles.
+     * @param occupancy    the target part of active particles in the steady state (0..1).
+     * @param life         the life of particles in seconds.
+     * @return the new emitter.
+     */
+    public static @NotNull ParticleEmitterNode createEmitter(@NotNull final Class<? extends ParticleDataMesh> meshType,
+                                                             final int maxParticles, final float occupancy,
+                                                             final float life) {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(getAssetManager());
+        emitterNode.changeParticleMeshType(meshType, meshType == ParticleDataTemplateMesh.class ? new Box(1, 1, 1) : null);
+        emitterNode.setMaxParticles(maxParticles);
+        emitterNode.setLife(life);
+
+        // the emitter can't emit more often than once per frame, so the rate is controlled by particles per emission
+        final float particlesPerSecond = maxParticles * occupancy / life;
+
+        emitterNode.setEmissionsPerSecond(FPS);
+        emitterNode.setParticlesPerEmission(Math.max(1, Math.round(particlesPerSecond / FPS)));
+        emitterNode.setEnabled(true);
+
+        return emitterNode;
+    }
+
+    /**
+     * Attaches the emitter to a new root node and runs frames until particles reach the steady state.
+     *
+     * @param emitterNode the emitter.
+     * @param life        the life of particles in seconds.
+     * @return the root node.
+     */
+    public static @NotNull Node warmUp(@NotNull final ParticleEmitterNode emitterNode, final float life) {
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+        rootNode.updateGeometricState();
+
+        for (int i = 0, frames = (int) Math.ceil(life * FPS) * 2; i < frames; i++) {
+            rootNode.updateLogicalState(TPF);
+            rootNode.updateGeometricState();
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * Creates active particles of the emitter with random visual data, as they would look in the middle of their
+     * life.
+     *
+     * @param emitterNode the emitter.
+     * @param count       the count of particles.
+     * @return the particles.
+     */
+    public static @NotNull ParticleData[] createParticles(@NotNull final ParticleEmitterNode emitterNode,
+                                                          final int count) {
+
+        final Random random = new Random(42);
+        final ParticleDataLayout dataLayout = new ParticleDataLayout();
+        final ParticleData[] particles = new ParticleData[count];
+
+        for (int i = 0; i < count; i++) {
+
+            final ParticleData particleData = new ParticleData(dataLayout);
+            particleData.emitterNode = emitterNode;
+            particleData.index = i;
+            particleData.active = true;
+            particleData.startLife = 2F;
+            particleData.life = random.nextFloat() * particleData.startLife + 0.01F;
+            particleData.alpha = random.nextFloat();
+            particleData.spriteCol = random.nextInt(emitterNode.getSpriteColCount());
+            particleData.spriteRow = random.nextInt(emitterNode.getSpriteRowCount());
+            particleData.position.set(nextSigned(random) * 10, nextSigned(random) * 10, nextSigned(random) * 10);
+            particleData.initialPosition.set(particleData.position);
+            particleData.velocity.set(nextSigned(random), random.nextFloat() + 0.1F, nextSigned(random));
+            particleData.angles.set(nextSigned(random), nextSigned(random), nextSigned(random));
+            particleData.size.set(0.5F, 0.5F, 0.5F);
+            particleData.color.set(random.nextFloat(), random.nextFloat(), random.nextFloat(), 1F);
+
+            particles[i] = particleData;
+        }
+
+        return particles;
+    }
+
+    /**
+     * Creates a camera which looks at the emitter, it's enough to build particle meshes without a renderer.
+     *
+     * @return the camera.
+     */
+    public static @NotNull Camera createCamera() {
+
+        final Camera camera = new Camera(1280, 720);
+        camera.setFrustumPerspective(45F, 1280F / 720F, 1F, 1000F);
+        camera.setLocation(new Vector3f(0, 5, 30));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        camera.update();
+
+        return camera;
+    }
+
+    private static float nextSigned(@NotNull final Random random) {
+        return random.nextFloat() * 2F - 1F;
+    }
+}
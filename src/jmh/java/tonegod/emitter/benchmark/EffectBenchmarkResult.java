@@ -0,0 +1,247 @@
+package tonegod.emitter.benchmark;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The result of running an effect file in {@link EffectBenchmarkRunner}.
+ *
+ * @author JavaSaBr
+ */
+public class EffectBenchmarkResult {
+
+    /**
+     * The timer of a frame phase.
+     */
+    public static class PhaseTimer {
+
+        /**
+         * The name of the phase.
+         */
+        @NotNull
+        private final String name;
+
+        /**
+         * The total time in nanoseconds.
+         */
+        private long totalTime;
+
+        /**
+         * The max time of a frame in nanoseconds.
+         */
+        private long maxTime;
+
+        /**
+         * The count of measured frames.
+         */
+        private int frames;
+
+        public PhaseTimer(@NotNull final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a time of a frame.
+         *
+         * @param time the time in nanoseconds.
+         */
+        public void add(final long time) {
+            totalTime += time;
+            maxTime = Math.max(maxTime, time);
+            frames++;
+        }
+
+        /**
+         * Gets the name of the phase.
+         *
+         * @return the name of the phase.
+         */
+        public @NotNull String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the average time of a frame.
+         *
+         * @return the average time in microseconds.
+         */
+        public double getAverageMicros() {
+            return frames == 0 ? 0 : totalTime / 1000D / frames;
+        }
+
+        /**
+         * Gets the max time of a frame.
+         *
+         * @return the max time in microseconds.
+         */
+        public double getMaxMicros() {
+            return maxTime / 1000D;
+        }
+    }
+
+    /**
+     * The path of the effect file.
+     */
+    @NotNull
+    private final String effect;
+
+    /**
+     * The timers of frame phases.
+     */
+    @NotNull
+    private final List<PhaseTimer> phases;
+
+    /**
+     * The timer of whole frames.
+     */
+    @NotNull
+    private final PhaseTimer frame;
+
+    /**
+     * The count of emitters in the effect.
+     */
+    private final int emitters;
+
+    /**
+     * The count of measured frames.
+     */
+    private final int frames;
+
+    /**
+     * The allocated bytes during measured frames or -1 if it isn't supported.
+     */
+    private final long allocatedBytes;
+
+    /**
+     * The peak count of active particles.
+     */
+    private final int peakParticles;
+
+    public EffectBenchmarkResult(@NotNull final String effect, @NotNull final List<PhaseTimer> phases,
+                                 @NotNull final PhaseTimer frame, final int emitters, final int frames,
+                                 final long allocatedBytes, final int peakParticles) {
+        this.effect = effect;
+        this.phases = phases;
+        this.frame = frame;
+        this.emitters = emitters;
+        this.frames = frames;
+        this.allocatedBytes = allocatedBytes;
+        this.peakParticles = peakParticles;
+    }
+
+    /**
+     * Gets the path of the effect file.
+     *
+     * @return the path of the effect file.
+     */
+    public @NotNull String getEffect() {
+        return effect;
+    }
+
+    /**
+     * Gets the timer of whole frames.
+     *
+     * @return the timer of whole frames.
+     */
+    public @NotNull PhaseTimer getFrame() {
+        return frame;
+    }
+
+    /**
+     * Gets the peak count of active particles.
+     *
+     * @return the peak count of active particles.
+     */
+    public int getPeakParticles() {
+        return peakParticles;
+    }
+
+    /**
+     * Gets the allocated bytes per frame.
+     *
+     * @return the allocated bytes per frame or -1 if it isn't supported.
+     */
+    public long getAllocatedBytesPerFrame() {
+        return allocatedBytes < 0 ? -1 : allocatedBytes / Math.max(frames, 1);
+    }
+
+    /**
+     * Builds the CSV header line.
+     *
+     * @return the CSV header line.
+     */
+    public @NotNull String toCsvHeader() {
+
+        final StringBuilder builder = new StringBuilder("effect,emitters,frames");
+
+        for (final PhaseTimer phase : phases) {
+            builder.append(',').append(phase.getName()).append("AvgUs");
+            builder.append(',').append(phase.getName()).append("MaxUs");
+        }
+
+        return builder.append(",frameAvgUs,frameMaxUs,allocatedBytesPerFrame,peakParticles").toString();
+    }
+
+    /**
+     * Builds the CSV line of this result.
+     *
+     * @return the CSV line.
+     */
+    public @NotNull String toCsv() {
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append('"').append(effect.replace("\"", "\"\"")).append('"');
+        builder.append(',').append(emitters).append(',').append(frames);
+
+        for (final PhaseTimer phase : phases) {
+            builder.append(',').append(format(phase.getAverageMicros()));
+            builder.append(',').append(format(phase.getMaxMicros()));
+        }
+
+        builder.append(',').append(format(frame.getAverageMicros()));
+        builder.append(',').append(format(frame.getMaxMicros()));
+        builder.append(',').append(getAllocatedBytesPerFrame());
+        builder.append(',').append(peakParticles);
+
+        return builder.toString();
+    }
+
+    /**
+     * Builds the JSON object of this result.
+     *
+     * @return the JSON object.
+     */
+    public @NotNull String toJson() {
+
+        final StringBuilder builder = new StringBuilder("{");
+        builder.append("\"effect\":\"").append(effect.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",");
+        builder.append("\"emitters\":").append(emitters).append(',');
+        builder.append("\"frames\":").append(frames).append(',');
+        builder.append("\"phases\":{");
+
+        for (int i = 0; i < phases.size(); i++) {
+            if (i > 0) builder.append(',');
+            appendTimer(builder, phases.get(i));
+        }
+
+        builder.append("},");
+        appendTimer(builder, frame);
+        builder.append(',');
+        builder.append("\"allocatedBytesPerFrame\":").append(getAllocatedBytesPerFrame()).append(',');
+        builder.append("\"peakParticles\":").append(peakParticles);
+
+        return builder.append('}').toString();
+    }
+
+    private static void appendTimer(@NotNull final StringBuilder builder, @NotNull final PhaseTimer timer) {
+        builder.append('"').append(timer.getName()).append("\":{");
+        builder.append("\"avgUs\":").append(format(timer.getAverageMicros())).append(',');
+        builder.append("\"maxUs\":").append(format(timer.getMaxMicros())).append('}');
+    }
+
+    private static @NotNull String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,301 @@
+package tonegod.emitter.benchmark;
+
+import static java.util.Objects.requireNonNull;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.benchmark.EffectBenchmarkResult.PhaseTimer;
+import tonegod.emitter.metrics.EmitterMetrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The command line tool to run saved effects headless (without a renderer) for a fixed count of frames and to report
+ * timings of frame phases, allocations and peak count of particles. The emission and influencers phases are parts
+ * of the simulation phase and are taken from {@link EmitterMetrics} of emitters.
+ * <pre>
+ * Usage: EffectBenchmarkRunner [options] &lt;effect.j3o&gt;...
+ *   --assets &lt;dir&gt;          the root folder of assets, effects are asset paths in it (default: .)
+ *   --frames &lt;count&gt;        the count of measured frames (default: 600)
+ *   --warmup &lt;count&gt;        the count of frames before measuring (default: 300)
+ *   --tpf &lt;seconds&gt;         the time per frame (default: 1/60)
+ *   --format &lt;json|csv&gt;     the format of the report (default: json)
+ *   --output &lt;file&gt;         the file of the report (default: stdout)
+ *   --budget-us &lt;micros&gt;    fail if an average frame of an effect takes longer
+ *   --max-particles &lt;count&gt; fail if peak active particles of an effect is greater
+ * </pre>
+ * All found emitters are enabled before running. The exit code is 1 if any budget is exceeded.
+ *
+ * @author JavaSaBr
+ */
+public class EffectBenchmarkRunner {
+
+    private static final String PHASE_SIMULATION = "simulation";
+    private static final String PHASE_EMISSION = "emission";
+    private static final String PHASE_INFLUENCERS = "influencers";
+    private static final String PHASE_BOUND_UPDATE = "boundUpdate";
+    private static final String PHASE_MESH_FILL = "meshFill";
+
+    private static final int CAMERA_WIDTH = 1280;
+    private static final int CAMERA_HEIGHT = 720;
+
+    @NotNull
+    private String assetRoot = ".";
+
+    @NotNull
+    private String format = "json";
+
+    @NotNull
+    private final List<String> effects = new ArrayList<>();
+
+    private String output;
+
+    private int frames = 600;
+    private int warmUpFrames = 300;
+    private float tpf = 1F / 60F;
+    private double budgetMicros = -1;
+    private int maxParticles = -1;
+
+    public static void main(@NotNull final String[] args) throws IOException {
+
+        final EffectBenchmarkRunner runner = new EffectBenchmarkRunner();
+
+        try {
+            runner.parse(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: EffectBenchmarkRunner [--assets dir] [--frames count] [--warmup count] " +
+                    "[--tpf seconds] [--format json|csv] [--output file] [--budget-us micros] " +
+                    "[--max-particles count] <effect.j3o>...");
+            System.exit(2);
+            return;
+        }
+
+        System.exit(runner.run() ? 0 : 1);
+    }
+
+    private void parse(@NotNull final String[] args) {
+
+        for (int i = 0; i < args.length; i++) {
+
+            final String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                effects.add(arg);
+                continue;
+            } else if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("No value of the option " + arg);
+            }
+
+            final String value = args[++i];
+
+            switch (arg) {
+                case "--assets": assetRoot = value; break;
+                case "--frames": frames = Integer.parseInt(value); break;
+                case "--warmup": warmUpFrames = Integer.parseInt(value); break;
+                case "--tpf": tpf = Float.parseFloat(value); break;
+                case "--format": format = value; break;
+                case "--output": output = value; break;
+                case "--budget-us": budgetMicros = Double.parseDouble(value); break;
+                case "--max-particles": maxParticles = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        if (effects.isEmpty()) {
+            throw new IllegalArgumentException("No effects.");
+        } else if (!"json".equals(format) && !"csv".equals(format)) {
+            throw new IllegalArgumentException("Unknown format " + format);
+        } else if (frames < 1) {
+            throw new IllegalArgumentException("The count of frames can't be less than 1.");
+        }
+    }
+
+    /**
+     * Runs all effects and writes the report.
+     *
+     * @return false if any budget was exceeded.
+     */
+    private boolean run() throws IOException {
+
+        final AssetManager assetManager = new DesktopAssetManager(true);
+        assetManager.registerLocator(assetRoot, FileLocator.class);
+
+        final List<EffectBenchmarkResult> results = new ArrayList<>(effects.size());
+
+        boolean passed = true;
+
+        for (final String effect : effects) {
+
+            final EffectBenchmarkResult result = run(assetManager, effect);
+            results.add(result);
+
+            if (budgetMicros >= 0 && result.getFrame().getAverageMicros() > budgetMicros) {
+                System.err.println(effect + ": the average frame " + result.getFrame().getAverageMicros() +
+                        "us exceeds the budget " + budgetMicros + "us");
+                passed = false;
+            }
+
+            if (maxParticles >= 0 && result.getPeakParticles() > maxParticles) {
+                System.err.println(effect + ": the peak " + result.getPeakParticles() +
+                        " particles exceeds the budget " + maxParticles);
+                passed = false;
+            }
+        }
+
+        final StringBuilder report = new StringBuilder();
+
+        if ("csv".equals(format)) {
+            report.append(results.get(0).toCsvHeader()).append('\n');
+            for (final EffectBenchmarkResult result : results) {
+                report.append(result.toCsv()).append('\n');
+            }
+        } else {
+            report.append('[');
+            for (int i = 0; i < results.size(); i++) {
+                if (i > 0) report.append(",\n");
+                report.append(results.get(i).toJson());
+            }
+            report.append("]\n");
+        }
+
+        if (output == null) {
+            System.out.print(report);
+        } else {
+            Files.write(Paths.get(output), report.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        return passed;
+    }
+
+    private @NotNull EffectBenchmarkResult run(@NotNull final AssetManager assetManager,
+                                               @NotNull final String effect) {
+
+        final Spatial model = assetManager.loadModel(effect);
+        final List<ParticleEmitterNode> emitters = new ArrayList<>();
+
+        model.depthFirstTraversal(spatial -> {
+            if (spatial instanceof ParticleEmitterNode) {
+                emitters.add((ParticleEmitterNode) spatial);
+            }
+        });
+
+        for (final ParticleEmitterNode emitter : emitters) {
+            emitter.setEnabled(true);
+            emitter.setMetricsEnabled(true);
+        }
+
+        final Camera camera = new Camera(CAMERA_WIDTH, CAMERA_HEIGHT);
+        camera.setFrustumPerspective(45F, (float) CAMERA_WIDTH / CAMERA_HEIGHT, 1F, 1000F);
+        camera.setLocation(new Vector3f(0, 5, 30));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        camera.update();
+
+        final ViewPort viewPort = new ViewPort("Benchmark", camera);
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(model);
+
+        final PhaseTimer simulation = new PhaseTimer(PHASE_SIMULATION);
+        final PhaseTimer emission = new PhaseTimer(PHASE_EMISSION);
+        final PhaseTimer influencers = new PhaseTimer(PHASE_INFLUENCERS);
+        final PhaseTimer boundUpdate = new PhaseTimer(PHASE_BOUND_UPDATE);
+        final PhaseTimer meshFill = new PhaseTimer(PHASE_MESH_FILL);
+        final PhaseTimer frame = new PhaseTimer("frame");
+
+        for (int i = 0; i < warmUpFrames; i++) {
+            runFrame(rootNode, emitters, viewPort, null, null, null);
+        }
+
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        final boolean allocationSupported = threadMXBean.isThreadAllocatedMemorySupported();
+
+        if (allocationSupported) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = allocationSupported ? threadMXBean.getThreadAllocatedBytes(threadId) : 0;
+
+        int peakParticles = 0;
+
+        for (int i = 0; i < frames; i++) {
+
+            final long start = System.nanoTime();
+            runFrame(rootNode, emitters, viewPort, simulation, boundUpdate, meshFill);
+            frame.add(System.nanoTime() - start);
+
+            int activeParticles = 0;
+            long emitTime = 0;
+            long influencersTime = 0;
+
+            for (final ParticleEmitterNode emitter : emitters) {
+                final EmitterMetrics metrics = requireNonNull(emitter.getMetrics());
+                activeParticles += emitter.getActiveParticleCount();
+                emitTime += metrics.getLastEmitTime();
+                influencersTime += metrics.getLastInfluencersTime();
+            }
+
+            emission.add(emitTime);
+            influencers.add(influencersTime);
+            peakParticles = Math.max(peakParticles, activeParticles);
+        }
+
+        for (final ParticleEmitterNode emitter : emitters) {
+            emitter.setMetricsEnabled(false);
+        }
+
+        final long allocatedBytes = allocationSupported ?
+                threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+
+        return new EffectBenchmarkResult(effect, Arrays.asList(simulation, emission, influencers, boundUpdate, meshFill), frame,
+                emitters.size(), frames, allocatedBytes, peakParticles);
+    }
+
+    private void runFrame(@NotNull final Node rootNode, @NotNull final List<ParticleEmitterNode> emitters,
+                          @NotNull final ViewPort viewPort, final PhaseTimer simulation,
+                          final PhaseTimer boundUpdate, final PhaseTimer meshFill) {
+
+        long time = System.nanoTime();
+
+        rootNode.updateLogicalState(tpf);
+
+        time = measure(simulation, time);
+
+        rootNode.updateGeometricState();
+
+        time = measure(boundUpdate, time);
+
+        for (final ParticleEmitterNode emitter : emitters) {
+            emitter.runControlRender(null, viewPort);
+        }
+
+        measure(meshFill, time);
+    }
+
+    private static long measure(final PhaseTimer timer, final long start) {
+
+        final long time = System.nanoTime();
+
+        if (timer != null) {
+            timer.add(time - start);
+        }
+
+        return time;
+    }
+}
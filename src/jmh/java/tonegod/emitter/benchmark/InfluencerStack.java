@@ -0,0 +1,96 @@
+package tonegod.emitter.benchmark;
+
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.influencers.ParticleInfluencer;
+import tonegod.emitter.influencers.impl.*;
+
+import java.util.function.Supplier;
+
+/**
+ * The list of benchmarked influencers: each built-in influencer alone and a few realistic stacks.
+ *
+ * @author JavaSaBr
+ */
+public enum InfluencerStack {
+    NONE(),
+    ALPHA(AlphaInfluencer::new),
+    COLOR(InfluencerStack::createColorInfluencer),
+    DESTINATION(InfluencerStack::createDestinationInfluencer),
+    GRAVITY(GravityInfluencer::new),
+    IMPULSE(ImpulseInfluencer::new),
+    PHYSICS(InfluencerStack::createPhysicsInfluencer),
+    RADIAL_VELOCITY(RadialVelocityInfluencer::new),
+    ROTATION(RotationInfluencer::new),
+    SIZE(SizeInfluencer::new),
+    SPRITE(SpriteInfluencer::new),
+    /**
+     * The typical fire: fading, coloring, growing and rising sprites.
+     */
+    FIRE(AlphaInfluencer::new, InfluencerStack::createColorInfluencer, SizeInfluencer::new, GravityInfluencer::new,
+            RotationInfluencer::new, SpriteInfluencer::new),
+    /**
+     * The typical magic effect: particles are swirling to a destination.
+     */
+    MAGIC(InfluencerStack::createDestinationInfluencer, RadialVelocityInfluencer::new,
+            InfluencerStack::createColorInfluencer, AlphaInfluencer::new, SizeInfluencer::new),
+    /**
+     * The typical debris: falling, rotating and colliding particles.
+     */
+    DEBRIS(ImpulseInfluencer::new, GravityInfluencer::new, RotationInfluencer::new,
+            InfluencerStack::createPhysicsInfluencer);
+
+    @NotNull
+    private final Supplier<ParticleInfluencer>[] factories;
+
+    @SafeVarargs
+    InfluencerStack(@NotNull final Supplier<ParticleInfluencer>... factories) {
+        this.factories = factories;
+    }
+
+    /**
+     * Creates new influencers of this stack.
+     *
+     * @return the new influencers.
+     */
+    public @NotNull ParticleInfluencer[] create() {
+
+        final ParticleInfluencer[] influencers = new ParticleInfluencer[factories.length];
+
+        for (int i = 0; i < factories.length; i++) {
+            influencers[i] = factories[i].get();
+        }
+
+        return influencers;
+    }
+
+    private static @NotNull ParticleInfluencer createColorInfluencer() {
+        final ColorInfluencer influencer = new ColorInfluencer();
+        influencer.addColor(ColorRGBA.Yellow);
+        influencer.addColor(ColorRGBA.Red);
+        return influencer;
+    }
+
+    private static @NotNull ParticleInfluencer createDestinationInfluencer() {
+        final DestinationInfluencer influencer = new DestinationInfluencer();
+        influencer.addDestination(new Vector3f(0, 5, 0), 0.5F);
+        influencer.addDestination(new Vector3f(5, 0, 0), 0.5F);
+        return influencer;
+    }
+
+    private static @NotNull ParticleInfluencer createPhysicsInfluencer() {
+
+        final Geometry ground = new Geometry("Ground", new Box(20, 0.1F, 20));
+        ground.setMaterial(new Material(BenchmarkEmitters.getAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md"));
+        ground.setLocalTranslation(0, -2, 0);
+        ground.updateGeometricState();
+
+        final PhysicsInfluencer influencer = new PhysicsInfluencer();
+        influencer.addCollidable(ground);
+        return influencer;
+    }
+}
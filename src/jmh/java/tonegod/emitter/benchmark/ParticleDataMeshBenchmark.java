@@ -0,0 +1,84 @@
+package tonegod.emitter.benchmark;
+
+import com.jme3.math.Matrix3f;
+import com.jme3.renderer.Camera;
+import org.openjdk.jmh.annotations.*;
+import tonegod.emitter.BillboardMode;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of {@link ParticleDataMesh#updateParticleData(ParticleData[], Camera, Matrix3f)} of quad and point
+ * meshes for each billboard mode, sprite sheets and velocity stretching.
+ *
+ * @author JavaSaBr
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleDataMeshBenchmark {
+
+    /**
+     * The benchmarked mesh types.
+     */
+    public enum MeshType {
+        TRI(ParticleDataTriMesh.class),
+        IMPOSTOR(ParticleDataImpostorMesh.class),
+        POINT(ParticleDataPointMesh.class);
+
+        private final Class<? extends ParticleDataMesh> type;
+
+        MeshType(final Class<? extends ParticleDataMesh> type) {
+            this.type = type;
+        }
+    }
+
+    @Param({"10000", "100000"})
+    private int particleCount;
+
+    @Param
+    private MeshType meshType;
+
+    @Param
+    private BillboardMode billboardMode;
+
+    /**
+     * The count of sprite columns and rows, 1 is a single image.
+     */
+    @Param({"1", "4"})
+    private int sprites;
+
+    @Param({"false", "true"})
+    private boolean velocityStretching;
+
+    private ParticleDataMesh particleDataMesh;
+    private ParticleData[] particles;
+    private Camera camera;
+    private Matrix3f inverseRotation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(BenchmarkEmitters.getAssetManager());
+        emitterNode.setBillboardMode(billboardMode);
+        emitterNode.setVelocityStretching(velocityStretching);
+        emitterNode.setSpriteCount(sprites, sprites);
+        emitterNode.updateGeometricState();
+
+        particleDataMesh = meshType.type.newInstance();
+        particleDataMesh.initParticleData(emitterNode, particleCount);
+        particleDataMesh.setImagesXY(sprites, sprites);
+
+        particles = BenchmarkEmitters.createParticles(emitterNode, particleCount);
+        camera = BenchmarkEmitters.createCamera();
+        inverseRotation = new Matrix3f();
+    }
+
+    @Benchmark
+    public ParticleDataMesh updateParticleData() {
+        particleDataMesh.updateParticleData(particles, camera, inverseRotation);
+        return particleDataMesh;
+    }
+}
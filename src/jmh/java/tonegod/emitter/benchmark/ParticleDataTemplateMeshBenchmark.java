@@ -0,0 +1,117 @@
+package tonegod.emitter.benchmark;
+
+import com.jme3.math.Matrix3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Quad;
+import com.jme3.scene.shape.Sphere;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import tonegod.emitter.BillboardMode;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.particle.ParticleDataTemplateMesh;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of {@link ParticleDataTemplateMesh#updateParticleData(ParticleData[], Camera, Matrix3f)} for
+ * templates with different vertex counts.
+ *
+ * @author JavaSaBr
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleDataTemplateMeshBenchmark {
+
+    /**
+     * The benchmarked templates.
+     */
+    public enum Template {
+        /**
+         * 4 vertices.
+         */
+        QUAD {
+            @Override
+            @NotNull Mesh create() {
+                return new Quad(1, 1);
+            }
+        },
+        /**
+         * 24 vertices.
+         */
+        BOX {
+            @Override
+            @NotNull Mesh create() {
+                return new Box(0.5F, 0.5F, 0.5F);
+            }
+        },
+        /**
+         * 52 vertices.
+         */
+        LOW_POLY_SPHERE {
+            @Override
+            @NotNull Mesh create() {
+                return new Sphere(7, 9, 0.5F);
+            }
+        },
+        /**
+         * 272 vertices.
+         */
+        SPHERE {
+            @Override
+            @NotNull Mesh create() {
+                return new Sphere(17, 17, 0.5F);
+            }
+        };
+
+        abstract @NotNull Mesh create();
+    }
+
+    @Param({"1000", "10000"})
+    private int particleCount;
+
+    @Param
+    private Template template;
+
+    @Param
+    private BillboardMode billboardMode;
+
+    @Param({"1", "4"})
+    private int sprites;
+
+    @Param({"false", "true"})
+    private boolean velocityStretching;
+
+    private ParticleDataTemplateMesh particleDataMesh;
+    private ParticleData[] particles;
+    private Camera camera;
+    private Matrix3f inverseRotation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(BenchmarkEmitters.getAssetManager());
+        emitterNode.setBillboardMode(billboardMode);
+        emitterNode.setVelocityStretching(velocityStretching);
+        emitterNode.setSpriteCount(sprites, sprites);
+        emitterNode.updateGeometricState();
+
+        particleDataMesh = new ParticleDataTemplateMesh();
+        particleDataMesh.extractTemplateFromMesh(template.create());
+        particleDataMesh.initParticleData(emitterNode, particleCount);
+        particleDataMesh.setImagesXY(sprites, sprites);
+
+        particles = BenchmarkEmitters.createParticles(emitterNode, particleCount);
+        camera = BenchmarkEmitters.createCamera();
+        inverseRotation = new Matrix3f();
+    }
+
+    @Benchmark
+    public ParticleDataTemplateMesh updateParticleData() {
+        particleDataMesh.updateParticleData(particles, camera, inverseRotation);
+        return particleDataMesh;
+    }
+}
@@ -0,0 +1,63 @@
+package tonegod.emitter.benchmark;
+
+import static tonegod.emitter.benchmark.BenchmarkEmitters.TPF;
+import org.openjdk.jmh.annotations.*;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.ParticleDataTriMesh;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of {@link ParticleEmitterNode#updateLogicalState(float)} without influencers for different counts of
+ * particles, occupancy levels and emission scenarios.
+ *
+ * @author JavaSaBr
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleEmitterSimulationBenchmark {
+
+    /**
+     * The emission scenario.
+     */
+    public enum Scenario {
+        /**
+         * Long living particles, a few emissions per frame.
+         */
+        STEADY(2F),
+        /**
+         * Short living particles, most of the work is emitting new particles.
+         */
+        EMISSION_HEAVY(0.1F);
+
+        private final float life;
+
+        Scenario(final float life) {
+            this.life = life;
+        }
+    }
+
+    @Param({"1000", "10000", "50000", "200000"})
+    private int maxParticles;
+
+    @Param({"0.1", "0.5", "1.0"})
+    private float occupancy;
+
+    @Param({"STEADY", "EMISSION_HEAVY"})
+    private Scenario scenario;
+
+    private ParticleEmitterNode emitterNode;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emitterNode = BenchmarkEmitters.createEmitter(ParticleDataTriMesh.class, maxParticles, occupancy, scenario.life);
+        BenchmarkEmitters.warmUp(emitterNode, scenario.life);
+    }
+
+    @Benchmark
+    public int updateLogicalState() {
+        emitterNode.updateLogicalState(TPF);
+        return emitterNode.getActiveParticleCount();
+    }
+}
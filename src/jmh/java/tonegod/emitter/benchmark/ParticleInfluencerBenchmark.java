@@ -0,0 +1,44 @@
+package tonegod.emitter.benchmark;
+
+import static tonegod.emitter.benchmark.BenchmarkEmitters.TPF;
+import org.openjdk.jmh.annotations.*;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.ParticleDataTriMesh;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of {@link ParticleEmitterNode#updateLogicalState(float)} with each built-in influencer and with
+ * realistic stacks of influencers.
+ *
+ * @author JavaSaBr
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleInfluencerBenchmark {
+
+    private static final float LIFE = 1F;
+    private static final float OCCUPANCY = 0.8F;
+
+    @Param({"10000", "100000"})
+    private int maxParticles;
+
+    @Param
+    private InfluencerStack influencers;
+
+    private ParticleEmitterNode emitterNode;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        emitterNode = BenchmarkEmitters.createEmitter(ParticleDataTriMesh.class, maxParticles, OCCUPANCY, LIFE);
+        emitterNode.addInfluencers(influencers.create());
+        BenchmarkEmitters.warmUp(emitterNode, LIFE);
+    }
+
+    @Benchmark
+    public int updateLogicalState() {
+        emitterNode.updateLogicalState(TPF);
+        return emitterNode.getActiveParticleCount();
+    }
+}
@@ -0,0 +1,268 @@
+package tonegod.emitter;
+
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The batch of sampled emission data of an {@link EmitterMesh}. All vectors are stored in primitive arrays by 3 floats
+ * per emission in the emitter space.
+ *
+ * @author JavaSaBr
+ * @see EmitterMesh#sample(int)
+ */
+public class EmissionBatch {
+
+    @NotNull
+    private static final float[] EMPTY_FLOATS = new float[0];
+
+    @NotNull
+    private static final int[] EMPTY_INTS = new int[0];
+
+    /**
+     * The emission positions including random offsets.
+     */
+    @NotNull
+    private float[] positions;
+
+    /**
+     * The random offsets from centers of triangles.
+     */
+    @NotNull
+    private float[] offsets;
+
+    /**
+     * The normals of the emitter shape in emission positions.
+     */
+    @NotNull
+    private float[] normals;
+
+    /**
+     * The normalized emission directions.
+     */
+    @NotNull
+    private float[] directions;
+
+    /**
+     * The sampled points of an analytic shape before applying the rotation and the scale of the emitter.
+     */
+    @NotNull
+    private float[] shapePoints;
+
+    /**
+     * The sampled normals of an analytic shape before applying the rotation of the emitter.
+     */
+    @NotNull
+    private float[] shapeNormals;
+
+    /**
+     * The indexes of triangles.
+     */
+    @NotNull
+    private int[] triangleIndexes;
+
+    /**
+     * The count of sampled emissions.
+     */
+    private int size;
+
+    public EmissionBatch() {
+        this.positions = EMPTY_FLOATS;
+        this.offsets = EMPTY_FLOATS;
+        this.normals = EMPTY_FLOATS;
+        this.directions = EMPTY_FLOATS;
+        this.shapePoints = EMPTY_FLOATS;
+        this.shapeNormals = EMPTY_FLOATS;
+        this.triangleIndexes = EMPTY_INTS;
+    }
+
+    /**
+     * Prepares this batch to store the count of emissions.
+     *
+     * @param size the count of emissions.
+     */
+    void prepare(final int size) {
+
+        if (size > triangleIndexes.length) {
+
+            final int capacity = Math.max(size, triangleIndexes.length * 3 / 2);
+
+            positions = new float[capacity * 3];
+            offsets = new float[capacity * 3];
+            normals = new float[capacity * 3];
+            directions = new float[capacity * 3];
+            shapePoints = new float[capacity * 3];
+            shapeNormals = new float[capacity * 3];
+            triangleIndexes = new int[capacity];
+        }
+
+        this.size = size;
+    }
+
+    /**
+     * Clears random offsets of emissions of this batch.
+     */
+    void clearOffsets() {
+        Arrays.fill(offsets, 0, size * 3, 0F);
+    }
+
+    /**
+     * Gets the count of sampled emissions.
+     *
+     * @return the count of sampled emissions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the emission positions including random offsets, 3 floats per emission.
+     *
+     * @return the emission positions.
+     */
+    public @NotNull float[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Gets the random offsets from centers of triangles, 3 floats per emission.
+     *
+     * @return the random offsets.
+     */
+    public @NotNull float[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the normals of the emitter shape in emission positions, 3 floats per emission.
+     *
+     * @return the normals.
+     */
+    public @NotNull float[] getNormals() {
+        return normals;
+    }
+
+    /**
+     * Gets the normalized emission directions, 3 floats per emission.
+     *
+     * @return the emission directions.
+     */
+    public @NotNull float[] getDirections() {
+        return directions;
+    }
+
+    /**
+     * Gets the sampled points of an analytic shape, 3 floats per emission.
+     *
+     * @return the sampled points.
+     */
+    public @NotNull float[] getShapePoints() {
+        return shapePoints;
+    }
+
+    /**
+     * Gets the sampled normals of an analytic shape, 3 floats per emission.
+     *
+     * @return the sampled normals.
+     */
+    public @NotNull float[] getShapeNormals() {
+        return shapeNormals;
+    }
+
+    /**
+     * Gets the indexes of triangles.
+     *
+     * @return the indexes of triangles.
+     */
+    public @NotNull int[] getTriangleIndexes() {
+        return triangleIndexes;
+    }
+
+    /**
+     * Gets the emission position.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the position.
+     * @return the emission position.
+     */
+    public @NotNull Vector3f getPosition(final int index, @NotNull final Vector3f store) {
+        return get(positions, index, store);
+    }
+
+    /**
+     * Gets the random offset.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the offset.
+     * @return the random offset.
+     */
+    public @NotNull Vector3f getOffset(final int index, @NotNull final Vector3f store) {
+        return get(offsets, index, store);
+    }
+
+    /**
+     * Gets the normal.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the normal.
+     * @return the normal.
+     */
+    public @NotNull Vector3f getNormal(final int index, @NotNull final Vector3f store) {
+        return get(normals, index, store);
+    }
+
+    /**
+     * Gets the emission direction.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the direction.
+     * @return the emission direction.
+     */
+    public @NotNull Vector3f getDirection(final int index, @NotNull final Vector3f store) {
+        return get(directions, index, store);
+    }
+
+    /**
+     * Gets the sampled point of an analytic shape.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the point.
+     * @return the sampled point.
+     */
+    public @NotNull Vector3f getShapePoint(final int index, @NotNull final Vector3f store) {
+        return get(shapePoints, index, store);
+    }
+
+    /**
+     * Gets the sampled normal of an analytic shape.
+     *
+     * @param index the index of the emission.
+     * @param store the vector to store the normal.
+     * @return the sampled normal.
+     */
+    public @NotNull Vector3f getShapeNormal(final int index, @NotNull final Vector3f store) {
+        return get(shapeNormals, index, store);
+    }
+
+    /**
+     * Gets the index of the triangle.
+     *
+     * @param index the index of the emission.
+     * @return the index of the triangle.
+     */
+    public int getTriangleIndex(final int index) {
+        return triangleIndexes[index];
+    }
+
+    private static @NotNull Vector3f get(@NotNull final float[] array, final int index,
+                                         @NotNull final Vector3f store) {
+        final int offset = index * 3;
+        return store.set(array[offset], array[offset + 1], array[offset + 2]);
+    }
+
+    @Override
+    public String toString() {
+        return "EmissionBatch{size=" + size + '}';
+    }
+}
@@ -0,0 +1,360 @@
+package tonegod.emitter;
+
+import static com.jme3.util.BufferUtils.populateFromBuffer;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.image.ImageRaster;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.util.AliasTable;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * The distribution of emission points over the surface of a mesh which is weighted by the brightness of a mask in the
+ * texture space of the mesh. The mask is split to cells, every cell is assigned to the triangle which covers the
+ * center of the cell and is weighted by the brightness of the mask and by the density of the surface in the cell, so
+ * sampling a point is done in constant time.
+ *
+ * @author JavaSaBr
+ */
+public class EmissionMask implements Savable {
+
+    /**
+     * The max count of cells by a side of the mask.
+     */
+    public static final int MAX_RESOLUTION = 256;
+
+    @NotNull
+    private static final int[] EMPTY_INTS = new int[0];
+
+    @NotNull
+    private static final float[] EMPTY_FLOATS = new float[0];
+
+    /**
+     * The table of cells weighted by the brightness of the mask and by the density of the surface.
+     */
+    @NotNull
+    private AliasTable cellTable;
+
+    /**
+     * The indexes of triangles of cells.
+     */
+    @NotNull
+    private int[] cellTriangles;
+
+    /**
+     * The texture coordinates of triangles, 6 floats per triangle.
+     */
+    @NotNull
+    private float[] triangleCoords;
+
+    /**
+     * The count of cells by the width.
+     */
+    private int width;
+
+    /**
+     * The count of cells by the height.
+     */
+    private int height;
+
+    /**
+     * The flag of a mask without bright pixels on the surface.
+     */
+    private boolean empty;
+
+    public EmissionMask() {
+        this.cellTable = new AliasTable();
+        this.cellTriangles = EMPTY_INTS;
+        this.triangleCoords = EMPTY_FLOATS;
+        this.empty = true;
+    }
+
+    /**
+     * Builds the distribution of emission points of the mesh by the mask.
+     *
+     * @param mesh    the mesh with texture coordinates.
+     * @param indices the indices of triangles of the mesh.
+     * @param mask    the image of the mask, bright pixels emit more particles.
+     * @throws IllegalArgumentException if the mesh doesn't have texture coordinates.
+     */
+    public EmissionMask(@NotNull final Mesh mesh, @NotNull final IndexBuffer indices, @NotNull final Image mask) {
+
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        final FloatBuffer texCoords = mesh.getFloatBuffer(VertexBuffer.Type.TexCoord);
+
+        if (texCoords == null) {
+            throw new IllegalArgumentException("the mesh " + mesh + " doesn't have texture coordinates.");
+        }
+
+        final int triangleCount = Math.min(mesh.getTriangleCount(), indices.size() / 3);
+
+        this.width = Math.max(1, Math.min(mask.getWidth(), MAX_RESOLUTION));
+        this.height = Math.max(1, Math.min(mask.getHeight(), MAX_RESOLUTION));
+        this.cellTriangles = new int[width * height];
+        this.triangleCoords = new float[triangleCount * 6];
+
+        final float[] brightness = readBrightness(mask, width, height);
+        final float[] weights = new float[width * height];
+
+        final Vector3f point1 = new Vector3f();
+        final Vector3f point2 = new Vector3f();
+        final Vector3f point3 = new Vector3f();
+        final Vector3f cross = new Vector3f();
+        final Vector2f coord1 = new Vector2f();
+        final Vector2f coord2 = new Vector2f();
+        final Vector2f coord3 = new Vector2f();
+        final float[] barycentric = new float[3];
+
+        for (int i = 0; i < triangleCount; i++) {
+
+            final int vertIndex = i * 3;
+            final int index1 = indices.get(vertIndex);
+            final int index2 = indices.get(vertIndex + 1);
+            final int index3 = indices.get(vertIndex + 2);
+
+            populateFromBuffer(point1, positions, index1);
+            populateFromBuffer(point2, positions, index2);
+            populateFromBuffer(point3, positions, index3);
+            populateFromBuffer(coord1, texCoords, index1);
+            populateFromBuffer(coord2, texCoords, index2);
+            populateFromBuffer(coord3, texCoords, index3);
+
+            final int coordOffset = i * 6;
+
+            triangleCoords[coordOffset] = coord1.x;
+            triangleCoords[coordOffset + 1] = coord1.y;
+            triangleCoords[coordOffset + 2] = coord2.x;
+            triangleCoords[coordOffset + 3] = coord2.y;
+            triangleCoords[coordOffset + 4] = coord3.x;
+            triangleCoords[coordOffset + 5] = coord3.y;
+
+            final float coordArea = Math.abs((coord2.x - coord1.x) * (coord3.y - coord1.y)
+                    - (coord3.x - coord1.x) * (coord2.y - coord1.y)) / 2F;
+
+            if (coordArea == 0F) {
+                continue;
+            }
+
+            point2.subtractLocal(point1);
+            point3.subtractLocal(point1);
+
+            // the area of the surface per a unit of the texture space
+            final float density = point2.cross(point3, cross).length() / 2F / coordArea;
+
+            final float minU = Math.min(coord1.x, Math.min(coord2.x, coord3.x));
+            final float maxU = Math.max(coord1.x, Math.max(coord2.x, coord3.x));
+            final float minV = Math.min(coord1.y, Math.min(coord2.y, coord3.y));
+            final float maxV = Math.max(coord1.y, Math.max(coord2.y, coord3.y));
+
+            final int minX = Math.max(0, (int) Math.floor(minU * width));
+            final int maxX = Math.min(width - 1, (int) Math.ceil(maxU * width));
+            final int minY = Math.max(0, (int) Math.floor(minV * height));
+            final int maxY = Math.min(height - 1, (int) Math.ceil(maxV * height));
+
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+
+                    final float u = (x + 0.5F) / width;
+                    final float v = (y + 0.5F) / height;
+
+                    if (!toBarycentric(triangleCoords, i, u, v, barycentric)) {
+                        continue;
+                    }
+
+                    final int cell = y * width + x;
+
+                    cellTriangles[cell] = i;
+                    weights[cell] = brightness[cell] * density;
+                }
+            }
+        }
+
+        float sum = 0F;
+
+        for (final float weight : weights) {
+            sum += weight;
+        }
+
+        this.cellTable = new AliasTable(weights);
+        this.empty = sum <= 0F;
+    }
+
+    /**
+     * Reads the average brightness of pixels of the image in every cell.
+     *
+     * @param image  the image.
+     * @param width  the count of cells by the width.
+     * @param height the count of cells by the height.
+     * @return the brightness of cells.
+     */
+    private static @NotNull float[] readBrightness(@NotNull final Image image, final int width, final int height) {
+
+        final ImageRaster raster = ImageRaster.create(image);
+        final ColorRGBA color = new ColorRGBA();
+        final int imageWidth = image.getWidth();
+        final int imageHeight = image.getHeight();
+        final float[] brightness = new float[width * height];
+
+        for (int y = 0; y < height; y++) {
+
+            final int fromY = y * imageHeight / height;
+            final int toY = Math.max(fromY + 1, (y + 1) * imageHeight / height);
+
+            for (int x = 0; x < width; x++) {
+
+                final int fromX = x * imageWidth / width;
+                final int toX = Math.max(fromX + 1, (x + 1) * imageWidth / width);
+
+                float sum = 0F;
+
+                for (int pixelY = fromY; pixelY < toY; pixelY++) {
+                    for (int pixelX = fromX; pixelX < toX; pixelX++) {
+                        raster.getPixel(pixelX, pixelY, color);
+                        sum += (0.2126F * color.r + 0.7152F * color.g + 0.0722F * color.b) * color.a;
+                    }
+                }
+
+                brightness[y * width + x] = sum / ((toX - fromX) * (toY - fromY));
+            }
+        }
+
+        return brightness;
+    }
+
+    /**
+     * Calculates barycentric coordinates of the point in the texture space of the triangle.
+     *
+     * @param triangleCoords the texture coordinates of triangles.
+     * @param triangle       the index of the triangle.
+     * @param u              the U coordinate of the point.
+     * @param v              the V coordinate of the point.
+     * @param store          the array to store 3 barycentric coordinates.
+     * @return true if the point is inside the triangle.
+     */
+    private static boolean toBarycentric(@NotNull final float[] triangleCoords, final int triangle, final float u,
+                                         final float v, @NotNull final float[] store) {
+
+        final int offset = triangle * 6;
+
+        final float x1 = triangleCoords[offset];
+        final float y1 = triangleCoords[offset + 1];
+        final float x2 = triangleCoords[offset + 2];
+        final float y2 = triangleCoords[offset + 3];
+        final float x3 = triangleCoords[offset + 4];
+        final float y3 = triangleCoords[offset + 5];
+
+        final float determinant = (y2 - y3) * (x1 - x3) + (x3 - x2) * (y1 - y3);
+
+        if (determinant == 0F) {
+            store[0] = 1F;
+            store[1] = 0F;
+            store[2] = 0F;
+            return false;
+        }
+
+        final float weight1 = ((y2 - y3) * (u - x3) + (x3 - x2) * (v - y3)) / determinant;
+        final float weight2 = ((y3 - y1) * (u - x3) + (x1 - x3) * (v - y3)) / determinant;
+        final float weight3 = 1F - weight1 - weight2;
+
+        store[0] = weight1;
+        store[1] = weight2;
+        store[2] = weight3;
+
+        return weight1 >= 0F && weight2 >= 0F && weight3 >= 0F;
+    }
+
+    /**
+     * Gets the count of cells by the width.
+     *
+     * @return the count of cells by the width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the count of cells by the height.
+     *
+     * @return the count of cells by the height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns true if the mask doesn't have bright pixels on the surface of the mesh, so it can't be sampled.
+     *
+     * @return true if the mask is empty.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Takes a random point of the surface with probability proportional to the brightness of the mask.
+     *
+     * @param random      the random.
+     * @param barycentric the array to store 3 barycentric coordinates of the point in the triangle.
+     * @return the index of the triangle.
+     */
+    public int sample(@NotNull final Random random, @NotNull final float[] barycentric) {
+
+        final int cell = cellTable.sample(random);
+        final int triangle = cellTriangles[cell];
+
+        final float u = (cell % width + random.nextFloat()) / width;
+        final float v = (cell / width + random.nextFloat()) / height;
+
+        if (!toBarycentric(triangleCoords, triangle, u, v, barycentric)) {
+
+            // the jittered point is out of the triangle near its edges, so move it to the nearest edge
+            final float weight1 = Math.max(barycentric[0], 0F);
+            final float weight2 = Math.max(barycentric[1], 0F);
+            final float weight3 = Math.max(barycentric[2], 0F);
+            final float sum = weight1 + weight2 + weight3;
+
+            if (sum > 0F) {
+                barycentric[0] = weight1 / sum;
+                barycentric[1] = weight2 / sum;
+                barycentric[2] = weight3 / sum;
+            }
+        }
+
+        return triangle;
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(cellTable, "cellTable", null);
+        capsule.write(cellTriangles, "cellTriangles", EMPTY_INTS);
+        capsule.write(triangleCoords, "triangleCoords", EMPTY_FLOATS);
+        capsule.write(width, "width", 0);
+        capsule.write(height, "height", 0);
+        capsule.write(empty, "empty", true);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        cellTable = (AliasTable) capsule.readSavable("cellTable", new AliasTable());
+        cellTriangles = capsule.readIntArray("cellTriangles", EMPTY_INTS);
+        triangleCoords = capsule.readFloatArray("triangleCoords", EMPTY_FLOATS);
+        width = capsule.readInt("width", 0);
+        height = capsule.readInt("height", 0);
+        empty = capsule.readBoolean("empty", true);
+    }
+}
@@ -1,21 +1,34 @@
 package tonegod.emitter;
 
+import static com.jme3.util.BufferUtils.populateFromBuffer;
 import static java.util.Objects.requireNonNull;
 import static tonegod.emitter.util.RandomUtils.nextRandomInt;
+import com.jme3.animation.Skeleton;
 import com.jme3.export.*;
 import com.jme3.math.FastMath;
+import com.jme3.math.Matrix4f;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Triangle;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Mesh;
-import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.texture.Image;
 import com.jme3.util.clone.Cloner;
 import com.jme3.util.clone.JmeCloneable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.shapes.AnalyticEmitterShape;
+import tonegod.emitter.util.AliasTable;
 import tonegod.emitter.util.RandomUtils;
 
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.Random;
 
 /**
@@ -79,6 +92,11 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         }
     }
 
+    /**
+     * The version of the format of saved preprocessed data, the data of other versions is rebuilt after loading.
+     */
+    public static final int PREPROCESSED_DATA_VERSION = 1;
+
     /**
      * The triangle.
      */
@@ -92,22 +110,97 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     private ParticleEmitterNode emitterNode;
 
     /**
-     * The mesh.
+     * The mesh or the preview mesh of the analytic shape.
      */
     @Nullable
     private Mesh mesh;
 
+    /**
+     * The analytic shape or null if the mesh is used.
+     */
+    @Nullable
+    private AnalyticEmitterShape analyticShape;
+
+    /**
+     * The last sampled point of the analytic shape.
+     */
+    @NotNull
+    private Vector3f samplePoint;
+
+    /**
+     * The last sampled normal of the analytic shape.
+     */
+    @NotNull
+    private Vector3f sampleNormal;
+
+    /**
+     * The rotation of the emitter which was used to build the cache of triangles.
+     */
+    @NotNull
+    private Quaternion cachedRotation;
+
+    /**
+     * The scale of the emitter which was used to build the cache of triangles.
+     */
     @NotNull
-    private Node pointNode;
+    private Vector3f cachedScale;
+
+    /**
+     * The cached vertices of triangles in the emitter space, 9 floats per triangle.
+     */
+    @Nullable
+    private float[] cachedVertices;
+
+    /**
+     * The cached centers of triangles in the emitter space, 3 floats per triangle.
+     */
+    @Nullable
+    private float[] cachedCenters;
+
+    /**
+     * The cached normals of triangles in the emitter space, 3 floats per triangle.
+     */
+    @Nullable
+    private float[] cachedNormals;
+
+    /**
+     * The table of triangles weighted by their area.
+     */
+    @Nullable
+    private AliasTable triangleTable;
+
+    /**
+     * The skeleton to skin vertices of the animated mesh on the CPU.
+     */
+    @Nullable
+    private Skeleton skeleton;
+
+    /**
+     * The skinned positions of vertices of the animated mesh, 3 floats per vertex.
+     */
+    @Nullable
+    private float[] skinnedPositions;
 
+    /**
+     * The mask of emission density in the texture space of the mesh.
+     */
+    @Nullable
+    private EmissionMask emissionMask;
+
+    /**
+     * The barycentric coordinates of the point sampled by the mask.
+     */
     @NotNull
-    private Node node1;
+    private float[] barycentric;
 
+    /**
+     * The reusable batch of sampled emissions.
+     */
     @NotNull
-    private Node node2;
+    private EmissionBatch emissionBatch;
 
     @NotNull
-    private Node node3;
+    private Vector3f triangleCenter;
 
     @NotNull
     private Vector3f triangleNormal;
@@ -130,6 +223,12 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     @NotNull
     private Vector3f resultInterpolation;
 
+    @NotNull
+    private Vector3f tempPoint;
+
+    @NotNull
+    private Vector3f tempNormal;
+
     @NotNull
     private Vector3f tempDirection;
 
@@ -142,13 +241,19 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     @NotNull
     private Quaternion tempQuaternion2;
 
+    /**
+     * The cached list of indices of the mesh.
+     */
+    @Nullable
+    private IndexBuffer indices;
+
     /**
      * The triangle index.
      */
     private int triangleIndex;
 
     /**
-     * The triangle count.
+     * The count of triangles or the count of vertices if particles are emitted from vertices.
      */
     private int triangleCount;
 
@@ -157,15 +262,35 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
      */
     private int currentTriangle;
 
+    /**
+     * The flag of choosing triangles proportionally to their area.
+     */
+    private boolean areaWeighted;
+
+    /**
+     * The flag of emitting from vertices of the mesh instead of triangles.
+     */
+    private boolean vertexEmission;
+
+    /**
+     * The flag of saving preprocessed data of the mesh.
+     */
+    private boolean persistPreprocessedData;
+
+    /**
+     * The flag of taking a snapshot of vertices of the animated mesh once per frame.
+     */
+    private boolean animated;
+
+    /**
+     * The flag of outdated snapshot of vertices of the animated mesh.
+     */
+    private boolean snapshotOutdated;
+
     public EmitterMesh() {
         this.triangle = new Triangle();
-        this.pointNode = new Node();
-        this.node1 = new Node();
-        this.node2 = new Node();
-        this.node3 = new Node();
-        this.pointNode.attachChild(node1);
-        this.pointNode.attachChild(node2);
-        this.pointNode.attachChild(node3);
+        this.cachedRotation = new Quaternion();
+        this.cachedScale = new Vector3f();
         this.point1 = new Vector3f();
         this.point2 = new Vector3f();
         this.point3 = new Vector3f();
@@ -176,7 +301,15 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         this.tempDirection2 = new Vector3f();
         this.tempQuaternion = new Quaternion();
         this.tempQuaternion2 = new Quaternion();
+        this.triangleCenter = new Vector3f();
         this.triangleNormal = new Vector3f();
+        this.samplePoint = new Vector3f();
+        this.sampleNormal = new Vector3f();
+        this.emissionBatch = new EmissionBatch();
+        this.barycentric = new float[3];
+        this.persistPreprocessedData = true;
+        this.tempPoint = new Vector3f();
+        this.tempNormal = new Vector3f();
     }
 
     /**
@@ -188,7 +321,262 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     public void setShape(@NotNull final ParticleEmitterNode emitterNode, @NotNull final Mesh mesh) {
         this.emitterNode = emitterNode;
         this.mesh = mesh;
-        this.triangleCount = mesh.getTriangleCount();
+        this.analyticShape = null;
+        this.emissionMask = null;
+        this.indices = null;
+        this.triangleCount = isVertexSource() ? mesh.getVertexCount() : mesh.getTriangleCount();
+        invalidate();
+    }
+
+    /**
+     * Sets the analytic shape to use as the emitter shape, the analytic shape is sampled without triangles.
+     *
+     * @param emitterNode the emitter node
+     * @param shape       the analytic shape.
+     */
+    public void setShape(@NotNull final ParticleEmitterNode emitterNode, @NotNull final AnalyticEmitterShape shape) {
+        this.emitterNode = emitterNode;
+        this.mesh = null;
+        this.analyticShape = shape;
+        this.emissionMask = null;
+        this.indices = null;
+        this.triangleCount = 1;
+        invalidate();
+    }
+
+    /**
+     * Gets the analytic shape.
+     *
+     * @return the analytic shape or null if the mesh is used as the emitter shape.
+     */
+    public @Nullable AnalyticEmitterShape getAnalyticShape() {
+        return analyticShape;
+    }
+
+    /**
+     * Invalidates the cache of triangles, it should be called after changing vertices of the shape mesh. The cache
+     * is rebuilt on the next emission.
+     */
+    public void invalidate() {
+        this.cachedVertices = null;
+        this.cachedCenters = null;
+        this.cachedNormals = null;
+        this.triangleTable = null;
+    }
+
+    /**
+     * Returns true if random triangles are chosen proportionally to their area, so particles are distributed
+     * uniformly over the surface of the shape.
+     *
+     * @return true if random triangles are chosen proportionally to their area.
+     */
+    public boolean isAreaWeighted() {
+        return areaWeighted;
+    }
+
+    /**
+     * Sets true if random triangles should be chosen proportionally to their area. The table of triangles is built
+     * once per shape mesh by areas in the space of the mesh and is saved with this shape.
+     *
+     * @param areaWeighted true if random triangles should be chosen proportionally to their area.
+     */
+    public void setAreaWeighted(final boolean areaWeighted) {
+        this.areaWeighted = areaWeighted;
+    }
+
+    /**
+     * Returns true if preprocessed data of the mesh is saved with this shape.
+     *
+     * @return true if preprocessed data of the mesh is saved.
+     */
+    public boolean isPersistPreprocessedData() {
+        return persistPreprocessedData;
+    }
+
+    /**
+     * Sets true if preprocessed data of the mesh should be saved with this shape: the table of area weighted
+     * triangles and the cache of transformed triangles of not animated meshes. The data is built on saving, so it's
+     * not built again on loading. The saved data is checked by the {@link #PREPROCESSED_DATA_VERSION version} and by
+     * the hash of the mesh, so the data which doesn't match the loaded mesh is dropped and is rebuilt on the next
+     * emission. The mask of emission density is always saved, but it's dropped as well if it doesn't match the mesh.
+     *
+     * @param persistPreprocessedData true if preprocessed data of the mesh should be saved.
+     */
+    public void setPersistPreprocessedData(final boolean persistPreprocessedData) {
+        this.persistPreprocessedData = persistPreprocessedData;
+    }
+
+    /**
+     * Calculates the hash of the mesh data which is used to build preprocessed data.
+     *
+     * @param mesh the mesh.
+     * @return the hash of the mesh.
+     */
+    private static long calculateMeshHash(@NotNull final Mesh mesh) {
+
+        long hash = 17;
+        hash = hash * 31 + mesh.getMode().ordinal();
+        hash = hash * 31 + mesh.getVertexCount();
+        hash = hash * 31 + mesh.getTriangleCount();
+        hash = hash * 31 + calculateBufferHash(mesh.getFloatBuffer(VertexBuffer.Type.Position));
+        hash = hash * 31 + calculateBufferHash(mesh.getFloatBuffer(VertexBuffer.Type.Normal));
+        hash = hash * 31 + calculateBufferHash(mesh.getFloatBuffer(VertexBuffer.Type.TexCoord));
+
+        final IndexBuffer indices = mesh.getIndicesAsList();
+
+        for (int i = 0, length = indices.size(); i < length; i++) {
+            hash = hash * 31 + indices.get(i);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Calculates the hash of the buffer.
+     *
+     * @param buffer the buffer or null.
+     * @return the hash of the buffer.
+     */
+    private static long calculateBufferHash(@Nullable final FloatBuffer buffer) {
+
+        if (buffer == null) {
+            return 0;
+        }
+
+        long hash = 1;
+
+        for (int i = 0, length = buffer.limit(); i < length; i++) {
+            hash = hash * 31 + Float.floatToIntBits(buffer.get(i));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Gets the mask of emission density.
+     *
+     * @return the mask of emission density or null.
+     */
+    public @Nullable EmissionMask getEmissionMask() {
+        return emissionMask;
+    }
+
+    /**
+     * Sets the mask of emission density in the texture space of the mesh, bright pixels of the mask emit more
+     * particles. The distribution of emission points is built once from the current mesh and is saved with this
+     * shape. The mask replaces random and sequential selection of triangles and places particles into the masked
+     * points of triangles, it's ignored for analytic shapes and emission from vertices.
+     *
+     * @param mask the image of the mask or null to disable the mask.
+     * @throws IllegalArgumentException if the mesh doesn't have texture coordinates.
+     */
+    public void setEmissionMask(@Nullable final Image mask) {
+        if (mask == null || analyticShape != null) {
+            this.emissionMask = null;
+        } else {
+            this.emissionMask = new EmissionMask(getMesh(), getIndices(), mask);
+        }
+    }
+
+    /**
+     * Gets the mask which is used to sample triangles.
+     *
+     * @return the mask or null.
+     */
+    private @Nullable EmissionMask getActiveMask() {
+        final EmissionMask mask = emissionMask;
+        return mask == null || mask.isEmpty() || isVertexSource() ? null : mask;
+    }
+
+    /**
+     * Returns true if particles are emitted from vertices of the mesh instead of triangles.
+     *
+     * @return true if particles are emitted from vertices.
+     */
+    public boolean isVertexEmission() {
+        return vertexEmission;
+    }
+
+    /**
+     * Sets true if particles should be emitted from vertices of the mesh instead of triangles. Vertices are selected
+     * randomly or sequentially with the same chance and use normals of the mesh, if the mesh doesn't have normals,
+     * particles are emitted outward from the center of the mesh. Meshes in the {@link Mesh.Mode#Points} mode are
+     * always emitted from vertices.
+     *
+     * @param vertexEmission true if particles should be emitted from vertices.
+     */
+    public void setVertexEmission(final boolean vertexEmission) {
+        this.vertexEmission = vertexEmission;
+
+        final Mesh mesh = this.mesh;
+
+        if (analyticShape == null && mesh != null) {
+            this.triangleCount = isVertexSource() ? mesh.getVertexCount() : mesh.getTriangleCount();
+            this.currentTriangle = 0;
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns true if vertices of the mesh are used as emission points.
+     *
+     * @return true if vertices of the mesh are used as emission points.
+     */
+    private boolean isVertexSource() {
+        final Mesh mesh = this.mesh;
+        return analyticShape == null && mesh != null && (vertexEmission || mesh.getMode() == Mesh.Mode.Points);
+    }
+
+    /**
+     * Returns true if the shape mesh is animated, so the cache of triangles is rebuilt once per frame.
+     *
+     * @return true if the shape mesh is animated.
+     */
+    public boolean isAnimated() {
+        return animated;
+    }
+
+    /**
+     * Sets true if vertices of the shape mesh are changed every frame, for example by software skinning. A snapshot of
+     * deformed triangles is taken once per frame on the first emission and is shared by all particles emitted in this
+     * frame. The table of area weighted triangles isn't rebuilt and uses areas of the initial mesh.
+     *
+     * @param animated true if the shape mesh is animated.
+     * @see #update()
+     */
+    public void setAnimated(final boolean animated) {
+        this.animated = animated;
+        this.snapshotOutdated = animated;
+    }
+
+    /**
+     * Gets the skeleton which is used to skin vertices of the animated mesh.
+     *
+     * @return the skeleton or null.
+     */
+    public @Nullable Skeleton getSkeleton() {
+        return skeleton;
+    }
+
+    /**
+     * Sets the skeleton to skin vertices of the animated mesh on the CPU. It's needed for hardware skinned meshes,
+     * because their buffers of positions are not changed by the skeleton. Vertices are skinned from the bind pose
+     * using the current pose of the skeleton only when the snapshot of triangles is taken. The skeleton isn't saved
+     * with this shape.
+     *
+     * @param skeleton the skeleton or null to use positions of the mesh.
+     */
+    public void setSkeleton(@Nullable final Skeleton skeleton) {
+        this.skeleton = skeleton;
+        this.snapshotOutdated = animated;
+    }
+
+    /**
+     * Notifies this shape about a new frame, the snapshot of triangles of the animated mesh will be taken again on the
+     * next emission.
+     */
+    public void update() {
+        if (animated) snapshotOutdated = true;
     }
 
     /**
@@ -206,6 +594,13 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
      * @return The particle emitter shape mesh
      */
     public @NotNull Mesh getMesh() {
+
+        final AnalyticEmitterShape analyticShape = this.analyticShape;
+
+        if (mesh == null && analyticShape != null) {
+            mesh = analyticShape.createPreviewMesh();
+        }
+
         return requireNonNull(mesh);
     }
 
@@ -224,9 +619,18 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     public void setNext() {
 
         final ParticleEmitterNode emitterNode = getEmitterNode();
-        final Mesh mesh = getMesh();
+        final AnalyticEmitterShape analyticShape = this.analyticShape;
+
+        if (analyticShape != null) {
+            setNext(analyticShape, emitterNode);
+            return;
+        }
+
+        final EmissionMask mask = getActiveMask();
 
-        if (emitterNode.isSequentialEmissionFace()) {
+        if (mask != null) {
+            triangleIndex = mask.sample(RandomUtils.getRandom(), barycentric);
+        } else if (emitterNode.isSequentialEmissionFace()) {
 
             if (emitterNode.isSequentialSkipPattern()) {
                 currentTriangle += 2;
@@ -239,53 +643,734 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
             }
 
             triangleIndex = currentTriangle;
+        } else if (areaWeighted && !isVertexSource()) {
+            triangleIndex = getTriangleTable().sample(RandomUtils.getRandom());
         } else {
             final Random random = RandomUtils.getRandom();
             triangleIndex = random.nextInt(triangleCount);
         }
 
-        mesh.getTriangle(triangleIndex, triangle);
+        setNext(triangleIndex);
+    }
 
-        calculateTransform();
+    /**
+     * Samples the analytic shape as the next particle emission point.
+     *
+     * @param analyticShape the analytic shape.
+     * @param emitterNode   the emitter node.
+     */
+    private void setNext(@NotNull final AnalyticEmitterShape analyticShape,
+                         @NotNull final ParticleEmitterNode emitterNode) {
+
+        analyticShape.sample(RandomUtils.getRandom(), samplePoint, sampleNormal);
+
+        final Quaternion rotation = emitterNode.getLocalRotation();
+        final Vector3f scale = emitterNode.getLocalScale();
 
+        rotation.multLocal(triangleCenter.set(samplePoint).multLocal(scale));
+        rotation.mult(sampleNormal, triangleNormal);
+
+        // all vertices are in the sampled point, so random translation inside the triangle is zero
+        final Triangle triangle = getTriangle();
+        triangle.set1(triangleCenter);
+        triangle.set2(triangleCenter);
+        triangle.set3(triangleCenter);
+        triangle.setIndex(0);
+        triangle.setCenter(triangleCenter);
         triangle.setNormal(triangleNormal);
-        triangle.calculateCenter();
-        triangle.calculateNormal();
+
+        this.triangleIndex = 0;
+    }
+
+    /**
+     * Samples the count of emissions in one batch, it takes into account the sequential emission, the random emission
+     * point and the direction type of the emitter like {@link #setNext()}, {@link #getRandomTranslation()} and {@link
+     * #getNextDirection()}, but doesn't change the current triangle.
+     *
+     * @param count the count of emissions.
+     * @return the batch of sampled emissions, it's reused by the next sampling.
+     */
+    public @NotNull EmissionBatch sample(final int count) {
+
+        final ParticleEmitterNode emitterNode = getEmitterNode();
+        final EmissionBatch batch = emissionBatch;
+        batch.prepare(count);
+
+        if (count < 1) {
+            return batch;
+        }
+
+        final AnalyticEmitterShape analyticShape = this.analyticShape;
+
+        if (analyticShape != null) {
+            sampleShape(analyticShape, emitterNode, batch, count);
+        } else {
+            sampleTriangles(emitterNode, batch, count);
+        }
+
+        final DirectionType directionType = emitterNode.getDirectionType();
+        final float[] normals = batch.getNormals();
+        final float[] directions = batch.getDirections();
+
+        for (int i = 0, offset = 0; i < count; i++, offset += 3) {
+
+            final Vector3f normal = tempNormal.set(normals[offset], normals[offset + 1], normals[offset + 2]);
+            final Vector3f direction = getDirection(directionType, normal).normalizeLocal();
+
+            directions[offset] = direction.x;
+            directions[offset + 1] = direction.y;
+            directions[offset + 2] = direction.z;
+        }
+
+        return batch;
+    }
+
+    /**
+     * Samples emissions of the analytic shape.
+     *
+     * @param analyticShape the analytic shape.
+     * @param emitterNode   the emitter node.
+     * @param batch         the batch.
+     * @param count         the count of emissions.
+     */
+    private void sampleShape(@NotNull final AnalyticEmitterShape analyticShape,
+                             @NotNull final ParticleEmitterNode emitterNode, @NotNull final EmissionBatch batch,
+                             final int count) {
+
+        final Random random = RandomUtils.getRandom();
+        final Quaternion rotation = emitterNode.getLocalRotation();
+        final Vector3f scale = emitterNode.getLocalScale();
+        final Vector3f point = tempPoint;
+        final Vector3f normal = tempNormal;
+
+        final float[] positions = batch.getPositions();
+        final float[] normals = batch.getNormals();
+        final float[] shapePoints = batch.getShapePoints();
+        final float[] shapeNormals = batch.getShapeNormals();
+        final int[] triangleIndexes = batch.getTriangleIndexes();
+
+        // all vertices are in the sampled point, so random offsets are zero
+        batch.clearOffsets();
+
+        for (int i = 0, offset = 0; i < count; i++, offset += 3) {
+
+            analyticShape.sample(random, point, normal);
+
+            shapePoints[offset] = point.x;
+            shapePoints[offset + 1] = point.y;
+            shapePoints[offset + 2] = point.z;
+            shapeNormals[offset] = normal.x;
+            shapeNormals[offset + 1] = normal.y;
+            shapeNormals[offset + 2] = normal.z;
+
+            rotation.multLocal(point.multLocal(scale));
+            rotation.multLocal(normal);
+
+            positions[offset] = point.x;
+            positions[offset + 1] = point.y;
+            positions[offset + 2] = point.z;
+            normals[offset] = normal.x;
+            normals[offset + 1] = normal.y;
+            normals[offset + 2] = normal.z;
+            triangleIndexes[i] = 0;
+        }
+    }
+
+    /**
+     * Samples emissions of triangles of the mesh.
+     *
+     * @param emitterNode the emitter node.
+     * @param batch       the batch.
+     * @param count       the count of emissions.
+     */
+    private void sampleTriangles(@NotNull final ParticleEmitterNode emitterNode, @NotNull final EmissionBatch batch,
+                                 final int count) {
+
+        final float[] vertices = getCachedVertices();
+        final float[] centers = requireNonNull(cachedCenters);
+        final float[] cachedNormals = requireNonNull(this.cachedNormals);
+
+        final float[] positions = batch.getPositions();
+        final float[] offsets = batch.getOffsets();
+        final float[] normals = batch.getNormals();
+        final int[] triangleIndexes = batch.getTriangleIndexes();
+
+        final Random random = RandomUtils.getRandom();
+        final boolean sequential = emitterNode.isSequentialEmissionFace();
+        final int step = emitterNode.isSequentialSkipPattern() ? 2 : 1;
+        final boolean vertexSource = isVertexSource();
+        final boolean randomPoint = emitterNode.isRandomEmissionPoint() && !vertexSource;
+        final AliasTable table = !sequential && areaWeighted && !vertexSource ? getTriangleTable() : null;
+        final EmissionMask mask = getActiveMask();
+        final float[] barycentric = this.barycentric;
+
+        for (int i = 0, offset = 0; i < count; i++, offset += 3) {
+
+            final int index;
+
+            if (mask != null) {
+
+                index = mask.sample(random, barycentric);
+
+                final int triangleOffset = index * 3;
+                final int p1 = index * 9;
+                final int p2 = p1 + 3;
+                final int p3 = p1 + 6;
+
+                final float w1 = barycentric[0];
+                final float w2 = barycentric[1];
+                final float w3 = barycentric[2];
+
+                final float x = w1 * vertices[p1] + w2 * vertices[p2] + w3 * vertices[p3];
+                final float y = w1 * vertices[p1 + 1] + w2 * vertices[p2 + 1] + w3 * vertices[p3 + 1];
+                final float z = w1 * vertices[p1 + 2] + w2 * vertices[p2 + 2] + w3 * vertices[p3 + 2];
+
+                offsets[offset] = x - centers[triangleOffset];
+                offsets[offset + 1] = y - centers[triangleOffset + 1];
+                offsets[offset + 2] = z - centers[triangleOffset + 2];
+                positions[offset] = x;
+                positions[offset + 1] = y;
+                positions[offset + 2] = z;
+                normals[offset] = cachedNormals[triangleOffset];
+                normals[offset + 1] = cachedNormals[triangleOffset + 1];
+                normals[offset + 2] = cachedNormals[triangleOffset + 2];
+                triangleIndexes[i] = index;
+                continue;
+
+            } else if (sequential) {
+
+                currentTriangle += step;
+
+                if (currentTriangle >= triangleCount) {
+                    currentTriangle = 0;
+                }
+
+                index = currentTriangle;
+
+            } else if (table != null) {
+                index = table.sample(random);
+            } else {
+                index = random.nextInt(triangleCount);
+            }
+
+            final int triangleOffset = index * 3;
+
+            float x = centers[triangleOffset];
+            float y = centers[triangleOffset + 1];
+            float z = centers[triangleOffset + 2];
+
+            if (randomPoint) {
+
+                // the same distribution as in getRandomTranslation()
+                final int first = nextRandomInt(random, 0, 2);
+                final int vertexOffset = index * 9;
+                final int p1 = vertexOffset + first * 3;
+                final int p2 = vertexOffset + ((first + 1) % 3) * 3;
+                final int p3 = vertexOffset + ((first + 2) % 3) * 3;
+
+                final float a = random.nextFloat();
+                final float b = random.nextFloat();
+                final float c = random.nextFloat();
+
+                // interpolate between (p1, p2) and (p1, p3), and then between these points
+                final float w1 = (1F - c) * a + c * b;
+                final float w2 = (1F - c) * (1F - a);
+                final float w3 = c * (1F - b);
+
+                final float offsetX = w1 * vertices[p1] + w2 * vertices[p2] + w3 * vertices[p3] - x;
+                final float offsetY = w1 * vertices[p1 + 1] + w2 * vertices[p2 + 1] + w3 * vertices[p3 + 1] - y;
+                final float offsetZ = w1 * vertices[p1 + 2] + w2 * vertices[p2 + 2] + w3 * vertices[p3 + 2] - z;
+
+                offsets[offset] = offsetX;
+                offsets[offset + 1] = offsetY;
+                offsets[offset + 2] = offsetZ;
+
+                x += offsetX;
+                y += offsetY;
+                z += offsetZ;
+
+            } else {
+                offsets[offset] = 0F;
+                offsets[offset + 1] = 0F;
+                offsets[offset + 2] = 0F;
+            }
+
+            positions[offset] = x;
+            positions[offset + 1] = y;
+            positions[offset + 2] = z;
+            normals[offset] = cachedNormals[triangleOffset];
+            normals[offset + 1] = cachedNormals[triangleOffset + 1];
+            normals[offset + 2] = cachedNormals[triangleOffset + 2];
+            triangleIndexes[i] = index;
+        }
+    }
+
+    /**
+     * Gets the point of the shape in the emitter space which the particle was emitted from.
+     *
+     * @param particleData the particle.
+     * @param store        the vector to store the point.
+     * @return the emission point.
+     */
+    public @NotNull Vector3f getEmissionPoint(@NotNull final ParticleData particleData,
+                                              @NotNull final Vector3f store) {
+
+        if (analyticShape == null) {
+            return getTriangleCenter(particleData.triangleIndex, store);
+        }
+
+        final ParticleEmitterNode emitterNode = getEmitterNode();
+        store.set(particleData.emissionPoint).multLocal(emitterNode.getLocalScale());
+
+        return emitterNode.getLocalRotation().multLocal(store);
     }
 
     /**
-     * Set the current particle emission face to the specified faces index
+     * Gets the normal of the shape in the emitter space at the point which the particle was emitted from.
+     *
+     * @param particleData the particle.
+     * @param store        the vector to store the normal.
+     * @return the emission normal.
+     */
+    public @NotNull Vector3f getEmissionNormal(@NotNull final ParticleData particleData,
+                                               @NotNull final Vector3f store) {
+
+        if (analyticShape == null) {
+            return getTriangleNormal(particleData.triangleIndex, store);
+        }
+
+        return getEmitterNode().getLocalRotation().mult(particleData.emissionNormal, store);
+    }
+
+    /**
+     * Gets the center of the shape before applying the rotation and the scale of the emitter.
+     *
+     * @param store the vector to store the center.
+     * @return the center of the shape.
+     */
+    public @NotNull Vector3f getShapeCenter(@NotNull final Vector3f store) {
+
+        final AnalyticEmitterShape analyticShape = this.analyticShape;
+
+        if (analyticShape != null) {
+            return analyticShape.getCenter(store);
+        }
+
+        return store.set(getMesh().getBound().getCenter());
+    }
+
+    /**
+     * Set the current particle emission face to the specified faces index, it does nothing for analytic shapes.
      *
      * @param triangleIndex The index of the face to set as the particle emission point
      */
     public void setNext(final int triangleIndex) {
 
-        final Mesh mesh = getMesh();
-        mesh.getTriangle(triangleIndex, triangle);
+        if (analyticShape != null) {
+            return;
+        }
 
-        calculateTransform();
+        final float[] vertices = getCachedVertices();
+        final float[] centers = requireNonNull(cachedCenters);
+        final float[] normals = requireNonNull(cachedNormals);
 
+        final int offset = triangleIndex * 3;
         final Triangle triangle = getTriangle();
-        triangle.setNormal(triangleNormal);
-        triangle.calculateCenter();
-        triangle.calculateNormal();
+
+        if (isVertexSource()) {
+            // all vertices are in the emission point, so random translation inside the triangle is zero
+            triangle.set(0, centers[offset], centers[offset + 1], centers[offset + 2]);
+            triangle.set(1, centers[offset], centers[offset + 1], centers[offset + 2]);
+            triangle.set(2, centers[offset], centers[offset + 1], centers[offset + 2]);
+        } else {
+            final int vertexOffset = triangleIndex * 9;
+            triangle.set(0, vertices[vertexOffset], vertices[vertexOffset + 1], vertices[vertexOffset + 2]);
+            triangle.set(1, vertices[vertexOffset + 3], vertices[vertexOffset + 4], vertices[vertexOffset + 5]);
+            triangle.set(2, vertices[vertexOffset + 6], vertices[vertexOffset + 7], vertices[vertexOffset + 8]);
+        }
+
+        triangle.setIndex(triangleIndex);
+        triangle.setCenter(triangleCenter.set(centers[offset], centers[offset + 1], centers[offset + 2]));
+        triangle.setNormal(triangleNormal.set(normals[offset], normals[offset + 1], normals[offset + 2]));
+
+        this.triangleIndex = triangleIndex;
+    }
+
+    /**
+     * Gets the center of the triangle in the emitter space without changing the current triangle, for analytic shapes
+     * it's the last sampled point.
+     *
+     * @param triangleIndex the index of the triangle.
+     * @param store         the vector to store the center.
+     * @return the center of the triangle.
+     */
+    public @NotNull Vector3f getTriangleCenter(final int triangleIndex, @NotNull final Vector3f store) {
+        if (analyticShape != null) return store.set(triangleCenter);
+        getCachedVertices();
+        final float[] centers = requireNonNull(cachedCenters);
+        final int offset = triangleIndex * 3;
+        return store.set(centers[offset], centers[offset + 1], centers[offset + 2]);
     }
 
-    private void calculateTransform() {
+    /**
+     * Gets the normal of the triangle in the emitter space without changing the current triangle, for analytic shapes
+     * it's the last sampled normal.
+     *
+     * @param triangleIndex the index of the triangle.
+     * @param store         the vector to store the normal.
+     * @return the normal of the triangle.
+     */
+    public @NotNull Vector3f getTriangleNormal(final int triangleIndex, @NotNull final Vector3f store) {
+        if (analyticShape != null) return store.set(triangleNormal);
+        getCachedVertices();
+        final float[] normals = requireNonNull(cachedNormals);
+        final int offset = triangleIndex * 3;
+        return store.set(normals[offset], normals[offset + 1], normals[offset + 2]);
+    }
+
+    /**
+     * Gets the cached vertices of triangles in the emitter space, the cache is rebuilt if the rotation or the scale of
+     * the emitter was changed.
+     *
+     * @return the cached vertices.
+     */
+    private @NotNull float[] getCachedVertices() {
 
         final ParticleEmitterNode emitterNode = getEmitterNode();
+        final Quaternion rotation = emitterNode.getLocalRotation();
+        final Vector3f scale = emitterNode.getLocalScale();
 
-        node1.setLocalTranslation(triangle.get1());
-        node2.setLocalTranslation(triangle.get2());
-        node3.setLocalTranslation(triangle.get3());
+        final float[] vertices = cachedVertices;
 
-        pointNode.setLocalRotation(emitterNode.getLocalRotation());
-        pointNode.setLocalScale(emitterNode.getLocalScale());
+        if (vertices != null && !snapshotOutdated && cachedRotation.equals(rotation) && cachedScale.equals(scale)) {
+            return vertices;
+        }
 
-        final Triangle triangle = getTriangle();
-        triangle.set1(node1.getWorldTranslation());
-        triangle.set2(node2.getWorldTranslation());
-        triangle.set3(node3.getWorldTranslation());
+        if (isVertexSource()) {
+            return buildVertexCache(rotation, scale);
+        }
+
+        return buildCache(rotation, scale);
+    }
+
+    /**
+     * Builds the cache of positions and normals of all vertices of the mesh transformed by the rotation and the scale
+     * of the emitter. The cached vertices are the same as the cached centers.
+     *
+     * @param rotation the rotation of the emitter.
+     * @param scale    the scale of the emitter.
+     * @return the cached vertices.
+     */
+    private @NotNull float[] buildVertexCache(@NotNull final Quaternion rotation, @NotNull final Vector3f scale) {
+
+        final Mesh mesh = getMesh();
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        final FloatBuffer meshNormals = mesh.getFloatBuffer(VertexBuffer.Type.Normal);
+        final float[] skinned = animated && skeleton != null ? skin(mesh, skeleton) : null;
+        final int vertexCount = mesh.getVertexCount();
+
+        float[] centers = cachedCenters;
+        float[] normals = cachedNormals;
+
+        if (centers == null || centers.length != vertexCount * 3 || cachedVertices != centers) {
+            centers = new float[vertexCount * 3];
+            normals = new float[vertexCount * 3];
+        }
+
+        final Vector3f point = point1;
+        final Vector3f normal = point2;
+        final Vector3f center = point3.set(mesh.getBound().getCenter()).multLocal(scale);
+
+        rotation.multLocal(center);
+
+        for (int i = 0; i < vertexCount; i++) {
+
+            if (skinned != null) {
+                populateFromArray(point, skinned, i);
+            } else {
+                populateFromBuffer(point, positions, i);
+            }
+
+            rotation.multLocal(point.multLocal(scale));
+
+            if (meshNormals != null) {
+                populateFromBuffer(normal, meshNormals, i);
+                rotation.multLocal(normal.divideLocal(scale).normalizeLocal());
+            } else {
+                normal.set(point).subtractLocal(center);
+            }
+
+            if (normal.lengthSquared() == 0F) {
+                rotation.mult(Vector3f.UNIT_Y, normal);
+            }
+
+            normal.normalizeLocal();
+
+            final int offset = i * 3;
+
+            centers[offset] = point.x;
+            centers[offset + 1] = point.y;
+            centers[offset + 2] = point.z;
+            normals[offset] = normal.x;
+            normals[offset + 1] = normal.y;
+            normals[offset + 2] = normal.z;
+        }
+
+        cachedRotation.set(rotation);
+        cachedScale.set(scale);
+        cachedVertices = centers;
+        cachedCenters = centers;
+        cachedNormals = normals;
+        snapshotOutdated = false;
+
+        return centers;
+    }
+
+    /**
+     * Builds the cache of vertices, centers and normals of all triangles of the mesh transformed by the rotation and
+     * the scale of the emitter.
+     *
+     * @param rotation the rotation of the emitter.
+     * @param scale    the scale of the emitter.
+     * @return the cached vertices.
+     */
+    private @NotNull float[] buildCache(@NotNull final Quaternion rotation, @NotNull final Vector3f scale) {
+
+        final Mesh mesh = getMesh();
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        final float[] skinned = animated && skeleton != null ? skin(mesh, skeleton) : null;
+        final IndexBuffer indices = getIndices();
+        final int triangleCount = Math.min(mesh.getTriangleCount(), indices.size() / 3);
+
+        float[] vertices = cachedVertices;
+        float[] centers = cachedCenters;
+        float[] normals = cachedNormals;
+
+        if (vertices == null || vertices.length != triangleCount * 9) {
+            vertices = new float[triangleCount * 9];
+            centers = new float[triangleCount * 3];
+            normals = new float[triangleCount * 3];
+        }
+
+        final Vector3f point1 = this.point1;
+        final Vector3f point2 = this.point2;
+        final Vector3f point3 = this.point3;
+        final Vector3f normal = triangleNormal;
+
+        for (int i = 0; i < triangleCount; i++) {
+
+            final int vertIndex = i * 3;
+
+            if (skinned != null) {
+                populateFromArray(point1, skinned, indices.get(vertIndex));
+                populateFromArray(point2, skinned, indices.get(vertIndex + 1));
+                populateFromArray(point3, skinned, indices.get(vertIndex + 2));
+            } else {
+                populateFromBuffer(point1, positions, indices.get(vertIndex));
+                populateFromBuffer(point2, positions, indices.get(vertIndex + 1));
+                populateFromBuffer(point3, positions, indices.get(vertIndex + 2));
+            }
+
+            rotation.multLocal(point1.multLocal(scale));
+            rotation.multLocal(point2.multLocal(scale));
+            rotation.multLocal(point3.multLocal(scale));
+
+            final int vertexOffset = i * 9;
+
+            vertices[vertexOffset] = point1.x;
+            vertices[vertexOffset + 1] = point1.y;
+            vertices[vertexOffset + 2] = point1.z;
+            vertices[vertexOffset + 3] = point2.x;
+            vertices[vertexOffset + 4] = point2.y;
+            vertices[vertexOffset + 5] = point2.z;
+            vertices[vertexOffset + 6] = point3.x;
+            vertices[vertexOffset + 7] = point3.y;
+            vertices[vertexOffset + 8] = point3.z;
+
+            centers[vertIndex] = (point1.x + point2.x + point3.x) / 3F;
+            centers[vertIndex + 1] = (point1.y + point2.y + point3.y) / 3F;
+            centers[vertIndex + 2] = (point1.z + point2.z + point3.z) / 3F;
+
+            point2.subtractLocal(point1);
+            point3.subtractLocal(point1);
+            point2.cross(point3, normal).normalizeLocal();
+
+            normals[vertIndex] = normal.x;
+            normals[vertIndex + 1] = normal.y;
+            normals[vertIndex + 2] = normal.z;
+        }
+
+        cachedRotation.set(rotation);
+        cachedScale.set(scale);
+        cachedVertices = vertices;
+        cachedCenters = centers;
+        cachedNormals = normals;
+        snapshotOutdated = false;
+
+        return vertices;
+    }
+
+    /**
+     * Skins positions of all vertices of the mesh by the current pose of the skeleton.
+     *
+     * @param mesh     the mesh.
+     * @param skeleton the skeleton.
+     * @return the skinned positions.
+     */
+    private @NotNull float[] skin(@NotNull final Mesh mesh, @NotNull final Skeleton skeleton) {
+
+        FloatBuffer bindPositions = mesh.getFloatBuffer(VertexBuffer.Type.BindPosePosition);
+
+        if (bindPositions == null) {
+            bindPositions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        }
+
+        final VertexBuffer boneIndexBuffer = mesh.getBuffer(VertexBuffer.Type.BoneIndex);
+        final FloatBuffer boneWeights = mesh.getFloatBuffer(VertexBuffer.Type.BoneWeight);
+        final int vertexCount = mesh.getVertexCount();
+
+        float[] result = skinnedPositions;
+
+        if (result == null || result.length != vertexCount * 3) {
+            result = new float[vertexCount * 3];
+            skinnedPositions = result;
+        }
+
+        if (boneIndexBuffer == null || boneWeights == null) {
+
+            for (int i = 0, length = vertexCount * 3; i < length; i++) {
+                result[i] = bindPositions.get(i);
+            }
+
+            return result;
+        }
+
+        final Buffer boneIndexes = boneIndexBuffer.getData();
+        final Matrix4f[] matrices = skeleton.computeSkinningMatrices();
+        final int maxWeights = mesh.getMaxNumWeights() > 0 ? mesh.getMaxNumWeights() : 4;
+
+        final Vector3f bindPosition = point1;
+        final Vector3f weighted = point2;
+        final Vector3f skinnedPosition = point3;
+
+        for (int i = 0; i < vertexCount; i++) {
+
+            populateFromBuffer(bindPosition, bindPositions, i);
+            skinnedPosition.set(0F, 0F, 0F);
+
+            for (int j = 0; j < maxWeights; j++) {
+
+                final int index = i * 4 + j;
+                final float weight = boneWeights.get(index);
+
+                if (weight == 0F) {
+                    continue;
+                }
+
+                final Matrix4f matrix = matrices[getBoneIndex(boneIndexes, index)];
+                matrix.mult(bindPosition, weighted);
+                skinnedPosition.addLocal(weighted.multLocal(weight));
+            }
+
+            final int offset = i * 3;
+
+            result[offset] = skinnedPosition.x;
+            result[offset + 1] = skinnedPosition.y;
+            result[offset + 2] = skinnedPosition.z;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the index of a bone from the buffer of bone indexes.
+     *
+     * @param boneIndexes the buffer of bone indexes.
+     * @param index       the index in the buffer.
+     * @return the index of the bone.
+     */
+    private static int getBoneIndex(@NotNull final Buffer boneIndexes, final int index) {
+        if (boneIndexes instanceof ByteBuffer) {
+            return ((ByteBuffer) boneIndexes).get(index) & 0xFF;
+        } else if (boneIndexes instanceof ShortBuffer) {
+            return ((ShortBuffer) boneIndexes).get(index) & 0xFFFF;
+        } else if (boneIndexes instanceof IntBuffer) {
+            return ((IntBuffer) boneIndexes).get(index);
+        }
+        throw new IllegalArgumentException("unsupported buffer of bone indexes " + boneIndexes);
+    }
+
+    /**
+     * Populates the vector from the array of positions.
+     *
+     * @param store     the vector to store the position.
+     * @param positions the array of positions.
+     * @param index     the index of the vertex.
+     */
+    private static void populateFromArray(@NotNull final Vector3f store, @NotNull final float[] positions,
+                                          final int index) {
+        final int offset = index * 3;
+        store.set(positions[offset], positions[offset + 1], positions[offset + 2]);
+    }
+
+    /**
+     * Gets the table of triangles weighted by their area, the table is built if it wasn't built or loaded yet.
+     *
+     * @return the table of triangles.
+     */
+    private @NotNull AliasTable getTriangleTable() {
+
+        AliasTable table = triangleTable;
+
+        if (table == null || table.size() != triangleCount) {
+            table = new AliasTable(calculateAreas());
+            triangleTable = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Calculates areas of all triangles of the mesh.
+     *
+     * @return the areas of triangles.
+     */
+    private @NotNull float[] calculateAreas() {
+
+        final Mesh mesh = getMesh();
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        final IndexBuffer indices = getIndices();
+        final float[] areas = new float[triangleCount];
+
+        for (int i = 0, length = Math.min(triangleCount, indices.size() / 3); i < length; i++) {
+
+            final int vertIndex = i * 3;
+
+            populateFromBuffer(point1, positions, indices.get(vertIndex));
+            populateFromBuffer(point2, positions, indices.get(vertIndex + 1));
+            populateFromBuffer(point3, positions, indices.get(vertIndex + 2));
+
+            point2.subtractLocal(point1);
+            point3.subtractLocal(point1);
+
+            areas[i] = point2.cross(point3, tempDirection).length() / 2F;
+        }
+
+        return areas;
+    }
+
+    /**
+     * Get the cached list of indices of the mesh.
+     *
+     * @return the list of indices.
+     */
+    private @NotNull IndexBuffer getIndices() {
+
+        if (indices == null) {
+            indices = getMesh().getIndicesAsList();
+        }
+
+        return indices;
     }
 
     /**
@@ -368,27 +1453,37 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
      * @return A Vector3f containing the normal of the selected emission point
      */
     public @NotNull Vector3f getNextDirection() {
+        return getDirection(getEmitterNode().getDirectionType(), triangle.getNormal());
+    }
 
-        final ParticleEmitterNode emitterNode = getEmitterNode();
+    /**
+     * Gets the emission direction of the direction type.
+     *
+     * @param directionType the direction type.
+     * @param normal        the normal of the emission point.
+     * @return the emission direction.
+     */
+    private @NotNull Vector3f getDirection(@NotNull final DirectionType directionType,
+                                           @NotNull final Vector3f normal) {
 
-        switch (emitterNode.getDirectionType()) {
+        switch (directionType) {
             case NORMAL: {
-                return getDirectionNormal();
+                return normal;
             }
             case NORMAL_NEGATE: {
-                return getDirectionNormal().negateLocal();
+                return normal.negateLocal();
             }
             case RANDOM: {
                 return getDirectionRandom();
             }
             case RANDOM_TANGENT: {
-                return getDirectionRandomTangent();
+                return getDirectionRandomTangent(normal);
             }
             case RANDOM_NORMAL_ALIGNED: {
 
                 final Vector3f directionRandom = getDirectionRandom();
 
-                if (directionRandom.dot(getDirectionNormal()) < 0) {
+                if (directionRandom.dot(normal) < 0) {
                     directionRandom.negateLocal();
                 }
 
@@ -398,7 +1493,7 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
 
                 final Vector3f directionRandom = getDirectionRandom();
 
-                if (directionRandom.dot(getDirectionNormal()) > 0) {
+                if (directionRandom.dot(normal) > 0) {
                     directionRandom.negateLocal();
                 }
 
@@ -410,13 +1505,6 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         }
     }
 
-    /**
-     * @return the direction normal.
-     */
-    private @NotNull Vector3f getDirectionNormal() {
-        return triangle.getNormal();
-    }
-
     /**
      * @return the random direction.
      */
@@ -438,15 +1526,14 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     /**
      * @return the direction random target.
      */
-    private @NotNull Vector3f getDirectionRandomTangent() {
+    private @NotNull Vector3f getDirectionRandomTangent(@NotNull final Vector3f normal) {
 
         final Random random = RandomUtils.getRandom();
-        final Vector3f normal = getNormal();
 
         tempQuaternion2.lookAt(normal, Vector3f.UNIT_Y);
         tempQuaternion2.mult(Vector3f.UNIT_Y, tempDirection2);
 
-        tempQuaternion.fromAngleAxis(random.nextFloat() * 360 * FastMath.DEG_TO_RAD, normal);
+        tempQuaternion.fromAngleNormalAxis(random.nextFloat() * 360 * FastMath.DEG_TO_RAD, normal);
         tempQuaternion.mult(tempDirection2, tempDirection);
 
         return tempDirection;
@@ -469,6 +1556,10 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
     @Override
     public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
         mesh = cloner.clone(mesh);
+        analyticShape = cloner.clone(analyticShape);
+        samplePoint = cloner.clone(samplePoint);
+        sampleNormal = cloner.clone(sampleNormal);
+        indices = null;
         emitterNode = cloner.clone(emitterNode);
         triangle = cloner.clone(triangle);
         point1 = cloner.clone(point1);
@@ -477,20 +1568,35 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         interpolationA = cloner.clone(interpolationA);
         interpolationB = cloner.clone(interpolationB);
         resultInterpolation = cloner.clone(resultInterpolation);
-        pointNode = cloner.clone(pointNode);
-        node1 = cloner.clone(node1);
-        node2 = cloner.clone(node2);
-        node3 = cloner.clone(node3);
+        cachedRotation = cloner.clone(cachedRotation);
+        cachedScale = cloner.clone(cachedScale);
+        // copying of the cache is cheaper than rebuilding it
+        final float[] vertices = cachedVertices;
+        final float[] centers = cachedCenters;
+        final float[] normals = cachedNormals;
+        cachedCenters = centers == null ? null : centers.clone();
+        cachedNormals = normals == null ? null : normals.clone();
+        cachedVertices = vertices == null ? null : vertices == centers ? cachedCenters : vertices.clone();
+        triangleCenter = cloner.clone(triangleCenter);
+        triangleNormal = cloner.clone(triangleNormal);
         tempQuaternion = cloner.clone(tempQuaternion);
         tempQuaternion2 = cloner.clone(tempQuaternion2);
         tempDirection = cloner.clone(tempDirection);
         tempDirection2 = cloner.clone(tempDirection2);
+        tempPoint = cloner.clone(tempPoint);
+        tempNormal = cloner.clone(tempNormal);
+        emissionBatch = new EmissionBatch();
+        skeleton = cloner.clone(skeleton);
+        skinnedPositions = null;
+        barycentric = new float[3];
+        snapshotOutdated = animated;
     }
 
     @Override
     public void write(@NotNull final JmeExporter exporter) throws IOException {
         final OutputCapsule capsule = exporter.getCapsule(this);
-        capsule.write(mesh, "mesh", null);
+        capsule.write(analyticShape == null ? mesh : null, "mesh", null);
+        capsule.write(analyticShape, "analyticShape", null);
         capsule.write(triangle, "triangle", null);
         capsule.write(point1, "point1", null);
         capsule.write(point2, "point2", null);
@@ -498,16 +1604,55 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         capsule.write(interpolationA, "interpolationA", null);
         capsule.write(interpolationB, "interpolationB", null);
         capsule.write(resultInterpolation, "resultInterpolation", null);
-        capsule.write(pointNode, "pointNode", null);
         capsule.write(tempDirection, "tempDirection", null);
         capsule.write(triangleCount, "triangleCount", 1);
         capsule.write(currentTriangle, "currentTriangle", 0);
+        capsule.write(areaWeighted, "areaWeighted", false);
+        capsule.write(vertexEmission, "vertexEmission", false);
+        capsule.write(emissionMask, "emissionMask", null);
+        capsule.write(animated, "animated", false);
+        capsule.write(persistPreprocessedData, "persistPreprocessedData", true);
+
+        final Mesh mesh = this.mesh;
+
+        if (analyticShape != null || mesh == null) {
+            return;
+        }
+
+        final boolean persist = persistPreprocessedData;
+
+        if (!persist && emissionMask == null) {
+            return;
+        }
+
+        capsule.write(PREPROCESSED_DATA_VERSION, "preprocessedDataVersion", 0);
+        capsule.write(calculateMeshHash(mesh), "meshHash", 0L);
+
+        if (!persist) {
+            return;
+        }
+
+        capsule.write(areaWeighted && !isVertexSource() ? getTriangleTable() : null, "triangleTable", null);
+
+        if (animated || emitterNode == null) {
+            return;
+        }
+
+        final float[] vertices = getCachedVertices();
+        final float[] centers = cachedCenters;
+
+        capsule.write(vertices == centers ? null : vertices, "cachedVertices", null);
+        capsule.write(centers, "cachedCenters", null);
+        capsule.write(cachedNormals, "cachedNormals", null);
+        capsule.write(cachedRotation, "cachedRotation", null);
+        capsule.write(cachedScale, "cachedScale", null);
     }
 
     @Override
     public void read(@NotNull final JmeImporter importer) throws IOException {
         final InputCapsule capsule = importer.getCapsule(this);
         mesh = (Mesh) capsule.readSavable("mesh", null);
+        analyticShape = (AnalyticEmitterShape) capsule.readSavable("analyticShape", null);
         triangle = (Triangle) capsule.readSavable("triangle", capsule.readSavable("triStore", null));
         point1 = (Vector3f) capsule.readSavable("point1", capsule.readSavable("p1", null));
         point2 = (Vector3f) capsule.readSavable("point2", capsule.readSavable("p2", null));
@@ -515,9 +1660,40 @@ public class EmitterMesh implements Cloneable, JmeCloneable, Savable {
         interpolationA = (Vector3f) capsule.readSavable("interpolationA", capsule.readSavable("a", null));
         interpolationB = (Vector3f) capsule.readSavable("interpolationB", capsule.readSavable("b", null));
         resultInterpolation = (Vector3f) capsule.readSavable("resultInterpolation", capsule.readSavable("result", null));
-        pointNode = (Node) capsule.readSavable("pointNode", capsule.readSavable("p", null));
         tempDirection = (Vector3f) capsule.readSavable("tempDirection", capsule.readSavable("tempDir", null));
         triangleCount = capsule.readInt("triangleCount", capsule.readInt("triCount", 1));
         currentTriangle = capsule.readInt("currentTriangle", capsule.readInt("currentTri", 1));
+        areaWeighted = capsule.readBoolean("areaWeighted", false);
+        vertexEmission = capsule.readBoolean("vertexEmission", false);
+        emissionMask = (EmissionMask) capsule.readSavable("emissionMask", null);
+        animated = capsule.readBoolean("animated", false);
+        snapshotOutdated = animated;
+        persistPreprocessedData = capsule.readBoolean("persistPreprocessedData", true);
+        triangleTable = (AliasTable) capsule.readSavable("triangleTable", null);
+
+        final Mesh mesh = this.mesh;
+        final int version = capsule.readInt("preprocessedDataVersion", 0);
+
+        // the preprocessed data is dropped if it was built for other mesh or by other version
+        if (mesh == null || version != PREPROCESSED_DATA_VERSION
+                || capsule.readLong("meshHash", 0L) != calculateMeshHash(mesh)) {
+            triangleTable = null;
+            emissionMask = null;
+            return;
+        }
+
+        final float[] centers = capsule.readFloatArray("cachedCenters", null);
+        final float[] vertices = capsule.readFloatArray("cachedVertices", null);
+        final float[] normals = capsule.readFloatArray("cachedNormals", null);
+
+        if (centers == null || normals == null) {
+            return;
+        }
+
+        cachedCenters = centers;
+        cachedVertices = vertices == null ? centers : vertices;
+        cachedNormals = normals;
+        cachedRotation = (Quaternion) capsule.readSavable("cachedRotation", new Quaternion());
+        cachedScale = (Vector3f) capsule.readSavable("cachedScale", new Vector3f());
     }
 }
@@ -6,15 +6,18 @@ import static tonegod.emitter.material.ParticlesMaterial.PROP_TEXTURE;
 import com.jme3.animation.AnimChannel;
 import com.jme3.animation.AnimControl;
 import com.jme3.animation.LoopMode;
+import com.jme3.animation.Skeleton;
 import com.jme3.asset.AssetManager;
 import com.jme3.asset.MaterialKey;
 import com.jme3.export.*;
+import com.jme3.material.MatParam;
 import com.jme3.material.MatParamTexture;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.material.RenderState.BlendMode;
 import com.jme3.material.RenderState.FaceCullMode;
 import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
 import com.jme3.math.Matrix3f;
 import com.jme3.math.Vector2f;
 import com.jme3.renderer.Camera;
@@ -24,6 +27,8 @@ import com.jme3.renderer.queue.RenderQueue.Bucket;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
+import com.jme3.scene.Spatial.CullHint;
+import com.jme3.scene.VertexBuffer;
 import com.jme3.texture.Image;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture.MagFilter;
@@ -34,20 +39,35 @@ import com.jme3.util.clone.JmeCloneable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import tonegod.emitter.EmitterMesh.DirectionType;
+import tonegod.emitter.budget.AdaptiveQualityController;
+import tonegod.emitter.budget.ParticleBudget;
 import tonegod.emitter.geometry.EmitterShapeGeometry;
 import tonegod.emitter.geometry.ParticleGeometry;
 import tonegod.emitter.influencers.ParticleInfluencer;
 import tonegod.emitter.interpolation.Interpolation;
 import tonegod.emitter.material.ParticlesMaterial;
+import tonegod.emitter.metrics.EmitterMetrics;
+import tonegod.emitter.metrics.InfluencerProfiler;
+import tonegod.emitter.metrics.ParticlePhase;
+import tonegod.emitter.metrics.ParticleTracer;
+import tonegod.emitter.metrics.ParticleTracing;
 import tonegod.emitter.node.ParticleNode;
 import tonegod.emitter.node.TestParticleEmitterNode;
 import tonegod.emitter.particle.*;
+import tonegod.emitter.shapes.AnalyticEmitterShape;
 import tonegod.emitter.shapes.TriangleEmitterShape;
 
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The implementation of a {@link Node} to emit particles.
+ * <p>
+ * Updating, emitting and filling the particle mesh don't allocate new objects in the steady state (when all particles
+ * and their influencer data are already created), except of collision checks of the PhysicsInfluencer.
  *
  * @author t0neg0d, JavaSaBr
  */
@@ -60,6 +80,12 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     @NotNull
     private static final ParticleData[] EMPTY_PARTICLE_DATA = new ParticleData[0];
 
+    /**
+     * The counter of phases of skipped updates of emitters.
+     */
+    @NotNull
+    private static final AtomicInteger UPDATE_PHASES = new AtomicInteger();
+
     /**
      * The Influencers.
      */
@@ -208,6 +234,23 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     @NotNull
     protected ParticleGeometry particleGeometry;
 
+    /**
+     * The geometries of chunks of particles, the first chunk is the particles geometry.
+     */
+    @NotNull
+    protected ParticleGeometry[] chunkGeometries;
+
+    /**
+     * The particles of chunks.
+     */
+    @NotNull
+    protected ParticleData[][] chunkParticles;
+
+    /**
+     * The max count of particles in a chunk or 0 to keep all particles in one geometry.
+     */
+    protected int particleChunkSize;
+
     /**
      * The particles test node.
      */
@@ -239,6 +282,12 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     @NotNull
     protected ParticleData[] particles;
 
+    /**
+     * The layout of additional data slots of particles.
+     */
+    @NotNull
+    protected ParticleDataLayout dataLayout;
+
     /**
      * The class type of the using {@link ParticleDataMesh}.
      */
@@ -313,6 +362,12 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     @Nullable
     protected Material testMat;
 
+    /**
+     * The copy of the material which was made by this emitter to change shader defines of the mesh type.
+     */
+    @Nullable
+    private Material definesMaterial;
+
     /**
      * The flag of applying lighting transform.
      */
@@ -422,6 +477,61 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
      */
     protected LoopMode particlesAnimLoopMode;
 
+    /**
+     * The metrics of this emitter or null if metrics are disabled.
+     */
+    @Nullable
+    protected EmitterMetrics metrics;
+
+    /**
+     * The profiler of influencers or null if profiling is disabled.
+     */
+    @Nullable
+    protected InfluencerProfiler influencerProfiler;
+
+    /** ------------BUDGET------------ **/
+
+    /**
+     * The priority of this emitter in the {@link ParticleBudget}.
+     */
+    protected int priority;
+
+    /**
+     * The scale of emission which is set by the {@link ParticleBudget}.
+     */
+    protected float emissionScale;
+
+    /**
+     * The fractional part of scaled emission which is left from previous emissions.
+     */
+    protected float emissionRemainder;
+
+    /**
+     * The max count of active particles which is set by the {@link ParticleBudget}.
+     */
+    protected int particleLimit;
+
+    /**
+     * The count of frames which were skipped by the {@link AdaptiveQualityController}.
+     */
+    protected int skippedFrames;
+
+    /**
+     * The time of frames which were skipped by the {@link AdaptiveQualityController}.
+     */
+    protected float skippedTime;
+
+    /**
+     * The count of logical frames of this emitter.
+     */
+    protected long updateFrame;
+
+    /**
+     * The phase of skipped updates, different phases spread updates of emitters with the same update interval
+     * across frames.
+     */
+    protected int updatePhase;
+
     /**
      * The Test emitter.
      */
@@ -441,6 +551,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     public ParticleEmitterNode() {
         setName("Emitter Node");
         this.particles = EMPTY_PARTICLE_DATA;
+        this.dataLayout = new ParticleDataLayout();
         this.textureParamName = "Texture";
         this.inverseRotation = Matrix3f.IDENTITY.clone();
         this.targetInterval = 0.00015f;
@@ -455,6 +566,8 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         this.particleGeometry = new ParticleGeometry("Particle Geometry");
         this.particleNode = new ParticleNode("Particle Node");
         this.particleNode.attachChild(particleGeometry);
+        this.chunkGeometries = new ParticleGeometry[]{particleGeometry};
+        this.chunkParticles = new ParticleData[][]{particles};
         this.initParticleNode(particleNode);
         this.forceMax = 0.5f;
         this.forceMin = 0.15f;
@@ -462,6 +575,9 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         this.lifeMax = 0.999f;
         this.particlesPerEmission = 1;
         this.maxParticles = 100;
+        this.emissionScale = 1F;
+        this.particleLimit = ParticleBudget.UNLIMITED;
+        this.updatePhase = UPDATE_PHASES.getAndIncrement() & Integer.MAX_VALUE;
         this.billboardMode = BillboardMode.CAMERA;
         this.spriteWidth = -1;
         this.spriteCols = 1;
@@ -477,6 +593,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         attachChild(particleNode);
         reset();
         setEmissionsPerSecond(100);
+        setMetricsEnabled(EmitterMetrics.isEnabledByDefault());
     }
 
     /**
@@ -651,6 +768,17 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         super.setParent(parent);
         if (parent == null && isEnabled()) setEnabled(false);
         setEmittedTime(0);
+
+        final EmitterMetrics metrics = this.metrics;
+
+        // only attached emitters are held by the registry of metrics
+        if (metrics == null) {
+            return;
+        } else if (parent != null) {
+            EmitterMetrics.register(metrics);
+        } else {
+            EmitterMetrics.unregister(metrics);
+        }
     }
 
     /**
@@ -685,8 +813,14 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         if (maxParticles < 0) throw new IllegalArgumentException("maxParticles can't be negative.");
         this.maxParticles = maxParticles;
         if (!isEmitterInitialized()) return;
+
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.SET_MAX_PARTICLES, this);
+
         killAllParticles();
         initParticles();
+
+        if (event != null) tracer.end(event, this, maxParticles);
     }
 
     /**
@@ -732,7 +866,9 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     }
 
     /**
-     * Change the particles data mesh in this emitter.
+     * Change the particles data mesh in this emitter. If the new mesh type requires other shader defines of the
+     * material, the emitter makes its own copy of the material on the next render, so a material shared with other
+     * emitters isn't changed and {@link #getMaterial()} returns the copy after that.
      *
      * @param info information about new settings.
      */
@@ -783,6 +919,9 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
 
         if (!isEmitterInitialized()) return;
 
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.CHANGE_PARTICLE_MESH, this);
+
         if (isEnabled()) {
             killAllParticles();
         }
@@ -792,6 +931,8 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         if (isEnabled()) {
             emitAllParticles();
         }
+
+        if (event != null) tracer.end(event, this, maxParticles);
     }
 
     /**
@@ -832,18 +973,179 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
      * Create particles.
      */
     protected void initParticles() {
+
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.INIT_PARTICLES, this);
+
         particles = new ParticleData[maxParticles];
+        dataLayout = new ParticleDataLayout();
 
         for (int i = 0; i < maxParticles; i++) {
-            particles[i] = new ParticleData();
+            particles[i] = new ParticleData(dataLayout);
             particles[i].emitterNode = this;
             particles[i].index = i;
             particles[i].reset();
         }
 
-        final ParticleDataMesh particleDataMesh = getParticleDataMesh();
-        particleDataMesh.initParticleData(this, maxParticles);
-        particleDataMesh.setImagesXY(getSpriteColCount(), getSpriteRowCount());
+        initParticleChunks();
+
+        if (event != null) tracer.end(event, this, maxParticles);
+    }
+
+    /**
+     * Splits particles to chunks and prepares the geometry and the data mesh of every chunk.
+     */
+    private void initParticleChunks() {
+
+        final ParticleData[][] chunkParticles = splitParticles(particles, particleChunkSize);
+        final ParticleGeometry[] chunkGeometries = new ParticleGeometry[chunkParticles.length];
+        chunkGeometries[0] = particleGeometry;
+        chunkGeometries[0].setMesh(getParticleDataMesh());
+
+        for (int i = 1; i < chunkGeometries.length; i++) {
+
+            final ParticleGeometry geometry = i < this.chunkGeometries.length ? this.chunkGeometries[i] :
+                    new ParticleGeometry("Particle Geometry " + i);
+
+            geometry.setMesh(createParticleDataMesh());
+
+            if (geometry.getParent() != particleNode) {
+                geometry.setMaterial(particleGeometry.getMaterial());
+                particleNode.attachChild(geometry);
+            }
+
+            chunkGeometries[i] = geometry;
+        }
+
+        for (int i = chunkGeometries.length; i < this.chunkGeometries.length; i++) {
+            this.chunkGeometries[i].removeFromParent();
+        }
+
+        final boolean wasChunked = this.chunkGeometries.length > 1;
+
+        for (int i = 0; i < chunkGeometries.length; i++) {
+
+            final ParticleGeometry geometry = chunkGeometries[i];
+
+            if (wasChunked) {
+                geometry.setCullHint(CullHint.Inherit);
+            }
+
+            final ParticleDataMesh particleDataMesh = (ParticleDataMesh) requireNonNull(geometry.getMesh());
+            particleDataMesh.initParticleData(this, chunkParticles[i].length);
+            particleDataMesh.setImagesXY(getSpriteColCount(), getSpriteRowCount());
+        }
+
+        this.chunkGeometries = chunkGeometries;
+        this.chunkParticles = chunkParticles;
+    }
+
+    /**
+     * Splits the particles to chunks.
+     *
+     * @param particles the particles.
+     * @param chunkSize the max count of particles in a chunk or 0 to keep all particles in one chunk.
+     * @return the particles of chunks.
+     */
+    private static @NotNull ParticleData[][] splitParticles(@NotNull final ParticleData[] particles,
+                                                            final int chunkSize) {
+
+        if (chunkSize < 1 || particles.length <= chunkSize) {
+            return new ParticleData[][]{particles};
+        }
+
+        final ParticleData[][] result = new ParticleData[(particles.length + chunkSize - 1) / chunkSize][];
+
+        for (int i = 0; i < result.length; i++) {
+            final int from = i * chunkSize;
+            result[i] = Arrays.copyOfRange(particles, from, Math.min(particles.length, from + chunkSize));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a new data mesh for a chunk of particles with the same type and template as the particle data mesh.
+     *
+     * @return the new data mesh.
+     */
+    private @NotNull ParticleDataMesh createParticleDataMesh() {
+
+        final ParticleDataMesh particleDataMesh;
+        try {
+            particleDataMesh = getParticleDataMesh().getClass().newInstance();
+        } catch (final InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (particleMeshTemplate != null) {
+            particleDataMesh.extractTemplateFromMesh(particleMeshTemplate);
+        }
+
+        return particleDataMesh;
+    }
+
+    /**
+     * Gets the max count of particles in a chunk.
+     *
+     * @return the max count of particles in a chunk or 0 if all particles are in one geometry.
+     */
+    public int getParticleChunkSize() {
+        return particleChunkSize;
+    }
+
+    /**
+     * Sets the max count of particles in a chunk. Particles of large emitters can be split to chunks, every chunk has
+     * own geometry with own bound, so chunks out of the camera are culled, and chunks without active particles aren't
+     * updated and rendered.
+     *
+     * @param particleChunkSize the max count of particles in a chunk or 0 to keep all particles in one geometry.
+     */
+    public void setParticleChunkSize(final int particleChunkSize) {
+        if (particleChunkSize < 0) throw new IllegalArgumentException("particleChunkSize can't be negative.");
+        if (this.particleChunkSize == particleChunkSize) return;
+
+        this.particleChunkSize = particleChunkSize;
+
+        if (!isEmitterInitialized()) return;
+
+        initParticleChunks();
+
+        requiresUpdate = true;
+    }
+
+    /**
+     * Gets the count of chunks of particles.
+     *
+     * @return the count of chunks.
+     */
+    public int getParticleChunkCount() {
+        return chunkGeometries.length;
+    }
+
+    /**
+     * Gets the geometry of the chunk of particles.
+     *
+     * @param index the index of the chunk.
+     * @return the geometry of the chunk.
+     */
+    public @NotNull ParticleGeometry getParticleChunkGeometry(final int index) {
+        return chunkGeometries[index];
+    }
+
+    /**
+     * Sets the particle emitter shape to the specified analytic shape which is sampled without triangles.
+     *
+     * @param shape the analytic shape to use as the particle emitter shape.
+     */
+    public final void changeEmitterShape(@NotNull final AnalyticEmitterShape shape) {
+        emitterShape.setShape(this, shape);
+
+        if (emitterShapeTestGeometry != null) {
+            emitterShapeTestGeometry.setMesh(emitterShape.getMesh());
+        }
+
+        requiresUpdate = true;
     }
 
     /**
@@ -861,6 +1163,29 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         requiresUpdate = true;
     }
 
+    /**
+     * Sets the particle emitter shape to the cloud of points, particles are emitted from the points without
+     * triangles.
+     *
+     * @param points  the positions of points, 3 floats per point.
+     * @param normals the normals of points, 3 floats per point, or null to emit outward from the center of points.
+     */
+    public final void changeEmitterShapePoints(@NotNull final FloatBuffer points, @Nullable final FloatBuffer normals) {
+
+        final Mesh mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Points);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, points);
+
+        if (normals != null) {
+            mesh.setBuffer(VertexBuffer.Type.Normal, 3, normals);
+        }
+
+        mesh.updateCounts();
+        mesh.updateBound();
+
+        changeEmitterShapeMesh(mesh);
+    }
+
     /**
      * Returns the current ParticleData Emitter's EmitterMesh
      *
@@ -1115,6 +1440,103 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         return sequentialEmissionFace;
     }
 
+    /**
+     * For use with emitter shapes that contain more than one face. By default, every face is selected for emission
+     * with the same chance. Use this to select faces proportionally to their area, so particles are distributed
+     * uniformly over the surface of the emitter shape.
+     *
+     * @param areaWeightedEmission true if faces should be selected proportionally to their area.
+     * @see EmitterMesh#setAreaWeighted(boolean)
+     */
+    public void setAreaWeightedEmission(final boolean areaWeightedEmission) {
+        emitterShape.setAreaWeighted(areaWeightedEmission);
+        requiresUpdate = true;
+    }
+
+    /**
+     * Returns if faces of the emitter shape are selected proportionally to their area.
+     *
+     * @return true if faces are selected proportionally to their area.
+     */
+    public boolean isAreaWeightedEmission() {
+        return emitterShape.isAreaWeighted();
+    }
+
+    /**
+     * For use with point clouds, hair or debris meshes. Particles are emitted from vertices of the emitter shape
+     * instead of faces, so the vertices don't need to be connected by faces.
+     *
+     * @param vertexEmission true if particles should be emitted from vertices.
+     * @see EmitterMesh#setVertexEmission(boolean)
+     */
+    public void setVertexEmission(final boolean vertexEmission) {
+        emitterShape.setVertexEmission(vertexEmission);
+        requiresUpdate = true;
+    }
+
+    /**
+     * Returns if particles are emitted from vertices of the emitter shape.
+     *
+     * @return true if particles are emitted from vertices.
+     */
+    public boolean isVertexEmission() {
+        return emitterShape.isVertexEmission();
+    }
+
+    /**
+     * Sets the grayscale mask of emission density in the texture space of the emitter shape mesh. Bright pixels of the
+     * mask emit more particles, so a single emitter can emit from burn marks or glowing runes on the mesh.
+     *
+     * @param mask the texture of the mask or null to disable the mask.
+     * @see EmitterMesh#setEmissionMask(Image)
+     */
+    public void setEmissionMask(@Nullable final Texture mask) {
+        emitterShape.setEmissionMask(mask == null ? null : mask.getImage());
+        requiresUpdate = true;
+    }
+
+    /**
+     * For use with animated emitter shapes, for example a skinned mesh of a creature. A snapshot of deformed faces of
+     * the emitter shape is taken once per frame and is shared by all particles emitted in this frame.
+     *
+     * @param animatedEmitterShape true if the emitter shape mesh is animated.
+     * @see EmitterMesh#setAnimated(boolean)
+     */
+    public void setAnimatedEmitterShape(final boolean animatedEmitterShape) {
+        emitterShape.setAnimated(animatedEmitterShape);
+        requiresUpdate = true;
+    }
+
+    /**
+     * Returns if the emitter shape mesh is animated.
+     *
+     * @return true if the emitter shape mesh is animated.
+     */
+    public boolean isAnimatedEmitterShape() {
+        return emitterShape.isAnimated();
+    }
+
+    /**
+     * Sets the skeleton to skin the animated emitter shape on the CPU, it's needed when the emitter shape mesh uses
+     * hardware skinning.
+     *
+     * @param skeleton the skeleton or null.
+     * @see EmitterMesh#setSkeleton(Skeleton)
+     */
+    public void setEmitterShapeSkeleton(@Nullable final Skeleton skeleton) {
+        emitterShape.setSkeleton(skeleton);
+        requiresUpdate = true;
+    }
+
+    /**
+     * Gets the skeleton to skin the animated emitter shape.
+     *
+     * @return the skeleton or null.
+     */
+    public @Nullable Skeleton getEmitterShapeSkeleton() {
+        return emitterShape.getSkeleton();
+    }
+
     /**
      * Enabling skip pattern will use every other face in the emitter shape.  This stops the clustering of two particles
      * per quad that makes up the the emitter shape.
@@ -1513,8 +1935,10 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         spriteWidth = width / spriteCols;
         spriteHeight = height / spriteRows;
 
-        final ParticleDataMesh particleDataMesh = getParticleDataMesh();
-        particleDataMesh.setImagesXY(spriteCols, spriteRows);
+        for (final ParticleGeometry geometry : chunkGeometries) {
+            final ParticleDataMesh particleDataMesh = (ParticleDataMesh) requireNonNull(geometry.getMesh());
+            particleDataMesh.setImagesXY(spriteCols, spriteRows);
+        }
 
         requiresUpdate = true;
     }
@@ -1868,7 +2292,11 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
     public void updateGeometricState() {
 
         if (isEmitterInitialized() && (isEnabled() || postRequiresUpdate)) {
-            particleGeometry.updateModelBound();
+            for (final ParticleGeometry geometry : chunkGeometries) {
+                if (geometry.getLocalCullHint() != CullHint.Always) {
+                    geometry.updateModelBound();
+                }
+            }
 
             if (particleTestGeometry != null) {
                 particleTestGeometry.updateModelBound();
@@ -1892,29 +2320,250 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
             return;
         }
 
-        emittedTime += tpf;
+        final ParticleBudget budget = ParticleBudget.getGlobal();
+        if (budget != null) budget.checkIn(this);
+
+        emitterShape.update();
+
+        final AdaptiveQualityController qualityController = AdaptiveQualityController.getGlobal();
+        final int updateInterval = qualityController == null ? 1 : qualityController.getUpdateInterval();
+
+        skippedTime += tpf;
+        skippedFrames++;
+
+        // emitters update in different frames by their phases to not update all together every N-th frame
+        if ((updateFrame++ + updatePhase) % updateInterval != 0) {
+            return;
+        }
+
+        final float updateTpf = skippedTime;
+        final int updateFrames = skippedFrames;
+
+        skippedFrames = 0;
+        skippedTime = 0F;
+
+        final EmitterMetrics metrics = this.metrics;
+        final long startTime = metrics == null ? 0 : System.nanoTime();
+
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.SIMULATION, this);
+
+        emittedTime += updateTpf;
 
         for (final ParticleData particleData : particles) {
-            if (particleData.isActive()) particleData.update(tpf);
+            if (particleData.isActive()) particleData.update(updateTpf);
         }
 
-        currentInterval += (tpf <= targetInterval) ? tpf : targetInterval;
-        if (currentInterval <= targetInterval) return;
+        final long updatedTime = metrics == null ? 0 : System.nanoTime();
+        final int prevActiveParticleCount = activeParticleCount;
 
-        final boolean delayIsReady = emitterDelay == 0F || emittedTime >= emitterDelay;
-        final boolean emitterIsAlive = isAlive();
+        // skipped frames are emitted as separate frames, so the update rate doesn't change the emission rate
+        final float frameTpf = updateTpf / updateFrames;
+
+        for (int i = 0; i < updateFrames; i++) {
 
-        if (delayIsReady && emitterIsAlive) {
-            for (int i = 0, count = calcParticlesPerEmission(); i < count; i++) {
-                emitNextParticle();
+            currentInterval += (frameTpf <= targetInterval) ? frameTpf : targetInterval;
+
+            if (currentInterval > targetInterval) {
+                emitParticles(qualityController, tracer);
+                currentInterval -= targetInterval;
             }
         }
 
-        currentInterval -= targetInterval;
+        if (metrics != null) {
+            final long endTime = System.nanoTime();
+            metrics.recordUpdate(endTime, endTime - startTime, updatedTime - startTime, endTime - updatedTime,
+                    activeParticleCount - prevActiveParticleCount, activeParticleCount);
+        }
+
+        if (event != null) tracer.end(event, this, activeParticleCount);
+    }
+
+    /**
+     * Emits the next particles if the emitter is ready, the count of particles is scaled by the quality.
+     *
+     * @param qualityController the quality controller or null.
+     * @param tracer            the tracer or null.
+     */
+    private void emitParticles(@Nullable final AdaptiveQualityController qualityController,
+                               @Nullable final ParticleTracer tracer) {
+
+        final boolean delayIsReady = emitterDelay == 0F || emittedTime >= emitterDelay;
+
+        if (!delayIsReady || !isAlive()) {
+            return;
+        }
+
+        final Object emissionEvent = tracer == null ? null : tracer.begin(ParticlePhase.EMISSION, this);
+        final int prevActiveParticleCount = activeParticleCount;
+
+        float scale = emissionScale;
+        int limit = particleLimit;
+
+        if (qualityController != null) {
+            scale *= qualityController.getQuality();
+            limit = Math.min(limit, qualityController.scaleParticles(maxParticles));
+        }
+
+        final int count = Math.min(calcParticlesPerEmission(scale), limit - activeParticleCount);
+
+        emitNextParticles(count);
+
+        if (emissionEvent != null) {
+            tracer.end(emissionEvent, this, activeParticleCount - prevActiveParticleCount);
+        }
+    }
+
+    private int calcParticlesPerEmission(final float scale) {
+
+        final float count = currentInterval / targetInterval * particlesPerEmission;
+
+        if (scale >= 1F) {
+            return (int) count;
+        }
+
+        // keep the fractional part to not lose emission of small emitters
+        emissionRemainder += count * scale;
+
+        final int result = (int) emissionRemainder;
+        emissionRemainder -= result;
+
+        return result;
+    }
+
+    /**
+     * Gets the priority of this emitter in the {@link ParticleBudget}.
+     *
+     * @return the priority.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this emitter in the {@link ParticleBudget}. Emitters with higher priority get their
+     * particles first, emitters with the same priority are ordered by their size on the screen.
+     *
+     * @param priority the priority.
+     */
+    public void setPriority(final int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Gets the scale of emission which is set by the {@link ParticleBudget}.
+     *
+     * @return the scale of emission.
+     */
+    public float getEmissionScale() {
+        return emissionScale;
+    }
+
+    /**
+     * Sets the scale of emission, it's used by the {@link ParticleBudget}.
+     *
+     * @param emissionScale the scale of emission from 0 to 1.
+     */
+    public void setEmissionScale(final float emissionScale) {
+        this.emissionScale = FastMath.clamp(emissionScale, 0F, 1F);
+        if (this.emissionScale >= 1F) emissionRemainder = 0F;
+    }
+
+    /**
+     * Gets the max count of active particles which is set by the {@link ParticleBudget}.
+     *
+     * @return the max count of active particles.
+     */
+    public int getParticleLimit() {
+        return particleLimit;
+    }
+
+    /**
+     * Sets the max count of active particles, it's used by the {@link ParticleBudget}. New particles aren't emitted
+     * over the limit, but already active particles aren't killed.
+     *
+     * @param particleLimit the max count of active particles or {@link ParticleBudget#UNLIMITED}.
+     */
+    public void setParticleLimit(final int particleLimit) {
+        this.particleLimit = Math.max(particleLimit, 0);
+    }
+
+    /**
+     * Enables or disables collecting metrics of this emitter. Enabled metrics are registered in the current {@link
+     * EmitterMetrics#setSink(tonegod.emitter.metrics.EmitterMetricsSink) sink} while this emitter is attached to a
+     * parent and are unregistered when it's detached. Disabled metrics cost only a null check per phase.
+     *
+     * @param metricsEnabled true if this emitter should collect metrics.
+     */
+    public void setMetricsEnabled(final boolean metricsEnabled) {
+
+        if (metricsEnabled == isMetricsEnabled()) {
+            return;
+        } else if (metricsEnabled) {
+            metrics = new EmitterMetrics(this);
+            if (getParent() != null) EmitterMetrics.register(metrics);
+        } else {
+            EmitterMetrics.unregister(requireNonNull(metrics));
+            metrics = null;
+        }
+    }
+
+    /**
+     * Returns true if this emitter collects metrics.
+     *
+     * @return true if this emitter collects metrics.
+     */
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Gets the metrics of this emitter.
+     *
+     * @return the metrics or null if metrics are disabled.
+     */
+    public @Nullable EmitterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables or disables profiling of influencers of this emitter. The profiler measures every call of {@link
+     * ParticleInfluencer#initialize(ParticleData)}, {@link ParticleInfluencer#update(ParticleData, float)} and {@link
+     * ParticleInfluencer#reset(ParticleData)}, so it should be used only to find expensive influencers.
+     *
+     * @param influencerProfiling true if influencers of this emitter should be profiled.
+     */
+    public void setInfluencerProfiling(final boolean influencerProfiling) {
+        if (influencerProfiling == isInfluencerProfiling()) return;
+        influencerProfiler = influencerProfiling ? new InfluencerProfiler() : null;
     }
 
-    private int calcParticlesPerEmission() {
-        return (int) (currentInterval / targetInterval * particlesPerEmission);
+    /**
+     * Returns true if influencers of this emitter are profiled.
+     *
+     * @return true if influencers of this emitter are profiled.
+     */
+    public boolean isInfluencerProfiling() {
+        return influencerProfiler != null;
+    }
+
+    /**
+     * Gets the profiler of influencers to get a report or to reset collected profiles.
+     *
+     * @return the profiler or null if profiling is disabled.
+     */
+    public @Nullable InfluencerProfiler getInfluencerProfiler() {
+        return influencerProfiler;
+    }
+
+    /**
+     * Gets the layout of additional data slots of particles. Slots are assigned only for data which is used by
+     * influencers of this emitter.
+     *
+     * @return the layout of data slots.
+     */
+    public @NotNull ParticleDataLayout getDataLayout() {
+        return dataLayout;
     }
 
     /**
@@ -1922,8 +2571,32 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
      */
     public void emitNextParticle() {
         if (nextIndex == -1 || nextIndex >= maxParticles) return;
-
         particles[nextIndex].initialize();
+        findNextIndex();
+    }
+
+    /**
+     * Emits the count of next available (non-active) particles, emission points of all particles are sampled in one
+     * batch.
+     *
+     * @param count the count of particles.
+     */
+    public void emitNextParticles(final int count) {
+        if (count < 1 || nextIndex == -1 || nextIndex >= maxParticles) return;
+
+        final EmissionBatch batch = emitterShape.sample(Math.min(count, maxParticles - activeParticleCount));
+
+        for (int i = 0, length = batch.size(); i < length; i++) {
+            if (nextIndex == -1 || nextIndex >= maxParticles) break;
+            particles[nextIndex].initialize(batch, i);
+            findNextIndex();
+        }
+    }
+
+    /**
+     * Finds the index of the next available (non-active) particle.
+     */
+    private void findNextIndex() {
 
         int searchIndex = nextIndex;
         int initIndex = nextIndex;
@@ -1948,10 +2621,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
      * Emits all non-active particles
      */
     public void emitAllParticles() {
-        for (final ParticleData data : particles) {
-            if (!data.active) data.initialize();
-        }
-        requiresUpdate = true;
+        emitNumParticles(particles.length);
     }
 
     /**
@@ -1961,14 +2631,17 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
      */
     public void emitNumParticles(final int count) {
 
-        int counter = 0;
+        int inactive = 0;
 
         for (final ParticleData data : particles) {
-            if (!data.active && counter < count) {
-                data.initialize();
-                counter++;
-            }
-            if (counter > count) break;
+            if (!data.active) inactive++;
+        }
+
+        final EmissionBatch batch = emitterShape.sample(Math.min(count, inactive));
+
+        for (int i = 0, index = 0, length = batch.size(); i < length; index++) {
+            final ParticleData data = particles[index];
+            if (!data.active) data.initialize(batch, i++);
         }
 
         requiresUpdate = true;
@@ -1996,6 +2669,35 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         requiresUpdate = true;
     }
 
+    /**
+     * Kills the specified number of active particles, particles which have passed the half of their life are killed
+     * first.
+     *
+     * @param count the number of particles to kill.
+     * @return the number of killed particles.
+     */
+    public int killParticles(final int count) {
+
+        int killed = 0;
+
+        for (int pass = 0; pass < 2 && killed < count; pass++) {
+            for (final ParticleData data : particles) {
+
+                if (killed >= count) {
+                    break;
+                } else if (!data.active || (pass == 0 && data.life > data.startLife / 2F)) {
+                    continue;
+                }
+
+                data.reset();
+                killed++;
+            }
+        }
+
+        if (killed > 0) requiresUpdate = true;
+        return killed;
+    }
+
     /**
      * Returns the number of active particles
      *
@@ -2073,18 +2775,56 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
 
         final Camera cam = viewPort.getCamera();
         final ParticleDataMesh particleDataMesh = getParticleDataMesh();
-        final Material material = getMaterial();
+        final Material material = updateMaterialDefines(particleDataMesh);
 
         if (particleDataMesh.getClass() == ParticleDataPointMesh.class) {
 
             float c = cam.getProjectionMatrix().m00;
             c *= cam.getWidth() * 0.5f;
 
-            // send attenuation params
-            material.setFloat(ParticlesMaterial.PROP_QUADRATIC, c);
+            final MatParam quadratic = material.getParam(ParticlesMaterial.PROP_QUADRATIC);
+
+            // send attenuation params only if they were changed to avoid boxing every frame
+            if (quadratic == null || (Float) quadratic.getValue() != c) {
+                material.setFloat(ParticlesMaterial.PROP_QUADRATIC, c);
+            }
         }
 
-        particleDataMesh.updateParticleData(particles, cam, inverseRotation);
+
+        final EmitterMetrics metrics = this.metrics;
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.MESH_FILL, this);
+
+        final long startTime = metrics == null ? 0 : System.nanoTime();
+        final boolean chunked = chunkGeometries.length > 1;
+
+        long uploadedBytes = 0;
+
+        for (int i = 0; i < chunkGeometries.length; i++) {
+
+            final ParticleGeometry geometry = chunkGeometries[i];
+            final ParticleData[] chunk = chunkParticles[i];
+
+            // chunks without active particles keep their old data and are hidden until new particles are emitted
+            if (chunked && !hasActiveParticles(chunk)) {
+                geometry.setCullHint(CullHint.Always);
+                continue;
+            }
+
+            final ParticleDataMesh chunkMesh = (ParticleDataMesh) requireNonNull(geometry.getMesh());
+            chunkMesh.updateParticleData(chunk, cam, inverseRotation);
+
+            if (chunked) {
+                geometry.setCullHint(CullHint.Inherit);
+            }
+
+            if (metrics != null || event != null) {
+                uploadedBytes += getUploadedBytes(chunkMesh);
+            }
+        }
+
+        if (metrics != null) metrics.recordMeshUpdate(System.nanoTime() - startTime, uploadedBytes);
+        if (event != null) tracer.end(event, this, uploadedBytes);
 
         if (requiresUpdate) {
             requiresUpdate = false;
@@ -2092,6 +2832,108 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         }
     }
 
+    /**
+     * Updates shader defines of the material which are required by the particles data mesh. The material can be
+     * shared with other emitters, so it is copied before the first change of the defines and the copy is used by this
+     * emitter after that.
+     *
+     * @param particleDataMesh the particles data mesh.
+     * @return the material of this emitter.
+     */
+    private @NotNull Material updateMaterialDefines(@NotNull final ParticleDataMesh particleDataMesh) {
+
+        Material material = getMaterial();
+
+        final boolean instancedQuads = particleDataMesh instanceof ParticleDataInstancedMesh;
+        final boolean cameraBillboard = instancedQuads && ParticleDataInstancedMesh.isCameraBillboard(billboardMode);
+
+        final boolean instancedQuadsChanged =
+                isMaterialFlagChanged(material, ParticlesMaterial.PROP_INSTANCED_QUADS, instancedQuads);
+        final boolean cameraBillboardChanged =
+                isMaterialFlagChanged(material, ParticlesMaterial.PROP_CAMERA_BILLBOARD, cameraBillboard);
+
+        if (!instancedQuadsChanged && !cameraBillboardChanged) {
+            return material;
+        }
+
+        if (material != definesMaterial) {
+            material = material.clone();
+            this.material = material;
+            this.definesMaterial = material;
+            particleNode.setMaterial(material);
+        }
+
+        if (instancedQuadsChanged) {
+            material.setBoolean(ParticlesMaterial.PROP_INSTANCED_QUADS, instancedQuads);
+        }
+
+        if (cameraBillboardChanged) {
+            material.setBoolean(ParticlesMaterial.PROP_CAMERA_BILLBOARD, cameraBillboard);
+        }
+
+        return material;
+    }
+
+    /**
+     * Checks the boolean parameter of the material for another value if the material definition has the parameter.
+     *
+     * @param material the material.
+     * @param name     the name of the parameter.
+     * @param value    the required value of the parameter.
+     * @return true if the material has another value of the parameter.
+     */
+    private static boolean isMaterialFlagChanged(@NotNull final Material material, @NotNull final String name,
+                                                 final boolean value) {
+
+        if (material.getMaterialDef().getMaterialParam(name) == null) {
+            return false;
+        }
+
+        final MatParam param = material.getParam(name);
+        final boolean current = param != null && (Boolean) param.getValue();
+
+        return current != value;
+    }
+
+    /**
+     * Checks the particles for active particles.
+     *
+     * @param particles the particles.
+     * @return true if some of the particles are active.
+     */
+    private static boolean hasActiveParticles(@NotNull final ParticleData[] particles) {
+
+        for (final ParticleData particleData : particles) {
+            if (particleData.isActive()) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Calculates the size of vertex data of the mesh which is marked to upload.
+     *
+     * @param mesh the mesh.
+     * @return the size in bytes.
+     */
+    private static long getUploadedBytes(@NotNull final Mesh mesh) {
+
+        long result = 0;
+
+        final SafeArrayList<VertexBuffer> buffers = mesh.getBufferList();
+
+        for (final VertexBuffer buffer : buffers.getArray()) {
+
+            final Buffer data = buffer.getData();
+
+            if (data != null && buffer.isUpdateNeeded()) {
+                result += (long) data.limit() * buffer.getFormat().getComponentSize();
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void write(@NotNull final JmeExporter exporter) throws IOException {
 
@@ -2126,6 +2968,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         capsule.write(directionType.ordinal(), "directionType", 0);
         capsule.write(emitterLife, "emitterLife", 0);
         capsule.write(emitterDelay, "emitterDelay", 0);
+        capsule.write(priority, "priority", 0);
 
         // PARTICLES
         capsule.write(billboardMode.ordinal(), "billboardMode", 0);
@@ -2136,6 +2979,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         capsule.write(particleDataMesh, "particleDataMesh", null);
         capsule.write(particleMeshTemplate, "particleMeshTemplate", null);
         capsule.write(maxParticles, "maxParticles", 0);
+        capsule.write(particleChunkSize, "particleChunkSize", 0);
         capsule.write(forceMin, "forceMin", 0);
         capsule.write(forceMax, "forceMax", 0);
         capsule.write(lifeMin, "lifeMin", 0);
@@ -2198,6 +3042,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         setDirectionType(DirectionType.valueOf(capsule.readInt("directionType", DirectionType.NORMAL.ordinal())));
         setEmitterLife(capsule.readFloat("emitterLife", 0F));
         setEmitterDelay(capsule.readFloat("emitterDelay", 0F));
+        setPriority(capsule.readInt("priority", 0));
 
         // PARTICLES
         setBillboardMode(BillboardMode.valueOf(capsule.readInt("billboardMode", BillboardMode.CAMERA.ordinal())));
@@ -2222,6 +3067,7 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
             changeParticleMeshType(meshType, template);
         }
 
+        setParticleChunkSize(capsule.readInt("particleChunkSize", 0));
         setMaxParticles(capsule.readInt("maxParticles", 0));
         setForceMinMax(capsule.readFloat("forceMin", 0F), capsule.readFloat("forceMax", 0F));
         setLifeMinMax(capsule.readFloat("lifeMin", 0F), capsule.readFloat("lifeMax", 0F));
@@ -2246,6 +3092,10 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
 
     @Override
     public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+
+        final ParticleTracer tracer = ParticleTracing.getTracer();
+        final Object event = tracer == null ? null : tracer.begin(ParticlePhase.CLONE, this);
+
         super.cloneFields(cloner, original);
 
         influencers = cloner.clone(influencers);
@@ -2258,13 +3108,40 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
         emitterShapeTestGeometry = null;
         emitterTestNode = null;
 
+        dataLayout = cloner.clone(dataLayout);
         particles = cloner.clone(particles);
         particleGeometry = cloner.clone(particleGeometry);
         particleNode = cloner.clone(particleNode);
 
+        final ParticleGeometry[] chunkGeometries = new ParticleGeometry[this.chunkGeometries.length];
+
+        for (int i = 0; i < chunkGeometries.length; i++) {
+            chunkGeometries[i] = cloner.clone(this.chunkGeometries[i]);
+        }
+
+        this.chunkGeometries = chunkGeometries;
+        this.chunkParticles = splitParticles(particles, particleChunkSize);
+
         particleTestGeometry = null;
         particleTestNode = null;
 
+        if (metrics != null) {
+            metrics = null;
+            setMetricsEnabled(true);
+        }
+
+        if (influencerProfiler != null) {
+            influencerProfiler = new InfluencerProfiler();
+        }
+
+        // the clone gets its own phase to not update together with the original emitter
+        updatePhase = UPDATE_PHASES.getAndIncrement() & Integer.MAX_VALUE;
+
+        // limits of the budget are released only for the original emitter
+        emissionScale = 1F;
+        emissionRemainder = 0F;
+        particleLimit = ParticleBudget.UNLIMITED;
+
         testEmitter = false;
         testParticles = false;
 
@@ -2274,11 +3151,16 @@ public class ParticleEmitterNode extends Node implements JmeCloneable, Cloneable
             material = cloner.clone(material);
         }
 
+        // the material can be shared with the original emitter
+        definesMaterial = null;
+
         if (particleGeometry.getMesh() != null) {
             particleDataMesh = (ParticleDataMesh) particleGeometry.getMesh();
         } else {
             particleDataMesh = cloner.clone(particleDataMesh);
         }
+
+        if (event != null) tracer.end(event, this, maxParticles);
     }
 
     @Override
@@ -0,0 +1,52 @@
+package tonegod.emitter.budget;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The application state which installs the {@link AdaptiveQualityController} as the global controller and updates it
+ * by the time of every frame.
+ *
+ * @author JavaSaBr
+ */
+public class AdaptiveQualityAppState extends AbstractAppState {
+
+    /**
+     * The controller.
+     */
+    @NotNull
+    private final AdaptiveQualityController controller;
+
+    public AdaptiveQualityAppState(@NotNull final AdaptiveQualityController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Gets the controller.
+     *
+     * @return the controller.
+     */
+    public @NotNull AdaptiveQualityController getController() {
+        return controller;
+    }
+
+    @Override
+    public void initialize(@NotNull final AppStateManager stateManager, @NotNull final Application app) {
+        super.initialize(stateManager, app);
+        AdaptiveQualityController.setGlobal(controller);
+    }
+
+    @Override
+    public void update(final float tpf) {
+        super.update(tpf);
+        controller.update(tpf);
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        if (AdaptiveQualityController.getGlobal() == controller) AdaptiveQualityController.setGlobal(null);
+    }
+}
@@ -0,0 +1,451 @@
+package tonegod.emitter.budget;
+
+import com.jme3.math.FastMath;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.metrics.EmitterMetrics;
+
+/**
+ * The controller of the global quality of particles which watches frame time and time of updating particles and
+ * scales the emission, the used part of max particles and the update rate of all emitters. The quality is decreased
+ * only when the frame time is over the target for some time and particles take a noticeable part of the frame, and
+ * it's increased back only when the frame time is under the target for a longer time, so the quality doesn't
+ * oscillate. The time of particles is taken from the {@link EmitterMetrics#getGlobal() global metrics}, without
+ * metrics the quality depends only on the frame time.
+ *
+ * @author JavaSaBr
+ */
+public class AdaptiveQualityController {
+
+    /**
+     * The current global controller.
+     */
+    @Nullable
+    private static volatile AdaptiveQualityController global;
+
+    /**
+     * Gets the current global controller.
+     *
+     * @return the current global controller or null.
+     */
+    public static @Nullable AdaptiveQualityController getGlobal() {
+        return global;
+    }
+
+    /**
+     * Sets the current global controller.
+     *
+     * @param controller the new global controller or null.
+     */
+    public static void setGlobal(@Nullable final AdaptiveQualityController controller) {
+        AdaptiveQualityController.global = controller;
+    }
+
+    /**
+     * The target time of a frame in seconds.
+     */
+    private float targetFrameTime;
+
+    /**
+     * The min quality.
+     */
+    private float minQuality;
+
+    /**
+     * The step of changing quality.
+     */
+    private float qualityStep;
+
+    /**
+     * The ratio of average frame time to target frame time to decrease quality.
+     */
+    private float degradeRatio;
+
+    /**
+     * The ratio of average frame time to target frame time to increase quality.
+     */
+    private float recoverRatio;
+
+    /**
+     * The time in seconds while the frame time should be over the target to decrease quality.
+     */
+    private float degradeDelay;
+
+    /**
+     * The time in seconds while the frame time should be under the target to increase quality.
+     */
+    private float recoverDelay;
+
+    /**
+     * The min part of particles in the frame time to decrease quality.
+     */
+    private float minParticleShare;
+
+    /**
+     * The factor of smoothing measured times.
+     */
+    private float smoothing;
+
+    /**
+     * The flag of scaling the update rate of emitters.
+     */
+    private boolean scaleUpdateRate;
+
+    /**
+     * The current quality.
+     */
+    private float quality;
+
+    /**
+     * The count of frames between updates of particles.
+     */
+    private int updateInterval;
+
+    /**
+     * The average frame time in seconds.
+     */
+    private float averageFrameTime;
+
+    /**
+     * The average time of particles per frame in seconds.
+     */
+    private float averageParticleTime;
+
+    /**
+     * The last total time of particles from the global metrics in nanoseconds.
+     */
+    private long lastParticleTime;
+
+    /**
+     * The time while the frame time is over the target.
+     */
+    private float overTime;
+
+    /**
+     * The time while the frame time is under the target.
+     */
+    private float underTime;
+
+    public AdaptiveQualityController() {
+        this.targetFrameTime = 1F / 60F;
+        this.minQuality = 0.25F;
+        this.qualityStep = 0.1F;
+        this.degradeRatio = 1.1F;
+        this.recoverRatio = 0.85F;
+        this.degradeDelay = 0.5F;
+        this.recoverDelay = 2F;
+        this.minParticleShare = 0.1F;
+        this.smoothing = 0.1F;
+        this.scaleUpdateRate = true;
+        this.quality = 1F;
+        this.updateInterval = 1;
+        this.lastParticleTime = -1;
+    }
+
+    /**
+     * Updates the quality by the time of the last frame, it should be called once per frame.
+     *
+     * @param tpf the time of the last frame.
+     */
+    public void update(final float tpf) {
+
+        final EmitterMetrics metrics = EmitterMetrics.getGlobal();
+        final long particleTime = metrics.getUpdateTime() + metrics.getMeshUpdateTime();
+        final long particleTimeDelta = lastParticleTime < 0 ? 0 : Math.max(particleTime - lastParticleTime, 0);
+
+        lastParticleTime = particleTime;
+
+        if (averageFrameTime == 0F) {
+            averageFrameTime = tpf;
+        } else {
+            averageFrameTime += (tpf - averageFrameTime) * smoothing;
+        }
+
+        averageParticleTime += (particleTimeDelta / 1000000000F - averageParticleTime) * smoothing;
+
+        final float ratio = averageFrameTime / targetFrameTime;
+
+        if (ratio > degradeRatio && quality > minQuality && isParticlesExpensive()) {
+
+            underTime = 0F;
+            overTime += tpf;
+
+            if (overTime >= degradeDelay) {
+                setQuality(quality - qualityStep);
+            }
+
+        } else if (ratio < recoverRatio && quality < 1F && canRecover()) {
+
+            overTime = 0F;
+            underTime += tpf;
+
+            if (underTime >= recoverDelay) {
+                setQuality(quality + qualityStep);
+            }
+
+        } else {
+            overTime = 0F;
+            underTime = 0F;
+        }
+    }
+
+    /**
+     * Returns true if particles take a noticeable part of the frame time or their time is unknown.
+     *
+     * @return true if decreasing quality of particles can help.
+     */
+    protected boolean isParticlesExpensive() {
+        return averageParticleTime <= 0F || averageParticleTime / averageFrameTime >= minParticleShare;
+    }
+
+    /**
+     * Returns true if the frame time with increased quality is expected to be under the target.
+     *
+     * @return true if quality can be increased.
+     */
+    protected boolean canRecover() {
+        final float expectedFrameTime = averageFrameTime + averageParticleTime * qualityStep / quality;
+        return expectedFrameTime < targetFrameTime;
+    }
+
+    /**
+     * Gets the current quality.
+     *
+     * @return the current quality from min quality to 1.
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * Sets the current quality, it's changed by {@link #update(float)} later.
+     *
+     * @param quality the quality from min quality to 1.
+     */
+    public void setQuality(final float quality) {
+        this.quality = FastMath.clamp(quality, minQuality, 1F);
+        this.updateInterval = scaleUpdateRate ? Math.max((int) (1F / this.quality + 0.001F), 1) : 1;
+        this.overTime = 0F;
+        this.underTime = 0F;
+    }
+
+    /**
+     * Gets the count of frames between updates of particles.
+     *
+     * @return the count of frames between updates of particles.
+     */
+    public int getUpdateInterval() {
+        return updateInterval;
+    }
+
+    /**
+     * Gets the count of particles which an emitter can use at the current quality.
+     *
+     * @param maxParticles the max count of particles of an emitter.
+     * @return the count of particles to use.
+     * @see ParticleEmitterNode#getMaxParticles()
+     */
+    public int scaleParticles(final int maxParticles) {
+        return quality >= 1F ? maxParticles : Math.max((int) (maxParticles * quality), 1);
+    }
+
+    /**
+     * Gets the target time of a frame.
+     *
+     * @return the target time of a frame in seconds.
+     */
+    public float getTargetFrameTime() {
+        return targetFrameTime;
+    }
+
+    /**
+     * Sets the target time of a frame.
+     *
+     * @param targetFrameTime the target time of a frame in seconds.
+     */
+    public void setTargetFrameTime(final float targetFrameTime) {
+        this.targetFrameTime = targetFrameTime;
+    }
+
+    /**
+     * Gets the min quality.
+     *
+     * @return the min quality.
+     */
+    public float getMinQuality() {
+        return minQuality;
+    }
+
+    /**
+     * Sets the min quality.
+     *
+     * @param minQuality the min quality from 0.01 to 1.
+     */
+    public void setMinQuality(final float minQuality) {
+        this.minQuality = FastMath.clamp(minQuality, 0.01F, 1F);
+        setQuality(quality);
+    }
+
+    /**
+     * Gets the step of changing quality.
+     *
+     * @return the step of changing quality.
+     */
+    public float getQualityStep() {
+        return qualityStep;
+    }
+
+    /**
+     * Sets the step of changing quality.
+     *
+     * @param qualityStep the step of changing quality.
+     */
+    public void setQualityStep(final float qualityStep) {
+        this.qualityStep = qualityStep;
+    }
+
+    /**
+     * Gets the ratio of average frame time to target frame time to decrease quality.
+     *
+     * @return the ratio to decrease quality.
+     */
+    public float getDegradeRatio() {
+        return degradeRatio;
+    }
+
+    /**
+     * Sets the ratio of average frame time to target frame time to decrease quality.
+     *
+     * @param degradeRatio the ratio to decrease quality.
+     */
+    public void setDegradeRatio(final float degradeRatio) {
+        this.degradeRatio = degradeRatio;
+    }
+
+    /**
+     * Gets the ratio of average frame time to target frame time to increase quality.
+     *
+     * @return the ratio to increase quality.
+     */
+    public float getRecoverRatio() {
+        return recoverRatio;
+    }
+
+    /**
+     * Sets the ratio of average frame time to target frame time to increase quality.
+     *
+     * @param recoverRatio the ratio to increase quality.
+     */
+    public void setRecoverRatio(final float recoverRatio) {
+        this.recoverRatio = recoverRatio;
+    }
+
+    /**
+     * Gets the time while the frame time should be over the target to decrease quality.
+     *
+     * @return the time in seconds.
+     */
+    public float getDegradeDelay() {
+        return degradeDelay;
+    }
+
+    /**
+     * Sets the time while the frame time should be over the target to decrease quality.
+     *
+     * @param degradeDelay the time in seconds.
+     */
+    public void setDegradeDelay(final float degradeDelay) {
+        this.degradeDelay = degradeDelay;
+    }
+
+    /**
+     * Gets the time while the frame time should be under the target to increase quality.
+     *
+     * @return the time in seconds.
+     */
+    public float getRecoverDelay() {
+        return recoverDelay;
+    }
+
+    /**
+     * Sets the time while the frame time should be under the target to increase quality.
+     *
+     * @param recoverDelay the time in seconds.
+     */
+    public void setRecoverDelay(final float recoverDelay) {
+        this.recoverDelay = recoverDelay;
+    }
+
+    /**
+     * Gets the min part of particles in the frame time to decrease quality.
+     *
+     * @return the min part of particles from 0 to 1.
+     */
+    public float getMinParticleShare() {
+        return minParticleShare;
+    }
+
+    /**
+     * Sets the min part of particles in the frame time to decrease quality.
+     *
+     * @param minParticleShare the min part of particles from 0 to 1.
+     */
+    public void setMinParticleShare(final float minParticleShare) {
+        this.minParticleShare = minParticleShare;
+    }
+
+    /**
+     * Gets the factor of smoothing measured times.
+     *
+     * @return the factor of smoothing from 0 to 1.
+     */
+    public float getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Sets the factor of smoothing measured times, the less factor the slower reaction on changes of frame time.
+     *
+     * @param smoothing the factor of smoothing from 0 to 1.
+     */
+    public void setSmoothing(final float smoothing) {
+        this.smoothing = FastMath.clamp(smoothing, 0.001F, 1F);
+    }
+
+    /**
+     * Returns true if the update rate of emitters is scaled by quality.
+     *
+     * @return true if the update rate of emitters is scaled by quality.
+     */
+    public boolean isScaleUpdateRate() {
+        return scaleUpdateRate;
+    }
+
+    /**
+     * Sets true if the update rate of emitters should be scaled by quality.
+     *
+     * @param scaleUpdateRate true if the update rate of emitters should be scaled by quality.
+     */
+    public void setScaleUpdateRate(final boolean scaleUpdateRate) {
+        this.scaleUpdateRate = scaleUpdateRate;
+        setQuality(quality);
+    }
+
+    /**
+     * Gets the average frame time.
+     *
+     * @return the average frame time in seconds.
+     */
+    public float getAverageFrameTime() {
+        return averageFrameTime;
+    }
+
+    /**
+     * Gets the average time of particles per frame.
+     *
+     * @return the average time of particles in seconds.
+     */
+    public float getAverageParticleTime() {
+        return averageParticleTime;
+    }
+}
@@ -0,0 +1,521 @@
+package tonegod.emitter.budget;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.metrics.EmitterMetrics;
+
+import java.util.Arrays;
+
+/**
+ * The global budget of particles which limits the count of live particles and/or the time of updating particles per
+ * frame across all emitters. Enabled emitters check in the {@link #getGlobal() global budget} in every update, after
+ * updating a frame the budget is distributed by {@link #update(Camera)} between checked in emitters in the order of
+ * their {@link ParticleEmitterNode#getPriority() priority} and importance (the size of an emitter on the screen).
+ * Emitters which don't fit the budget get scaled down emission and lose particles over their part of the budget.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleBudget {
+
+    /**
+     * The unlimited count of particles.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * The min radius of emitters to calculate their importance.
+     */
+    private static final float MIN_RADIUS = 0.01F;
+
+    /**
+     * The current global budget.
+     */
+    @Nullable
+    private static volatile ParticleBudget global;
+
+    /**
+     * Gets the current global budget.
+     *
+     * @return the current global budget or null.
+     */
+    public static @Nullable ParticleBudget getGlobal() {
+        return global;
+    }
+
+    /**
+     * Sets the current global budget, emitters limited by the previous budget are released.
+     *
+     * @param budget the new global budget or null.
+     */
+    public static void setGlobal(@Nullable final ParticleBudget budget) {
+
+        final ParticleBudget prev = global;
+        global = budget;
+
+        if (prev != null && prev != budget) {
+            prev.release();
+        }
+    }
+
+    /**
+     * The temp vector.
+     */
+    @NotNull
+    private final Vector3f tempVector;
+
+    /**
+     * The checked in emitters.
+     */
+    @NotNull
+    private ParticleEmitterNode[] emitters;
+
+    /**
+     * The emitters limited by the last distribution.
+     */
+    @NotNull
+    private ParticleEmitterNode[] limited;
+
+    /**
+     * The emitters which metrics were enabled by this budget and which were checked in at the last distribution.
+     */
+    @NotNull
+    private ParticleEmitterNode[] metered;
+
+    /**
+     * The importance of checked in emitters.
+     */
+    @NotNull
+    private float[] importance;
+
+    /**
+     * The demanded count of particles of checked in emitters.
+     */
+    @NotNull
+    private int[] demands;
+
+    /**
+     * The count of checked in emitters.
+     */
+    private int count;
+
+    /**
+     * The count of limited emitters.
+     */
+    private int limitedCount;
+
+    /**
+     * The count of emitters which metrics were enabled by this budget.
+     */
+    private int meteredCount;
+
+    /**
+     * The max count of live particles.
+     */
+    private int maxParticles;
+
+    /**
+     * The max time of updating particles per frame in nanoseconds.
+     */
+    private long maxUpdateTime;
+
+    /**
+     * The count of particles which were available at the last distribution.
+     */
+    private int lastParticleBudget;
+
+    /**
+     * The count of particles which were demanded at the last distribution.
+     */
+    private int lastDemandedParticles;
+
+    /**
+     * The count of particles which were killed at the last distribution.
+     */
+    private int lastKilledParticles;
+
+    public ParticleBudget() {
+        this.tempVector = new Vector3f();
+        this.emitters = new ParticleEmitterNode[16];
+        this.limited = new ParticleEmitterNode[16];
+        this.metered = new ParticleEmitterNode[16];
+        this.importance = new float[16];
+        this.demands = new int[16];
+        this.maxParticles = UNLIMITED;
+        this.lastParticleBudget = UNLIMITED;
+    }
+
+    /**
+     * Gets the max count of live particles.
+     *
+     * @return the max count of live particles.
+     */
+    public int getMaxParticles() {
+        return maxParticles;
+    }
+
+    /**
+     * Sets the max count of live particles.
+     *
+     * @param maxParticles the max count of live particles or {@link #UNLIMITED}.
+     */
+    public void setMaxParticles(final int maxParticles) {
+        this.maxParticles = Math.max(maxParticles, 0);
+    }
+
+    /**
+     * Gets the max time of updating particles per frame.
+     *
+     * @return the max time in nanoseconds or 0 if the time is unlimited.
+     */
+    public long getMaxUpdateTime() {
+        return maxUpdateTime;
+    }
+
+    /**
+     * Sets the max time of updating particles per frame. The time is taken from {@link EmitterMetrics} of emitters,
+     * so metrics are enabled for checked in emitters while the time is limited and are disabled again when the time
+     * becomes unlimited, an emitter isn't checked in to a distribution or this budget is released.
+     *
+     * @param maxUpdateTime the max time in nanoseconds or 0 if the time is unlimited.
+     */
+    public void setMaxUpdateTime(final long maxUpdateTime) {
+        this.maxUpdateTime = Math.max(maxUpdateTime, 0);
+    }
+
+    /**
+     * Gets the count of particles which were available at the last distribution.
+     *
+     * @return the count of available particles or {@link #UNLIMITED}.
+     */
+    public int getLastParticleBudget() {
+        return lastParticleBudget;
+    }
+
+    /**
+     * Gets the count of particles which were demanded by emitters at the last distribution.
+     *
+     * @return the count of demanded particles.
+     */
+    public int getLastDemandedParticles() {
+        return lastDemandedParticles;
+    }
+
+    /**
+     * Gets the count of particles which were killed at the last distribution.
+     *
+     * @return the count of killed particles.
+     */
+    public int getLastKilledParticles() {
+        return lastKilledParticles;
+    }
+
+    /**
+     * Checks in the emitter to the next distribution of the budget, it's called by emitters in every update.
+     *
+     * @param emitterNode the emitter.
+     */
+    public void checkIn(@NotNull final ParticleEmitterNode emitterNode) {
+
+        if (count == emitters.length) {
+            final int newLength = count * 2;
+            emitters = Arrays.copyOf(emitters, newLength);
+            importance = Arrays.copyOf(importance, newLength);
+            demands = Arrays.copyOf(demands, newLength);
+        }
+
+        emitters[count++] = emitterNode;
+    }
+
+    /**
+     * Distributes the budget between emitters which were checked in since the last distribution. It should be called
+     * once per frame after updating the scene, for example, by {@link ParticleBudgetAppState}.
+     *
+     * @param camera the camera to calculate importance of emitters or null to use only priority.
+     */
+    public void update(@Nullable final Camera camera) {
+
+        final ParticleEmitterNode[] emitters = this.emitters;
+        final float[] importance = this.importance;
+        final int[] demands = this.demands;
+        final int count = this.count;
+
+        final long maxUpdateTime = this.maxUpdateTime;
+
+        if (maxUpdateTime < 1 && meteredCount > 0) {
+            releaseMetered();
+        }
+
+        final int prevMeteredCount = meteredCount;
+
+        int activeParticles = 0;
+        int demandedParticles = 0;
+        long updateTime = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            final ParticleEmitterNode emitterNode = emitters[i];
+            final int demand = getDemand(emitterNode);
+
+            importance[i] = camera == null ? 0F : getImportance(emitterNode, camera);
+            demands[i] = demand;
+
+            activeParticles += emitterNode.getActiveParticleCount();
+            demandedParticles += demand;
+
+            if (maxUpdateTime < 1) {
+                continue;
+            } else if (!emitterNode.isMetricsEnabled()) {
+
+                emitterNode.setMetricsEnabled(true);
+
+                if (indexOf(metered, prevMeteredCount, emitterNode) < 0) {
+                    addMetered(emitterNode);
+                }
+            }
+
+            final EmitterMetrics metrics = emitterNode.getMetrics();
+
+            if (metrics != null) {
+                updateTime += metrics.getLastUpdateTime() + metrics.getLastMeshUpdateTime();
+            }
+        }
+
+        releaseUncheckedMetered(prevMeteredCount);
+
+        int particleBudget = maxParticles;
+
+        if (maxUpdateTime > 0 && updateTime > 0 && activeParticles > 0) {
+            final double timePerParticle = (double) updateTime / activeParticles;
+            particleBudget = (int) Math.min(particleBudget, maxUpdateTime / timePerParticle);
+        }
+
+        sort(emitters, importance, demands, count);
+        releaseLimited();
+
+        int availableParticles = particleBudget;
+        int killedParticles = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            final ParticleEmitterNode emitterNode = emitters[i];
+            final int demand = demands[i];
+
+            if (demand <= availableParticles) {
+                availableParticles -= demand;
+                continue;
+            }
+
+            final int allowed = availableParticles;
+            availableParticles = 0;
+
+            emitterNode.setEmissionScale(demand == 0 ? 1F : (float) allowed / demand);
+            emitterNode.setParticleLimit(allowed);
+
+            final int excess = emitterNode.getActiveParticleCount() - allowed;
+
+            if (excess > 0) {
+                killedParticles += emitterNode.killParticles(excess);
+            }
+
+            addLimited(emitterNode);
+        }
+
+        Arrays.fill(emitters, 0, count, null);
+
+        this.count = 0;
+        this.lastParticleBudget = particleBudget;
+        this.lastDemandedParticles = demandedParticles;
+        this.lastKilledParticles = killedParticles;
+    }
+
+    /**
+     * Releases all emitters which were limited by this budget and disables metrics which were enabled by this budget.
+     */
+    public void release() {
+        releaseLimited();
+        releaseMetered();
+        Arrays.fill(emitters, 0, count, null);
+        count = 0;
+    }
+
+    private void addLimited(@NotNull final ParticleEmitterNode emitterNode) {
+
+        if (limitedCount == limited.length) {
+            limited = Arrays.copyOf(limited, limitedCount * 2);
+        }
+
+        limited[limitedCount++] = emitterNode;
+    }
+
+    private void addMetered(@NotNull final ParticleEmitterNode emitterNode) {
+
+        if (meteredCount == metered.length) {
+            metered = Arrays.copyOf(metered, meteredCount * 2);
+        }
+
+        metered[meteredCount++] = emitterNode;
+    }
+
+    private void releaseMetered() {
+
+        for (int i = 0; i < meteredCount; i++) {
+            metered[i].setMetricsEnabled(false);
+            metered[i] = null;
+        }
+
+        meteredCount = 0;
+    }
+
+    /**
+     * Disables metrics of emitters which were enabled by this budget before this distribution, but weren't checked in
+     * to this distribution, so finished or detached emitters aren't kept by this budget.
+     *
+     * @param prevMeteredCount the count of emitters which metrics were enabled before this distribution.
+     */
+    private void releaseUncheckedMetered(final int prevMeteredCount) {
+
+        final ParticleEmitterNode[] metered = this.metered;
+        final int meteredCount = this.meteredCount;
+
+        int newCount = 0;
+
+        for (int i = 0; i < meteredCount; i++) {
+
+            final ParticleEmitterNode emitterNode = metered[i];
+            metered[i] = null;
+
+            // emitters which were added by this distribution are checked in
+            if (i >= prevMeteredCount || indexOf(emitters, count, emitterNode) >= 0) {
+                metered[newCount++] = emitterNode;
+            } else {
+                emitterNode.setMetricsEnabled(false);
+            }
+        }
+
+        this.meteredCount = newCount;
+    }
+
+    private void releaseLimited() {
+
+        for (int i = 0; i < limitedCount; i++) {
+            final ParticleEmitterNode emitterNode = limited[i];
+            emitterNode.setEmissionScale(1F);
+            emitterNode.setParticleLimit(UNLIMITED);
+            limited[i] = null;
+        }
+
+        limitedCount = 0;
+    }
+
+    /**
+     * Gets the count of particles which the emitter needs without limits. The count is estimated by emission settings
+     * to not depend on the current limit of the emitter.
+     *
+     * @param emitterNode the emitter.
+     * @return the demanded count of particles.
+     */
+    protected int getDemand(@NotNull final ParticleEmitterNode emitterNode) {
+        final float perSecond = emitterNode.getEmissionsPerSecond() * emitterNode.getParticlesPerEmission();
+        final float demand = FastMath.ceil(perSecond * emitterNode.getLifeMax());
+        return (int) Math.min(emitterNode.getMaxParticles(), Math.max(demand, emitterNode.getActiveParticleCount()));
+    }
+
+    /**
+     * Gets the importance of the emitter for the camera, it's the approximate size of particles of the emitter on the
+     * screen or 0 if the emitter is out of the camera.
+     *
+     * @param emitterNode the emitter.
+     * @param camera      the camera.
+     * @return the importance of the emitter.
+     */
+    protected float getImportance(@NotNull final ParticleEmitterNode emitterNode, @NotNull final Camera camera) {
+
+        final BoundingVolume bound = emitterNode.getWorldBound();
+
+        if (bound == null) {
+            return 0F;
+        }
+
+        final int planeState = camera.getPlaneState();
+        camera.setPlaneState(0);
+        final boolean visible = camera.contains(bound) != Camera.FrustumIntersect.Outside;
+        camera.setPlaneState(planeState);
+
+        if (!visible) {
+            return 0F;
+        }
+
+        float radius = 1F;
+
+        if (bound instanceof BoundingSphere) {
+            radius = ((BoundingSphere) bound).getRadius();
+        } else if (bound instanceof BoundingBox) {
+            radius = ((BoundingBox) bound).getExtent(tempVector).length();
+        }
+
+        // empty bounds of not yet emitted particles still should be ordered by distance
+        radius = Math.max(radius, MIN_RADIUS);
+
+        final float distance = camera.getLocation().distance(bound.getCenter()) - radius;
+        return radius / Math.max(distance, camera.getFrustumNear());
+    }
+
+    /**
+     * Finds the index of the emitter in the first elements of the array.
+     *
+     * @param emitters    the array of emitters.
+     * @param count       the count of elements to check.
+     * @param emitterNode the emitter.
+     * @return the index of the emitter or -1.
+     */
+    private static int indexOf(@NotNull final ParticleEmitterNode[] emitters, final int count,
+                               @NotNull final ParticleEmitterNode emitterNode) {
+
+        for (int i = 0; i < count; i++) {
+            if (emitters[i] == emitterNode) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Sorts emitters by priority and importance in descending order.
+     */
+    private static void sort(@NotNull final ParticleEmitterNode[] emitters, @NotNull final float[] importance,
+                             @NotNull final int[] demands, final int count) {
+
+        for (int i = 1; i < count; i++) {
+
+            final ParticleEmitterNode emitterNode = emitters[i];
+            final float currentImportance = importance[i];
+            final int demand = demands[i];
+            final int priority = emitterNode.getPriority();
+
+            int j = i - 1;
+
+            for (; j >= 0; j--) {
+
+                final int otherPriority = emitters[j].getPriority();
+
+                if (otherPriority > priority || (otherPriority == priority && importance[j] >= currentImportance)) {
+                    break;
+                }
+
+                emitters[j + 1] = emitters[j];
+                importance[j + 1] = importance[j];
+                demands[j + 1] = demands[j];
+            }
+
+            emitters[j + 1] = emitterNode;
+            importance[j + 1] = currentImportance;
+            demands[j + 1] = demand;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tonegod.emitter.budget;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The application state which installs the {@link ParticleBudget} as the global budget and distributes it after
+ * updating the scene in every frame.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleBudgetAppState extends AbstractAppState {
+
+    /**
+     * The budget.
+     */
+    @NotNull
+    private final ParticleBudget budget;
+
+    /**
+     * The camera to calculate importance of emitters.
+     */
+    @Nullable
+    private Camera camera;
+
+    public ParticleBudgetAppState(@NotNull final ParticleBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the budget.
+     *
+     * @return the budget.
+     */
+    public @NotNull ParticleBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the camera to calculate importance of emitters.
+     *
+     * @return the camera.
+     */
+    public @Nullable Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Sets the camera to calculate importance of emitters, by default it's the camera of the application.
+     *
+     * @param camera the camera.
+     */
+    public void setCamera(@Nullable final Camera camera) {
+        this.camera = camera;
+    }
+
+    @Override
+    public void initialize(@NotNull final AppStateManager stateManager, @NotNull final Application app) {
+        super.initialize(stateManager, app);
+        if (camera == null) camera = app.getCamera();
+        ParticleBudget.setGlobal(budget);
+    }
+
+    @Override
+    public void render(@NotNull final RenderManager renderManager) {
+        super.render(renderManager);
+        budget.update(camera);
+    }
+
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        if (ParticleBudget.getGlobal() == budget) ParticleBudget.setGlobal(null);
+        budget.release();
+    }
+}
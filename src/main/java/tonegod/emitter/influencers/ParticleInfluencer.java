@@ -7,7 +7,9 @@ import org.jetbrains.annotations.NotNull;
 import tonegod.emitter.particle.ParticleData;
 
 /**
- * The interface for implementing particle influencers.
+ * The interface for implementing particle influencers. Methods {@link #update(ParticleData, float)}, {@link
+ * #initialize(ParticleData)} and {@link #reset(ParticleData)} are called per particle, so they must not allocate new
+ * objects once particle data of the influencer is initialized.
  *
  * @author t0neg0d, JavaSaBr
  */
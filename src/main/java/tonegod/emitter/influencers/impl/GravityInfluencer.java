@@ -139,14 +139,12 @@ public class GravityInfluencer extends AbstractParticleInfluencer {
 
                 final ParticleEmitterNode emitterNode = particleData.getEmitterNode();
                 final EmitterMesh emitterShape = emitterNode.getEmitterShape();
-                emitterShape.setNext(particleData.triangleIndex);
+                emitterShape.getEmissionPoint(particleData, store);
 
                 if (emitterNode.isRandomEmissionPoint()) {
-                    store.set(emitterShape.getNextTranslation()
-                            .addLocal(particleData.getRandomOffset()));
+                    store.addLocal(particleData.getRandomOffset());
                 } else {
-                    store.set(emitterShape.getNextTranslation())
-                            .subtractLocal(particleData.getPosition())
+                    store.subtractLocal(particleData.getPosition())
                             .multLocal(particleData.getInitialLength() * getMagnitude())
                             .multLocal(tpf);
                 }
@@ -159,7 +157,7 @@ public class GravityInfluencer extends AbstractParticleInfluencer {
                 final ParticleEmitterNode emitterNode = particleData.getEmitterNode();
                 final EmitterMesh emitterShape = emitterNode.getEmitterShape();
 
-                store.set(emitterShape.getMesh().getBound().getCenter())
+                emitterShape.getShapeCenter(store)
                         .subtractLocal(particleData.getPosition())
                         .multLocal(particleData.getInitialLength() * getMagnitude())
                         .multLocal(tpf);
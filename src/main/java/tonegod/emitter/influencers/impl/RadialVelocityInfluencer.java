@@ -266,7 +266,7 @@ public class RadialVelocityInfluencer extends AbstractParticleInfluencer {
                 .multLocal(particleData.getInitialLength() * radialPull)
                 .multLocal(tpf);
 
-        processUpAlignment(emitterNode, emitterShape);
+        processUpAlignment(particleData, emitterNode, emitterShape);
 
         up.set(store).crossLocal(upStore)
                 .normalizeLocal()
@@ -290,13 +290,15 @@ public class RadialVelocityInfluencer extends AbstractParticleInfluencer {
     /**
      * Handle up alignment.
      */
-    private void processUpAlignment(@NotNull final ParticleEmitterNode emitterNode,
+    private void processUpAlignment(@NotNull final ParticleData particleData,
+                                    @NotNull final ParticleEmitterNode emitterNode,
                                     @NotNull final EmitterMesh emitterShape) {
 
         switch (getRadialUpAlignment()) {
             case NORMAL: {
                 inverseRotation.set(emitterNode.getLocalRotation()).inverseLocal();
-                upStore.set(inverseRotation.mult(upStore.set(emitterShape.getNormal()), tempStore));
+                emitterShape.getEmissionNormal(particleData, upStore);
+                upStore.set(inverseRotation.mult(upStore, tempStore));
                 break;
             }
             case UNIT_X: {
@@ -347,19 +349,16 @@ public class RadialVelocityInfluencer extends AbstractParticleInfluencer {
         switch (getRadialPullAlignment()) {
             case EMISSION_POINT: {
 
-                emitterShape.setNext(particleData.triangleIndex);
+                emitterShape.getEmissionPoint(particleData, store);
 
                 if (emitterNode.isRandomEmissionPoint()) {
-                    store.set(emitterShape.getNextTranslation()
-                            .addLocal(particleData.getRandomOffset()));
-                } else {
-                    store.set(emitterShape.getNextTranslation());
+                    store.addLocal(particleData.getRandomOffset());
                 }
 
                 break;
             }
             case EMITTER_CENTER: {
-                store.set(emitterShape.getMesh().getBound().getCenter());
+                emitterShape.getShapeCenter(store);
                 break;
             }
         }
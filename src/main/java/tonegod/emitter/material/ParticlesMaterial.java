@@ -26,6 +26,16 @@ public class ParticlesMaterial {
      */
     public static final String PROP_QUADRATIC = "Quadratic";
 
+    /**
+     * The constant PROP_INSTANCED_QUADS.
+     */
+    public static final String PROP_INSTANCED_QUADS = "InstancedQuads";
+
+    /**
+     * The constant PROP_CAMERA_BILLBOARD.
+     */
+    public static final String PROP_CAMERA_BILLBOARD = "CameraBillboard";
+
     /**
      * The material of particles.
      */
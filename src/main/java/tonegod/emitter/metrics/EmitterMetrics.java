@@ -0,0 +1,384 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The counters and timers of an emitter. Metrics are collected only by emitters with enabled metrics, see {@link
+ * ParticleEmitterNode#setMetricsEnabled(boolean)}, all of them are also summed to the {@link #getGlobal() global
+ * metrics}.
+ * <p>
+ * Values are written by the update thread without synchronization, so readers from other threads can see slightly
+ * stale values.
+ *
+ * @author JavaSaBr
+ */
+public class EmitterMetrics implements EmitterMetricsMXBean {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * The metrics of all emitters.
+     */
+    @NotNull
+    private static final EmitterMetrics GLOBAL = new EmitterMetrics(null);
+
+    /**
+     * The registered metrics of emitters.
+     */
+    @NotNull
+    private static final List<EmitterMetrics> REGISTERED = new ArrayList<>();
+
+    /**
+     * The current sink.
+     */
+    @Nullable
+    private static EmitterMetricsSink sink;
+
+    /**
+     * The flag of enabling metrics for new emitters.
+     */
+    private static volatile boolean enabledByDefault;
+
+    /**
+     * Gets the metrics of all emitters.
+     *
+     * @return the global metrics.
+     */
+    public static @NotNull EmitterMetrics getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Sets the sink to publish metrics, all already registered metrics are moved to the new sink.
+     *
+     * @param newSink the new sink or null.
+     */
+    public static synchronized void setSink(@Nullable final EmitterMetricsSink newSink) {
+
+        final EmitterMetricsSink prevSink = sink;
+
+        if (prevSink != null) {
+            prevSink.unregister(GLOBAL);
+            for (final EmitterMetrics metrics : REGISTERED) {
+                prevSink.unregister(metrics);
+            }
+        }
+
+        sink = newSink;
+
+        if (newSink != null) {
+            newSink.register(GLOBAL);
+            for (final EmitterMetrics metrics : REGISTERED) {
+                newSink.register(metrics);
+            }
+        }
+    }
+
+    /**
+     * Gets the current sink.
+     *
+     * @return the current sink or null.
+     */
+    public static synchronized @Nullable EmitterMetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Sets the flag of enabling metrics for new emitters.
+     *
+     * @param enabledByDefault true if new emitters should collect metrics.
+     */
+    public static void setEnabledByDefault(final boolean enabledByDefault) {
+        EmitterMetrics.enabledByDefault = enabledByDefault;
+    }
+
+    /**
+     * Returns true if new emitters should collect metrics.
+     *
+     * @return true if new emitters should collect metrics.
+     */
+    public static boolean isEnabledByDefault() {
+        return enabledByDefault;
+    }
+
+    /**
+     * Registers metrics of an emitter, its particles are added to the global metrics. Emitters register their metrics
+     * only while they are attached to a parent, so detached emitters aren't held by the registry.
+     *
+     * @param metrics the metrics.
+     */
+    public static synchronized void register(@NotNull final EmitterMetrics metrics) {
+
+        if (REGISTERED.contains(metrics)) {
+            return;
+        }
+
+        REGISTERED.add(metrics);
+
+        GLOBAL.activeParticles += metrics.activeParticles;
+
+        if (sink != null) {
+            sink.register(metrics);
+        }
+    }
+
+    /**
+     * Returns true if the metrics of an emitter are registered.
+     *
+     * @param metrics the metrics.
+     * @return true if the metrics are registered.
+     */
+    public static synchronized boolean isRegistered(@NotNull final EmitterMetrics metrics) {
+        return REGISTERED.contains(metrics);
+    }
+
+    /**
+     * Unregisters metrics of an emitter, its particles are removed from the global metrics.
+     *
+     * @param metrics the metrics.
+     */
+    public static synchronized void unregister(@NotNull final EmitterMetrics metrics) {
+
+        if (!REGISTERED.remove(metrics)) {
+            return;
+        }
+
+        GLOBAL.activeParticles -= metrics.activeParticles;
+
+        if (sink != null) {
+            sink.unregister(metrics);
+        }
+    }
+
+    /**
+     * The emitter or null for the global metrics.
+     */
+    @Nullable
+    private final ParticleEmitterNode emitterNode;
+
+    private int activeParticles;
+    private int peakParticles;
+
+    private long emittedParticles;
+    private long updates;
+
+    private long updateTime;
+    private long lastUpdateTime;
+    private long emitTime;
+    private long lastEmitTime;
+    private long influencersTime;
+    private long lastInfluencersTime;
+    private long meshUpdateTime;
+    private long lastMeshUpdateTime;
+    private long uploadedBytes;
+    private long lastUploadedBytes;
+
+    /**
+     * The count of emitted particles in the current second.
+     */
+    private int windowEmitted;
+
+    /**
+     * The start time of the current second.
+     */
+    private long windowStart;
+
+    private float emissionsPerSecond;
+
+    public EmitterMetrics(@Nullable final ParticleEmitterNode emitterNode) {
+        this.emitterNode = emitterNode;
+        this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Records an update of the emitter. For internal use.
+     *
+     * @param time            the time of the end of the update.
+     * @param updateTime      the time of the update.
+     * @param influencersTime the time of updating particles by influencers.
+     * @param emitTime        the time of emitting particles.
+     * @param emitted         the count of emitted particles.
+     * @param activeParticles the count of active particles.
+     */
+    public void recordUpdate(final long time, final long updateTime, final long influencersTime,
+                             final long emitTime, final int emitted, final int activeParticles) {
+
+        final EmitterMetrics global = GLOBAL;
+        global.activeParticles += activeParticles - this.activeParticles;
+        global.peakParticles = Math.max(global.peakParticles, global.activeParticles);
+        global.addUpdate(time, updateTime, influencersTime, emitTime, emitted);
+
+        this.activeParticles = activeParticles;
+        this.peakParticles = Math.max(peakParticles, activeParticles);
+        this.lastUpdateTime = updateTime;
+        this.lastInfluencersTime = influencersTime;
+        this.lastEmitTime = emitTime;
+        addUpdate(time, updateTime, influencersTime, emitTime, emitted);
+    }
+
+    private void addUpdate(final long time, final long updateTime, final long influencersTime, final long emitTime,
+                           final int emitted) {
+
+        this.updates++;
+        this.updateTime += updateTime;
+        this.influencersTime += influencersTime;
+        this.emitTime += emitTime;
+        this.emittedParticles += emitted;
+        this.windowEmitted += emitted;
+
+        final long windowTime = time - windowStart;
+
+        if (windowTime >= NANOS_PER_SECOND) {
+            emissionsPerSecond = windowEmitted * (float) NANOS_PER_SECOND / windowTime;
+            windowEmitted = 0;
+            windowStart = time;
+        }
+    }
+
+    /**
+     * Records an update of the particle mesh. For internal use.
+     *
+     * @param meshUpdateTime the time of filling the mesh.
+     * @param uploadedBytes  the size of vertex data which was marked to upload.
+     */
+    public void recordMeshUpdate(final long meshUpdateTime, final long uploadedBytes) {
+
+        final EmitterMetrics global = GLOBAL;
+        global.meshUpdateTime += meshUpdateTime;
+        global.uploadedBytes += uploadedBytes;
+
+        this.lastMeshUpdateTime = meshUpdateTime;
+        this.lastUploadedBytes = uploadedBytes;
+        this.meshUpdateTime += meshUpdateTime;
+        this.uploadedBytes += uploadedBytes;
+    }
+
+    /**
+     * Gets the emitter of these metrics.
+     *
+     * @return the emitter or null for the global metrics.
+     */
+    public @Nullable ParticleEmitterNode getEmitterNode() {
+        return emitterNode;
+    }
+
+    @Override
+    public String getName() {
+        return emitterNode == null ? "All Emitters" : emitterNode.getName();
+    }
+
+    @Override
+    public int getActiveParticles() {
+        return activeParticles;
+    }
+
+    @Override
+    public int getPeakParticles() {
+        return peakParticles;
+    }
+
+    @Override
+    public long getEmittedParticles() {
+        return emittedParticles;
+    }
+
+    @Override
+    public float getEmissionsPerSecond() {
+        return emissionsPerSecond;
+    }
+
+    @Override
+    public long getUpdates() {
+        return updates;
+    }
+
+    @Override
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    @Override
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    @Override
+    public long getEmitTime() {
+        return emitTime;
+    }
+
+    @Override
+    public long getLastEmitTime() {
+        return lastEmitTime;
+    }
+
+    @Override
+    public long getInfluencersTime() {
+        return influencersTime;
+    }
+
+    @Override
+    public long getLastInfluencersTime() {
+        return lastInfluencersTime;
+    }
+
+    @Override
+    public long getMeshUpdateTime() {
+        return meshUpdateTime;
+    }
+
+    @Override
+    public long getLastMeshUpdateTime() {
+        return lastMeshUpdateTime;
+    }
+
+    @Override
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    @Override
+    public long getLastUploadedBytes() {
+        return lastUploadedBytes;
+    }
+
+    @Override
+    public void reset() {
+        peakParticles = activeParticles;
+        emittedParticles = 0;
+        updates = 0;
+        updateTime = 0;
+        lastUpdateTime = 0;
+        emitTime = 0;
+        lastEmitTime = 0;
+        influencersTime = 0;
+        lastInfluencersTime = 0;
+        meshUpdateTime = 0;
+        lastMeshUpdateTime = 0;
+        uploadedBytes = 0;
+        lastUploadedBytes = 0;
+        windowEmitted = 0;
+        windowStart = System.nanoTime();
+        emissionsPerSecond = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EmitterMetrics{" +
+                "name=" + getName() +
+                ", activeParticles=" + activeParticles +
+                ", peakParticles=" + peakParticles +
+                ", emissionsPerSecond=" + emissionsPerSecond +
+                ", updateTime=" + updateTime +
+                ", emitTime=" + emitTime +
+                ", influencersTime=" + influencersTime +
+                ", meshUpdateTime=" + meshUpdateTime +
+                ", uploadedBytes=" + uploadedBytes +
+                '}';
+    }
+}
@@ -0,0 +1,127 @@
+package tonegod.emitter.metrics;
+
+/**
+ * The management interface of metrics of an emitter or of all emitters.
+ *
+ * @author JavaSaBr
+ */
+public interface EmitterMetricsMXBean {
+
+    /**
+     * Gets the name of the emitter.
+     *
+     * @return the name of the emitter.
+     */
+    String getName();
+
+    /**
+     * Gets the count of active particles.
+     *
+     * @return the count of active particles.
+     */
+    int getActiveParticles();
+
+    /**
+     * Gets the peak count of active particles.
+     *
+     * @return the peak count of active particles.
+     */
+    int getPeakParticles();
+
+    /**
+     * Gets the total count of emitted particles.
+     *
+     * @return the total count of emitted particles.
+     */
+    long getEmittedParticles();
+
+    /**
+     * Gets the count of actually emitted particles per second during the last second.
+     *
+     * @return the count of emitted particles per second.
+     */
+    float getEmissionsPerSecond();
+
+    /**
+     * Gets the count of updates. An emitter can skip updates in some frames and the global metrics count updates of
+     * all emitters, so it isn't the count of frames.
+     *
+     * @return the count of updates.
+     */
+    long getUpdates();
+
+    /**
+     * Gets the total time of updating the emitter in nanoseconds.
+     *
+     * @return the total time of updating.
+     */
+    long getUpdateTime();
+
+    /**
+     * Gets the time of updating the emitter in the last frame in nanoseconds.
+     *
+     * @return the last time of updating.
+     */
+    long getLastUpdateTime();
+
+    /**
+     * Gets the total time of emitting particles in nanoseconds.
+     *
+     * @return the total time of emitting.
+     */
+    long getEmitTime();
+
+    /**
+     * Gets the time of emitting particles in the last frame in nanoseconds.
+     *
+     * @return the last time of emitting.
+     */
+    long getLastEmitTime();
+
+    /**
+     * Gets the total time of updating particles by influencers in nanoseconds.
+     *
+     * @return the total time of influencers.
+     */
+    long getInfluencersTime();
+
+    /**
+     * Gets the time of updating particles by influencers in the last frame in nanoseconds.
+     *
+     * @return the last time of influencers.
+     */
+    long getLastInfluencersTime();
+
+    /**
+     * Gets the total time of filling the particle mesh in nanoseconds.
+     *
+     * @return the total time of filling the mesh.
+     */
+    long getMeshUpdateTime();
+
+    /**
+     * Gets the time of filling the particle mesh in the last frame in nanoseconds.
+     *
+     * @return the last time of filling the mesh.
+     */
+    long getLastMeshUpdateTime();
+
+    /**
+     * Gets the total size of vertex data which was marked to upload in bytes.
+     *
+     * @return the total size of vertex data.
+     */
+    long getUploadedBytes();
+
+    /**
+     * Gets the size of vertex data which was marked to upload in the last frame in bytes.
+     *
+     * @return the last size of vertex data.
+     */
+    long getLastUploadedBytes();
+
+    /**
+     * Resets all counters and timers.
+     */
+    void reset();
+}
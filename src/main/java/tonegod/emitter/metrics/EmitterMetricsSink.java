@@ -0,0 +1,26 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The sink to publish metrics of emitters, for example, to JMX or to a metrics registry. Metrics are registered once
+ * and the sink reads their values when it needs them.
+ *
+ * @author JavaSaBr
+ */
+public interface EmitterMetricsSink {
+
+    /**
+     * Registers metrics of an emitter or of all emitters.
+     *
+     * @param metrics the metrics.
+     */
+    void register(@NotNull EmitterMetrics metrics);
+
+    /**
+     * Unregisters metrics of an emitter.
+     *
+     * @param metrics the metrics.
+     */
+    void unregister(@NotNull EmitterMetrics metrics);
+}
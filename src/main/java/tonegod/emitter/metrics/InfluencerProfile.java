@@ -0,0 +1,126 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.influencers.ParticleInfluencer;
+
+/**
+ * The cumulative time and call counts of an influencer collected by {@link InfluencerProfiler}.
+ *
+ * @author JavaSaBr
+ */
+public final class InfluencerProfile {
+
+    /**
+     * The influencer.
+     */
+    @NotNull
+    private final ParticleInfluencer influencer;
+
+    long initializeTime;
+    long initializeCalls;
+    long updateTime;
+    long updateCalls;
+    long resetTime;
+    long resetCalls;
+
+    InfluencerProfile(@NotNull final ParticleInfluencer influencer) {
+        this.influencer = influencer;
+    }
+
+    /**
+     * Gets the influencer.
+     *
+     * @return the influencer.
+     */
+    public @NotNull ParticleInfluencer getInfluencer() {
+        return influencer;
+    }
+
+    /**
+     * Gets the total time of initializing particles in nanoseconds.
+     *
+     * @return the total time of initializing particles.
+     */
+    public long getInitializeTime() {
+        return initializeTime;
+    }
+
+    /**
+     * Gets the count of initializing particles.
+     *
+     * @return the count of initializing particles.
+     */
+    public long getInitializeCalls() {
+        return initializeCalls;
+    }
+
+    /**
+     * Gets the total time of updating particles in nanoseconds.
+     *
+     * @return the total time of updating particles.
+     */
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    /**
+     * Gets the count of updating particles.
+     *
+     * @return the count of updating particles.
+     */
+    public long getUpdateCalls() {
+        return updateCalls;
+    }
+
+    /**
+     * Gets the total time of resetting particles in nanoseconds.
+     *
+     * @return the total time of resetting particles.
+     */
+    public long getResetTime() {
+        return resetTime;
+    }
+
+    /**
+     * Gets the count of resetting particles.
+     *
+     * @return the count of resetting particles.
+     */
+    public long getResetCalls() {
+        return resetCalls;
+    }
+
+    /**
+     * Gets the total time of all calls in nanoseconds.
+     *
+     * @return the total time of all calls.
+     */
+    public long getTotalTime() {
+        return initializeTime + updateTime + resetTime;
+    }
+
+    /**
+     * Resets all counters.
+     */
+    void clear() {
+        initializeTime = 0;
+        initializeCalls = 0;
+        updateTime = 0;
+        updateCalls = 0;
+        resetTime = 0;
+        resetCalls = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "InfluencerProfile{" +
+                "influencer=" + influencer.getName() +
+                ", initializeTime=" + initializeTime +
+                ", initializeCalls=" + initializeCalls +
+                ", updateTime=" + updateTime +
+                ", updateCalls=" + updateCalls +
+                ", resetTime=" + resetTime +
+                ", resetCalls=" + resetCalls +
+                '}';
+    }
+}
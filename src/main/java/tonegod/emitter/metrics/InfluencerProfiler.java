@@ -0,0 +1,211 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.influencers.ParticleInfluencer;
+import tonegod.emitter.particle.ParticleData;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The profiler of influencers of an emitter which records cumulative time and call counts of initializing, updating
+ * and resetting particles by each influencer, see {@link ParticleEmitterNode#setInfluencerProfiling(boolean)}.
+ *
+ * @author JavaSaBr
+ */
+public final class InfluencerProfiler {
+
+    @NotNull
+    private static final InfluencerProfile[] EMPTY_PROFILES = new InfluencerProfile[0];
+
+    /**
+     * The profiles of all profiled influencers.
+     */
+    @NotNull
+    private final Map<ParticleInfluencer, InfluencerProfile> profiles;
+
+    /**
+     * The profiles of all profiled influencers in the order of profiling.
+     */
+    @NotNull
+    private final List<InfluencerProfile> orderedProfiles;
+
+    /**
+     * The last profiled array of influencers.
+     */
+    @NotNull
+    private ParticleInfluencer[] influencers;
+
+    /**
+     * The profiles of the last profiled array of influencers.
+     */
+    @NotNull
+    private InfluencerProfile[] currentProfiles;
+
+    public InfluencerProfiler() {
+        this.profiles = new IdentityHashMap<>();
+        this.orderedProfiles = new ArrayList<>();
+        this.influencers = new ParticleInfluencer[0];
+        this.currentProfiles = EMPTY_PROFILES;
+    }
+
+    /**
+     * Initializes the particle by the influencers.
+     *
+     * @param influencers  the influencers.
+     * @param particleData the particle.
+     */
+    public void initialize(@NotNull final ParticleInfluencer[] influencers, @NotNull final ParticleData particleData) {
+
+        final InfluencerProfile[] profiles = getProfiles(influencers);
+
+        for (int i = 0; i < influencers.length; i++) {
+            final long startTime = System.nanoTime();
+            influencers[i].initialize(particleData);
+            final InfluencerProfile profile = profiles[i];
+            profile.initializeTime += System.nanoTime() - startTime;
+            profile.initializeCalls++;
+        }
+    }
+
+    /**
+     * Updates the particle by the influencers.
+     *
+     * @param influencers  the influencers.
+     * @param particleData the particle.
+     * @param tpf          the time per frame.
+     */
+    public void update(@NotNull final ParticleInfluencer[] influencers, @NotNull final ParticleData particleData,
+                       final float tpf) {
+
+        final InfluencerProfile[] profiles = getProfiles(influencers);
+
+        for (int i = 0; i < influencers.length; i++) {
+            final long startTime = System.nanoTime();
+            influencers[i].update(particleData, tpf);
+            final InfluencerProfile profile = profiles[i];
+            profile.updateTime += System.nanoTime() - startTime;
+            profile.updateCalls++;
+        }
+    }
+
+    /**
+     * Resets the particle by the influencers.
+     *
+     * @param influencers  the influencers.
+     * @param particleData the particle.
+     */
+    public void reset(@NotNull final ParticleInfluencer[] influencers, @NotNull final ParticleData particleData) {
+
+        final InfluencerProfile[] profiles = getProfiles(influencers);
+
+        for (int i = 0; i < influencers.length; i++) {
+            final long startTime = System.nanoTime();
+            influencers[i].reset(particleData);
+            final InfluencerProfile profile = profiles[i];
+            profile.resetTime += System.nanoTime() - startTime;
+            profile.resetCalls++;
+        }
+    }
+
+    /**
+     * Gets profiles of the influencers, the array of influencers of an emitter is changed only when the list of
+     * influencers is changed, so profiles are looked up only in this case.
+     *
+     * @param influencers the influencers.
+     * @return the profiles.
+     */
+    private @NotNull InfluencerProfile[] getProfiles(@NotNull final ParticleInfluencer[] influencers) {
+
+        if (influencers == this.influencers) {
+            return currentProfiles;
+        }
+
+        final InfluencerProfile[] result = new InfluencerProfile[influencers.length];
+
+        for (int i = 0; i < influencers.length; i++) {
+
+            final ParticleInfluencer influencer = influencers[i];
+            InfluencerProfile profile = profiles.get(influencer);
+
+            if (profile == null) {
+                profile = new InfluencerProfile(influencer);
+                profiles.put(influencer, profile);
+                orderedProfiles.add(profile);
+            }
+
+            result[i] = profile;
+        }
+
+        this.influencers = influencers;
+        this.currentProfiles = result;
+
+        return result;
+    }
+
+    /**
+     * Gets profiles of all profiled influencers including already removed from the emitter.
+     *
+     * @return the list of profiles.
+     */
+    public @NotNull List<InfluencerProfile> getProfiles() {
+        return new ArrayList<>(orderedProfiles);
+    }
+
+    /**
+     * Gets the profile of the influencer.
+     *
+     * @param influencer the influencer.
+     * @return the profile or null if the influencer wasn't profiled.
+     */
+    public @Nullable InfluencerProfile getProfile(@NotNull final ParticleInfluencer influencer) {
+        return profiles.get(influencer);
+    }
+
+    /**
+     * Resets all collected profiles.
+     */
+    public void reset() {
+        for (final InfluencerProfile profile : orderedProfiles) {
+            profile.clear();
+        }
+    }
+
+    /**
+     * Builds the text report of collected profiles, one line per influencer with total time in milliseconds, call
+     * counts and average time per call in nanoseconds.
+     *
+     * @return the text report.
+     */
+    public @NotNull String report() {
+
+        final StringBuilder builder = new StringBuilder();
+
+        for (final InfluencerProfile profile : orderedProfiles) {
+            builder.append(profile.getInfluencer().getName())
+                    .append(": total ").append(formatMillis(profile.getTotalTime())).append("ms");
+            appendCalls(builder, "initialize", profile.getInitializeTime(), profile.getInitializeCalls());
+            appendCalls(builder, "update", profile.getUpdateTime(), profile.getUpdateCalls());
+            appendCalls(builder, "reset", profile.getResetTime(), profile.getResetCalls());
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+
+    private static void appendCalls(@NotNull final StringBuilder builder, @NotNull final String name,
+                                    final long time, final long calls) {
+        builder.append(", ").append(name).append(' ').append(formatMillis(time)).append("ms/")
+                .append(calls).append(" calls (")
+                .append(calls == 0 ? 0 : time / calls).append("ns/call)");
+    }
+
+    private static @NotNull String formatMillis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000D);
+    }
+}
@@ -0,0 +1,80 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The sink to publish metrics of emitters as MBeans of the platform MBean server with names like
+ * "tonegod.emitter:type=EmitterMetrics,id=1", the metrics of all emitters have the id "global".
+ * <pre>
+ * EmitterMetrics.setSink(new JmxEmitterMetricsSink());
+ * EmitterMetrics.setEnabledByDefault(true);
+ * </pre>
+ *
+ * @author JavaSaBr
+ */
+public class JmxEmitterMetricsSink implements EmitterMetricsSink {
+
+    /**
+     * The names of registered MBeans.
+     */
+    @NotNull
+    private final Map<EmitterMetrics, ObjectName> names;
+
+    /**
+     * The MBean server.
+     */
+    @NotNull
+    private final MBeanServer server;
+
+    /**
+     * The next id of MBeans.
+     */
+    private int nextId;
+
+    public JmxEmitterMetricsSink() {
+        this.names = new IdentityHashMap<>();
+        this.server = ManagementFactory.getPlatformMBeanServer();
+        this.nextId = 1;
+    }
+
+    @Override
+    public synchronized void register(@NotNull final EmitterMetrics metrics) {
+
+        if (names.containsKey(metrics)) {
+            return;
+        }
+
+        final String id = metrics == EmitterMetrics.getGlobal() ? "global" : String.valueOf(nextId++);
+
+        try {
+            final ObjectName name = new ObjectName("tonegod.emitter:type=EmitterMetrics,id=" + id);
+            server.registerMBean(metrics, name);
+            names.put(metrics, name);
+        } catch (final JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized void unregister(@NotNull final EmitterMetrics metrics) {
+
+        final ObjectName name = names.remove(metrics);
+
+        if (name == null) {
+            return;
+        }
+
+        try {
+            server.unregisterMBean(name);
+        } catch (final JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
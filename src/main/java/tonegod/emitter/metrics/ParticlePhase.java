@@ -0,0 +1,37 @@
+package tonegod.emitter.metrics;
+
+/**
+ * The list of traced phases of emitters, see {@link ParticleTracer}.
+ *
+ * @author JavaSaBr
+ */
+public enum ParticlePhase {
+    /**
+     * Updating and emitting particles in a frame, the value is the count of active particles.
+     */
+    SIMULATION,
+    /**
+     * Emitting particles in a frame, the value is the count of emitted particles.
+     */
+    EMISSION,
+    /**
+     * Filling the particle mesh, the value is the size of vertex data which was marked to upload.
+     */
+    MESH_FILL,
+    /**
+     * Creating particles, the value is the max count of particles.
+     */
+    INIT_PARTICLES,
+    /**
+     * Changing the particle mesh, the value is the max count of particles.
+     */
+    CHANGE_PARTICLE_MESH,
+    /**
+     * Changing the max count of particles, the value is the new max count of particles.
+     */
+    SET_MAX_PARTICLES,
+    /**
+     * Cloning an emitter, the value is the max count of particles.
+     */
+    CLONE
+}
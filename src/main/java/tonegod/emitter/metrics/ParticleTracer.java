@@ -0,0 +1,32 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.ParticleEmitterNode;
+
+/**
+ * The tracer of phases of emitters, for example, to write them as events of a profiler. The tracer is installed
+ * globally by {@link ParticleTracing#setTracer(ParticleTracer)}.
+ *
+ * @author JavaSaBr
+ */
+public interface ParticleTracer {
+
+    /**
+     * Notifies about starting the phase.
+     *
+     * @param phase       the phase.
+     * @param emitterNode the emitter.
+     * @return the event to finish or null if the phase isn't traced now.
+     */
+    @Nullable Object begin(@NotNull ParticlePhase phase, @NotNull ParticleEmitterNode emitterNode);
+
+    /**
+     * Notifies about finishing the phase.
+     *
+     * @param event       the event from {@link #begin(ParticlePhase, ParticleEmitterNode)}.
+     * @param emitterNode the emitter.
+     * @param value       the value of the phase, see {@link ParticlePhase}.
+     */
+    void end(@NotNull Object event, @NotNull ParticleEmitterNode emitterNode, long value);
+}
@@ -0,0 +1,38 @@
+package tonegod.emitter.metrics;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The holder of the global {@link ParticleTracer}. Without a tracer, tracing costs one field read per phase.
+ *
+ * @author JavaSaBr
+ */
+public final class ParticleTracing {
+
+    /**
+     * The current tracer.
+     */
+    @Nullable
+    private static volatile ParticleTracer tracer;
+
+    /**
+     * Gets the current tracer.
+     *
+     * @return the current tracer or null.
+     */
+    public static @Nullable ParticleTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the current tracer.
+     *
+     * @param tracer the new tracer or null.
+     */
+    public static void setTracer(@Nullable final ParticleTracer tracer) {
+        ParticleTracing.tracer = tracer;
+    }
+
+    private ParticleTracing() {
+    }
+}
@@ -6,12 +6,18 @@ package tonegod.emitter.particle;
 
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Usage;
 import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.mesh.IndexIntBuffer;
+import com.jme3.scene.mesh.IndexShortBuffer;
+import com.jme3.util.BufferUtils;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 /**
  * The type Mesh utils.
@@ -20,6 +26,51 @@ import java.nio.FloatBuffer;
  */
 public final class MeshUtils {
 
+    /**
+     * The max count of vertices which can be indexed by unsigned short indexes.
+     */
+    public static final int MAX_SHORT_INDEXED_VERTICES = 65535;
+
+    /**
+     * Creates an index buffer for the count of vertices, unsigned int indexes are used only when the vertices can't
+     * be indexed by unsigned short indexes.
+     *
+     * @param vertexCount the count of vertices.
+     * @param indexCount  the count of indexes.
+     * @return the new index buffer.
+     */
+    public static @NotNull IndexBuffer createIndexBuffer(final int vertexCount, final int indexCount) {
+        if (vertexCount > MAX_SHORT_INDEXED_VERTICES) {
+            return new IndexIntBuffer(BufferUtils.createIntBuffer(indexCount));
+        } else {
+            return new IndexShortBuffer(BufferUtils.createShortBuffer(indexCount));
+        }
+    }
+
+    /**
+     * Sets the index buffer to the mesh, the current buffer of indexes is updated if it has the same format.
+     *
+     * @param mesh    the mesh.
+     * @param indexes the index buffer.
+     */
+    public static void setIndexBuffer(@NotNull final Mesh mesh, @NotNull final IndexBuffer indexes) {
+
+        final Format format = indexes.getBuffer() instanceof IntBuffer ? Format.UnsignedInt : Format.UnsignedShort;
+        final VertexBuffer buffer = mesh.getBuffer(VertexBuffer.Type.Index);
+
+        if (buffer != null && buffer.getFormat() == format) {
+            buffer.updateData(indexes.getBuffer());
+            return;
+        } else if (buffer != null) {
+            mesh.clearBuffer(VertexBuffer.Type.Index);
+        }
+
+        final VertexBuffer indexBuffer = new VertexBuffer(VertexBuffer.Type.Index);
+        indexBuffer.setupData(Usage.Static, 3, format, indexes.getBuffer());
+
+        mesh.setBuffer(indexBuffer);
+    }
+
     /**
      * Gets position buffer.
      *
@@ -9,10 +9,12 @@ import com.jme3.util.clone.Cloner;
 import com.jme3.util.clone.JmeCloneable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import tonegod.emitter.EmissionBatch;
 import tonegod.emitter.EmitterMesh;
 import tonegod.emitter.ParticleEmitterNode;
 import tonegod.emitter.influencers.ParticleInfluencer;
 import tonegod.emitter.interpolation.Interpolation;
+import tonegod.emitter.metrics.InfluencerProfiler;
 
 import java.util.Arrays;
 import java.util.concurrent.Callable;
@@ -53,107 +55,45 @@ public final class ParticleData implements Cloneable, JmeCloneable {
     private static final AtomicInteger FLOAT_DATA_ID_FACTORY = new AtomicInteger(0);
 
     /**
-     * The current max object objectData id.
-     */
-    private static int currentObjectMaxDataId = -1;
-
-    /**
-     * The current max int objectData id.
-     */
-    private static int currentIntMaxDataId = -1;
-
-    /**
-     * The current max float objectData id.
-     */
-    private static int currentFloatMaxDataId = -1;
-
-    /**
-     * Reserve the new object objectData id.
+     * Reserve the new object data id. The id is a global key of the data, a slot for it is assigned by the {@link
+     * ParticleDataLayout} of each emitter which uses it.
      *
-     * @return the new object objectData id.
+     * @return the new object data id.
      */
     public static int reserveObjectDataId() {
         return OBJECT_DATA_ID_FACTORY.incrementAndGet();
     }
 
     /**
-     * Reserve the new int objectData id.
+     * Reserve the new int data id.
      *
-     * @return the new int objectData id.
+     * @return the new int data id.
      */
     public static int reserveIntDataId() {
         return INT_DATA_ID_FACTORY.incrementAndGet();
     }
 
     /**
-     * Reserve the new float objectData id.
+     * Reserve the new float data id.
      *
-     * @return the new float objectData id.
+     * @return the new float data id.
      */
     public static int reserveFloatDataId() {
         return FLOAT_DATA_ID_FACTORY.incrementAndGet();
     }
 
-    /**
-     * Get the current max object objectData id.
-     *
-     * @return the current max object objectData id.
-     */
-    private static int getCurrentMaxObjectDataId() {
-        if (currentObjectMaxDataId == -1) {
-            synchronized (ParticleData.class) {
-                if (currentObjectMaxDataId == -1) {
-                    final int lastReservedId = OBJECT_DATA_ID_FACTORY.get();
-                    ParticleData.currentObjectMaxDataId = lastReservedId;
-                    return lastReservedId;
-                }
-            }
-        }
-        return currentObjectMaxDataId;
-    }
-
-    /**
-     * Get the current max int objectData id.
-     *
-     * @return the current max int objectData id.
-     */
-    private static int getCurrentMaxIntDataId() {
-        if (currentIntMaxDataId == -1) {
-            synchronized (ParticleData.class) {
-                if (currentIntMaxDataId == -1) {
-                    final int lastReservedId = INT_DATA_ID_FACTORY.get();
-                    ParticleData.currentIntMaxDataId = lastReservedId;
-                    return lastReservedId;
-                }
-            }
-        }
-        return currentIntMaxDataId;
-    }
-
-    /**
-     * Get the current max float objectData id.
-     *
-     * @return the current max float objectData id.
-     */
-    private static int getCurrentMaxFloatDataId() {
-        if (currentFloatMaxDataId == -1) {
-            synchronized (ParticleData.class) {
-                if (currentFloatMaxDataId == -1) {
-                    final int lastReservedId = FLOAT_DATA_ID_FACTORY.get();
-                    ParticleData.currentFloatMaxDataId = lastReservedId;
-                    return lastReservedId;
-                }
-            }
-        }
-        return currentFloatMaxDataId;
-    }
-
     /**
      * The color.
      */
     @NotNull
     public final ColorRGBA color;
 
+    /**
+     * The layout of data slots.
+     */
+    @NotNull
+    private ParticleDataLayout dataLayout;
+
     /**
      * The object data map.
      */
@@ -190,6 +130,18 @@ public final class ParticleData implements Cloneable, JmeCloneable {
     @NotNull
     public final Vector3f randomOffset;
 
+    /**
+     * The emission point of an analytic emitter shape before applying the rotation and the scale of the emitter.
+     */
+    @NotNull
+    public final Vector3f emissionPoint;
+
+    /**
+     * The emission normal of an analytic emitter shape before applying the rotation of the emitter.
+     */
+    @NotNull
+    public final Vector3f emissionNormal;
+
     /**
      * The size.
      */
@@ -293,6 +245,11 @@ public final class ParticleData implements Cloneable, JmeCloneable {
     public boolean active;
 
     public ParticleData() {
+        this(new ParticleDataLayout());
+    }
+
+    public ParticleData(@NotNull final ParticleDataLayout dataLayout) {
+        this.dataLayout = dataLayout;
         this.objectData = EMPTY_OBJECT_ARRAY;
         this.intData = EMPTY_INT_ARRAY;
         this.floatData = EMPTY_FLOAT_ARRAY;
@@ -304,6 +261,8 @@ public final class ParticleData implements Cloneable, JmeCloneable {
         this.alpha = 1;
         this.initialPosition = new Vector3f();
         this.randomOffset = new Vector3f();
+        this.emissionPoint = new Vector3f();
+        this.emissionNormal = new Vector3f();
         this.angles = new Vector3f();
         this.upVec = new Vector3f(0, 1, 0);
         this.tempV3 = new Vector3f();
@@ -315,10 +274,9 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param dataId the data id.
      */
     public void reserveObjectData(final int dataId) {
-        if (objectData == EMPTY_OBJECT_ARRAY) {
-            objectData = new Object[Math.max(getCurrentMaxObjectDataId(), dataId + 1)];
-        } else if (dataId >= objectData.length) {
-            objectData = Arrays.copyOf(objectData, dataId + 1);
+        final int slot = dataLayout.reserveObjectSlot(dataId);
+        if (slot >= objectData.length) {
+            objectData = Arrays.copyOf(objectData, dataLayout.getObjectSlotCount());
         }
     }
 
@@ -346,10 +304,9 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param dataId the data id.
      */
     public void reserveIntData(final int dataId) {
-        if (intData == EMPTY_INT_ARRAY) {
-            intData = new int[Math.max(getCurrentMaxIntDataId(), dataId + 1)];
-        } else if (dataId >= objectData.length) {
-            intData = Arrays.copyOf(intData, dataId + 1);
+        final int slot = dataLayout.reserveIntSlot(dataId);
+        if (slot >= intData.length) {
+            intData = Arrays.copyOf(intData, dataLayout.getIntSlotCount());
         }
     }
 
@@ -370,10 +327,9 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param dataId the data id.
      */
     public void reserveFloatData(final int dataId) {
-        if (floatData == EMPTY_FLOAT_ARRAY) {
-            floatData = new float[Math.max(getCurrentMaxFloatDataId(), dataId + 1)];
-        } else if (dataId >= objectData.length) {
-            floatData = Arrays.copyOf(floatData, dataId + 1);
+        final int slot = dataLayout.reserveFloatSlot(dataId);
+        if (slot >= floatData.length) {
+            floatData = Arrays.copyOf(floatData, dataLayout.getFloatSlotCount());
         }
     }
 
@@ -395,7 +351,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param data   the object data.
      */
     public void setObjectData(final int dataId, @NotNull final Object data) {
-        this.objectData[dataId] = data;
+        this.objectData[dataLayout.getObjectSlot(dataId)] = data;
     }
 
     /**
@@ -405,7 +361,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param data   the int data.
      */
     public void setIntData(final int dataId, final int data) {
-        this.intData[dataId] = data;
+        this.intData[dataLayout.getIntSlot(dataId)] = data;
     }
 
     /**
@@ -415,7 +371,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @param data   the float data.
      */
     public void setFloatData(final int dataId, final float data) {
-        this.floatData[dataId] = data;
+        this.floatData[dataLayout.getFloatSlot(dataId)] = data;
     }
 
     /**
@@ -425,7 +381,8 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @return true if data be the data id is exist.
      */
     public boolean hasObjectData(final int dataId) {
-        return objectData[dataId] != null;
+        final int slot = dataLayout.getObjectSlot(dataId);
+        return slot != -1 && slot < objectData.length && objectData[slot] != null;
     }
 
     /**
@@ -436,7 +393,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @return the saved object data or null.
      */
     public @NotNull <T> T getObjectData(final int dataId) {
-        return (T) objectData[dataId];
+        return (T) objectData[dataLayout.getObjectSlot(dataId)];
     }
 
     /**
@@ -446,7 +403,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @return the saved int data or 0.
      */
     public int getIntData(final int dataId) {
-        return intData[dataId];
+        return intData[dataLayout.getIntSlot(dataId)];
     }
 
     /**
@@ -456,7 +413,7 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * @return the float object data or -.
      */
     public float getFloatData(final int dataId) {
-        return floatData[dataId];
+        return floatData[dataLayout.getFloatSlot(dataId)];
     }
 
     @Override
@@ -506,8 +463,14 @@ public final class ParticleData implements Cloneable, JmeCloneable {
         }
 
         final SafeArrayList<ParticleInfluencer> influencers = emitterNode.getInfluencers();
-        for (final ParticleInfluencer influencer : influencers.getArray()) {
-            influencer.update(this, tpf);
+        final InfluencerProfiler profiler = emitterNode.getInfluencerProfiler();
+
+        if (profiler != null) {
+            profiler.update(influencers.getArray(), this, tpf);
+        } else {
+            for (final ParticleInfluencer influencer : influencers.getArray()) {
+                influencer.update(this, tpf);
+            }
         }
 
         tempV3.set(velocity).multLocal(tpf);
@@ -517,12 +480,10 @@ public final class ParticleData implements Cloneable, JmeCloneable {
         if (emitterNode.isStaticParticles()) {
 
             final EmitterMesh emitterShape = emitterNode.getEmitterShape();
-            emitterShape.setNext(triangleIndex);
+            emitterShape.getEmissionPoint(this, position);
 
             if (emitterNode.isRandomEmissionPoint()) {
-                position.set(emitterShape.getNextTranslation().addLocal(randomOffset));
-            } else {
-                position.set(emitterShape.getNextTranslation());
+                position.addLocal(randomOffset);
             }
         }
     }
@@ -540,6 +501,17 @@ public final class ParticleData implements Cloneable, JmeCloneable {
      * Called once per particle use when the particle is emitted.
      */
     public void initialize() {
+        final EmitterMesh emitterShape = getEmitterNode().getEmitterShape();
+        initialize(emitterShape.sample(1), 0);
+    }
+
+    /**
+     * Called once per particle use when the particle is emitted from the sampled batch of emissions.
+     *
+     * @param batch the batch of sampled emissions.
+     * @param index the index of the emission in the batch.
+     */
+    public void initialize(@NotNull final EmissionBatch batch, final int index) {
 
         final ParticleEmitterNode emitterNode = getEmitterNode();
         emitterNode.incActiveParticleCount();
@@ -568,39 +540,37 @@ public final class ParticleData implements Cloneable, JmeCloneable {
             force = forceMax;
         }
 
-        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
-        emitterShape.setNext();
-
-        triangleIndex = emitterShape.getTriangleIndex();
-
-        if (!emitterNode.isRandomEmissionPoint()) {
-            position.set(emitterShape.getNextTranslation());
-        } else {
-            randomOffset.set(emitterShape.getRandomTranslation());
-            position.set(emitterShape.getNextTranslation().add(randomOffset));
-        }
+        triangleIndex = batch.getTriangleIndex(index);
 
-        velocity.set(emitterShape.getNextDirection())
-                .normalizeLocal()
-                .multLocal(force);
+        batch.getShapePoint(index, emissionPoint);
+        batch.getShapeNormal(index, emissionNormal);
+        batch.getOffset(index, randomOffset);
+        batch.getPosition(index, position);
+        batch.getDirection(index, velocity).multLocal(force);
 
         initialLength = velocity.length();
         initialPosition.set(emitterNode.getWorldTranslation());
 
         final SafeArrayList<ParticleInfluencer> influencers = emitterNode.getInfluencers();
-        for (final ParticleInfluencer influencer : influencers.getArray()) {
-            influencer.initialize(this);
+        final InfluencerProfiler profiler = emitterNode.getInfluencerProfiler();
+
+        if (profiler != null) {
+            profiler.initialize(influencers.getArray(), this);
+        } else {
+            for (final ParticleInfluencer influencer : influencers.getArray()) {
+                influencer.initialize(this);
+            }
         }
 
         switch (emitterNode.getEmissionPoint()) {
             case EDGE_BOTTOM: {
-                tempV3.set(emitterShape.getNextDirection()).normalizeLocal();
+                batch.getDirection(index, tempV3);
                 tempV3.multLocal(size.getY());
                 position.addLocal(tempV3);
                 break;
             }
             case EDGE_TOP: {
-                tempV3.set(emitterShape.getNextDirection()).normalizeLocal();
+                batch.getDirection(index, tempV3);
                 tempV3.multLocal(size.getY());
                 position.subtractLocal(tempV3);
                 break;
@@ -675,8 +645,14 @@ public final class ParticleData implements Cloneable, JmeCloneable {
         }
 
         final SafeArrayList<ParticleInfluencer> influencers = emitterNode.getInfluencers();
-        for (final ParticleInfluencer influencer : influencers.getArray()) {
-            influencer.reset(this);
+        final InfluencerProfiler profiler = emitterNode.getInfluencerProfiler();
+
+        if (profiler != null) {
+            profiler.reset(influencers.getArray(), this);
+        } else {
+            for (final ParticleInfluencer influencer : influencers.getArray()) {
+                influencer.reset(this);
+            }
         }
 
         emitterNode.setNextIndex(index);
@@ -693,6 +669,20 @@ public final class ParticleData implements Cloneable, JmeCloneable {
 
     @Override
     public void cloneFields(final Cloner cloner, final Object original) {
+        emitterNode = cloner.clone(emitterNode);
+        dataLayout = cloner.clone(dataLayout);
+        objectData = objectData.clone();
+        intData = intData.clone();
+        floatData = floatData.clone();
+    }
+
+    /**
+     * Get the layout of data slots.
+     *
+     * @return the layout of data slots.
+     */
+    public @NotNull ParticleDataLayout getDataLayout() {
+        return dataLayout;
     }
 
     /**
@@ -8,6 +8,7 @@ import com.jme3.renderer.Camera;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Format;
 import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.scene.mesh.IndexBuffer;
 import com.jme3.util.BufferUtils;
 import com.jme3.util.clone.Cloner;
 import org.jetbrains.annotations.NotNull;
@@ -16,7 +17,6 @@ import tonegod.emitter.ParticleEmitterNode;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
 
 /**
  * The type Particle data impostor mesh.
@@ -100,53 +100,29 @@ public class ParticleDataImpostorMesh extends RotatedParticleDataMesh {
         }
 
         // set indices
-        ShortBuffer ib = BufferUtils.createShortBuffer(numParticles * 18);
+        final IndexBuffer ib = MeshUtils.createIndexBuffer(numParticles * 12, numParticles * 18);
 
-        for (int i = 0; i < numParticles; i++) {
-            int startIdx = (i * 12);
-
-            // triangle 1
-            ib.put((short) (startIdx + 1))
-                    .put((short) (startIdx + 0))
-                    .put((short) (startIdx + 2));
-
-            // triangle 2
-            ib.put((short) (startIdx + 1))
-                    .put((short) (startIdx + 2))
-                    .put((short) (startIdx + 3));
-
-            // triangle 3
-            ib.put((short) (startIdx + 5))
-                    .put((short) (startIdx + 4))
-                    .put((short) (startIdx + 6));
-
-            // triangle 4
-            ib.put((short) (startIdx + 5))
-                    .put((short) (startIdx + 6))
-                    .put((short) (startIdx + 7));
-
-            // triangle 5
-            ib.put((short) (startIdx + 9))
-                    .put((short) (startIdx + 8))
-                    .put((short) (startIdx + 10));
-
-            // triangle 6
-            ib.put((short) (startIdx + 9))
-                    .put((short) (startIdx + 10))
-                    .put((short) (startIdx + 11));
-        }
-        ib.flip();
+        for (int i = 0, index = 0; i < numParticles; i++) {
 
-        buf = getBuffer(VertexBuffer.Type.Index);
+            final int startIdx = (i * 12);
 
-        if (buf != null) {
-            buf.updateData(ib);
-        } else {
-            VertexBuffer ivb = new VertexBuffer(VertexBuffer.Type.Index);
-            ivb.setupData(Usage.Static, 3, Format.UnsignedShort, ib);
-            setBuffer(ivb);
+            // 3 quads, 2 triangles per quad
+            for (int quad = 0; quad < 3; quad++) {
+
+                final int quadIdx = startIdx + quad * 4;
+
+                ib.put(index++, quadIdx + 1);
+                ib.put(index++, quadIdx + 0);
+                ib.put(index++, quadIdx + 2);
+
+                ib.put(index++, quadIdx + 1);
+                ib.put(index++, quadIdx + 2);
+                ib.put(index++, quadIdx + 3);
+            }
         }
 
+        MeshUtils.setIndexBuffer(this, ib);
+
         updateCounts();
 
         q33.fromAngleAxis(33f * 2f * FastMath.DEG_TO_RAD, Vector3f.UNIT_Y);
@@ -183,119 +159,92 @@ public class ParticleDataImpostorMesh extends RotatedParticleDataMesh {
         colors.clear();
         texcoords.clear();
 
+        int count = 0;
+
+        boolean positionsChanged = false;
+        boolean colorsChanged = false;
+        boolean texCoordsChanged = false;
+
+        // live particles are packed to the start of buffers
         for (final ParticleData particleData : particles) {
 
             if (particleData.life == 0 || !particleData.active) {
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
+                continue;
+            }
+
+            count++;
+
+            updateRotation(particleData, billboardMode, camera);
+
+            particleData.upVec.set(up);
+
+            if (emitterNode.isVelocityStretching()) {
+                final Vector3f velocity = particleData.getVelocity();
+                up.multLocal(velocity.length() * emitterNode.getVelocityStretchFactor());
+            }
+
+            up.multLocal(particleData.size.y);
+            left.multLocal(particleData.size.x);
+
+            rotStore.fromAngleNormalAxis(particleData.angles.y, tempV3.set(left).normalizeLocal());
+            left.set(rotStore.mult(left, tempV1));
+            up.set(rotStore.mult(up, tempV1));
+
+            rotStore.fromAngleNormalAxis(particleData.angles.x, tempV3.set(up).normalizeLocal());
+            left.set(rotStore.mult(left, tempV1));
+            up.set(rotStore.mult(up, tempV1));
+
+            rotStore.fromAngleNormalAxis(particleData.angles.z, tempV3.set(dir).normalizeLocal());
+            left.set(rotStore.mult(left, tempV1));
+            up.set(rotStore.mult(up, tempV1));
+
+            if (emitterNode.isParticlesFollowEmitter()) {
+                tempV2.set(particleData.position);
             } else {
 
-                updateRotation(particleData, billboardMode, camera);
-
-                particleData.upVec.set(up);
-
-                if (emitterNode.isVelocityStretching()) {
-                    final Vector3f velocity = particleData.getVelocity();
-                    up.multLocal(velocity.length() * emitterNode.getVelocityStretchFactor());
-                }
-
-                up.multLocal(particleData.size.y);
-                left.multLocal(particleData.size.x);
-
-                rotStore.fromAngleAxis(particleData.angles.y, left);
-                left.set(rotStore.mult(left, tempV1));
-                up.set(rotStore.mult(up, tempV1));
-
-                rotStore.fromAngleAxis(particleData.angles.x, up);
-                left.set(rotStore.mult(left, tempV1));
-                up.set(rotStore.mult(up, tempV1));
-
-                rotStore.fromAngleAxis(particleData.angles.z, dir);
-                left.set(rotStore.mult(left, tempV1));
-                up.set(rotStore.mult(up, tempV1));
-
-                if (emitterNode.isParticlesFollowEmitter()) {
-                    tempV2.set(particleData.position);
-                } else {
-
-                    final Vector3f subtract = worldTranslation
-                            .subtract(particleData.initialPosition, tempV1);
-
-                    tempV2.set(particleData.position)
-                            .subtractLocal(subtract);//.divide(8f));
-                }
-
-                q33.fromAngleAxis(33f * 2f * FastMath.DEG_TO_RAD, up);
-                left33.set(q33.mult(left, tempV1));
-                left66.set(q33.mult(left33, tempV1));
-
-                temp1V3.set(tempV2.x + left.x + up.x, tempV2.y + left.y + up.y, tempV2.z + left.z + up.z);
-                temp2V3.set(tempV2.x - left.x + up.x, tempV2.y - left.y + up.y, tempV2.z - left.z + up.z);
-                temp3V3.set(tempV2.x + left.x - up.x, tempV2.y + left.y - up.y, tempV2.z + left.z - up.z);
-                temp4V3.set(tempV2.x - left.x - up.x, tempV2.y - left.y - up.y, tempV2.z - left.z - up.z);
-                temp1aV3.set(tempV2.x + left33.x + up.x, tempV2.y + left33.y + up.y, tempV2.z + left33.z + up.z);
-                temp2aV3.set(tempV2.x - left33.x + up.x, tempV2.y - left33.y + up.y, tempV2.z - left33.z + up.z);
-                temp3aV3.set(tempV2.x + left33.x - up.x, tempV2.y + left33.y - up.y, tempV2.z + left33.z - up.z);
-                temp4aV3.set(tempV2.x - left33.x - up.x, tempV2.y - left33.y - up.y, tempV2.z - left33.z - up.z);
-                temp1bV3.set(tempV2.x + left66.x + up.x, tempV2.y + left66.y + up.y, tempV2.z + left66.z + up.z);
-                temp2bV3.set(tempV2.x - left66.x + up.x, tempV2.y - left66.y + up.y, tempV2.z - left66.z + up.z);
-                temp3bV3.set(tempV2.x + left66.x - up.x, tempV2.y + left66.y - up.y, tempV2.z + left66.z - up.z);
-                temp4bV3.set(tempV2.x - left66.x - up.x, tempV2.y - left66.y - up.y, tempV2.z - left66.z - up.z);
-
-                // Face 1
-                positions.put(temp1V3.x)
-                        .put(temp1V3.y)
-                        .put(temp1V3.z);
-                positions.put(temp2V3.x)
-                        .put(temp2V3.y)
-                        .put(temp2V3.z);
-                positions.put(temp3V3.x)
-                        .put(temp3V3.y)
-                        .put(temp3V3.z);
-                positions.put(temp4V3.x)
-                        .put(temp4V3.y)
-                        .put(temp4V3.z);
-
-
-                // Face 2
-                positions.put(temp1aV3.x)
-                        .put(temp1aV3.y)
-                        .put(temp1aV3.z);
-                positions.put(temp2aV3.x)
-                        .put(temp2aV3.y)
-                        .put(temp2aV3.z);
-                positions.put(temp3aV3.x)
-                        .put(temp3aV3.y)
-                        .put(temp3aV3.z);
-                positions.put(temp4aV3.x)
-                        .put(temp4aV3.y)
-                        .put(temp4aV3.z);
-
-                // Face 3
-                positions.put(temp1bV3.x)
-                        .put(temp1bV3.y)
-                        .put(temp1bV3.z);
-                positions.put(temp2bV3.x)
-                        .put(temp2bV3.y)
-                        .put(temp2bV3.z);
-                positions.put(temp3bV3.x)
-                        .put(temp3bV3.y)
-                        .put(temp3bV3.z);
-                positions.put(temp4bV3.x)
-                        .put(temp4bV3.y)
-                        .put(temp4bV3.z);
+                final Vector3f subtract = worldTranslation
+                        .subtract(particleData.initialPosition, tempV1);
+
+                tempV2.set(particleData.position)
+                        .subtractLocal(subtract);//.divide(8f));
             }
 
+            q33.fromAngleNormalAxis(33f * 2f * FastMath.DEG_TO_RAD, tempV3.set(up).normalizeLocal());
+            left33.set(q33.mult(left, tempV1));
+            left66.set(q33.mult(left33, tempV1));
+
+            temp1V3.set(tempV2.x + left.x + up.x, tempV2.y + left.y + up.y, tempV2.z + left.z + up.z);
+            temp2V3.set(tempV2.x - left.x + up.x, tempV2.y - left.y + up.y, tempV2.z - left.z + up.z);
+            temp3V3.set(tempV2.x + left.x - up.x, tempV2.y + left.y - up.y, tempV2.z + left.z - up.z);
+            temp4V3.set(tempV2.x - left.x - up.x, tempV2.y - left.y - up.y, tempV2.z - left.z - up.z);
+            temp1aV3.set(tempV2.x + left33.x + up.x, tempV2.y + left33.y + up.y, tempV2.z + left33.z + up.z);
+            temp2aV3.set(tempV2.x - left33.x + up.x, tempV2.y - left33.y + up.y, tempV2.z - left33.z + up.z);
+            temp3aV3.set(tempV2.x + left33.x - up.x, tempV2.y + left33.y - up.y, tempV2.z + left33.z - up.z);
+            temp4aV3.set(tempV2.x - left33.x - up.x, tempV2.y - left33.y - up.y, tempV2.z - left33.z - up.z);
+            temp1bV3.set(tempV2.x + left66.x + up.x, tempV2.y + left66.y + up.y, tempV2.z + left66.z + up.z);
+            temp2bV3.set(tempV2.x - left66.x + up.x, tempV2.y - left66.y + up.y, tempV2.z - left66.z + up.z);
+            temp3bV3.set(tempV2.x + left66.x - up.x, tempV2.y + left66.y - up.y, tempV2.z + left66.z - up.z);
+            temp4bV3.set(tempV2.x - left66.x - up.x, tempV2.y - left66.y - up.y, tempV2.z - left66.z - up.z);
+
+            // Face 1
+            positionsChanged |= putVector(positions, temp1V3.x, temp1V3.y, temp1V3.z);
+            positionsChanged |= putVector(positions, temp2V3.x, temp2V3.y, temp2V3.z);
+            positionsChanged |= putVector(positions, temp3V3.x, temp3V3.y, temp3V3.z);
+            positionsChanged |= putVector(positions, temp4V3.x, temp4V3.y, temp4V3.z);
+
+
+            // Face 2
+            positionsChanged |= putVector(positions, temp1aV3.x, temp1aV3.y, temp1aV3.z);
+            positionsChanged |= putVector(positions, temp2aV3.x, temp2aV3.y, temp2aV3.z);
+            positionsChanged |= putVector(positions, temp3aV3.x, temp3aV3.y, temp3aV3.z);
+            positionsChanged |= putVector(positions, temp4aV3.x, temp4aV3.y, temp4aV3.z);
+
+            // Face 3
+            positionsChanged |= putVector(positions, temp1bV3.x, temp1bV3.y, temp1bV3.z);
+            positionsChanged |= putVector(positions, temp2bV3.x, temp2bV3.y, temp2bV3.z);
+            positionsChanged |= putVector(positions, temp3bV3.x, temp3bV3.y, temp3bV3.z);
+            positionsChanged |= putVector(positions, temp4bV3.x, temp4bV3.y, temp4bV3.z);
+
             if (isUniqueTexCoords()) {
 
                 final int imgX = particleData.spriteCol;
@@ -306,54 +255,46 @@ public class ParticleDataImpostorMesh extends RotatedParticleDataMesh {
                 final float endX = startX + 1f / getSpriteCols();
                 final float endY = startY + 1f / getSpriteRows();
 
-                texcoords.put(startX).put(endY);
-                texcoords.put(endX).put(endY);
-                texcoords.put(startX).put(startY);
-                texcoords.put(endX).put(startY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, startY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, startY);
 
-                texcoords.put(startX).put(endY);
-                texcoords.put(endX).put(endY);
-                texcoords.put(startX).put(startY);
-                texcoords.put(endX).put(startY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, startY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, startY);
 
-                texcoords.put(startX).put(endY);
-                texcoords.put(endX).put(endY);
-                texcoords.put(startX).put(startY);
-                texcoords.put(endX).put(startY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, startY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, startY);
             }
 
             particleData.color.a *= particleData.alpha;
-            int abgr = particleData.color.asIntABGR();
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
+            colorsChanged |= putColor(colors, particleData.color.asIntABGR(), 12);
         }
 
         //	this.setBuffer(VertexBuffer.Type.Position, 3, positions);
-        positions.clear();
-        colors.clear();
+        positions.flip();
+        colors.flip();
 
         if (!isUniqueTexCoords())
             texcoords.clear();
         else {
-            texcoords.clear();
-            tvb.updateData(texcoords);
+            texcoords.flip();
+            uploadData(tvb, texcoords, count, texCoordsChanged);
         }
 
-        // force renderer to re-send data to GPU
-        pvb.updateData(positions);
-        cvb.updateData(colors);
+        // re-send only changed data to GPU
+        uploadData(pvb, positions, count, positionsChanged);
+        uploadData(cvb, colors, count, colorsChanged);
+
+        if (positionsChanged || count != getDrawnParticleCount()) {
+            updateBound();
+        }
 
-        updateBound();
+        setDrawnParticles(count, 12, 18);
     }
 
     @Override
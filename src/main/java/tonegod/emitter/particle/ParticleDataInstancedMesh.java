@@ -0,0 +1,430 @@
+package tonegod.emitter.particle;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.clone.Cloner;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.BillboardMode;
+import tonegod.emitter.ParticleEmitterNode;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The mesh of quad particles which are drawn by instancing. The mesh contains a single quad and every particle is an
+ * instance of the quad which has the following attributes:
+ * <pre>
+ * TexCoord2 - the center of the particle (vec3);
+ * TexCoord3 - the left axis of the particle scaled by its size (vec3);
+ * TexCoord4 - the up axis of the particle scaled by its size (vec3);
+ * TexCoord5 - the start and the end texture coordinates of the sprite of the particle (vec4);
+ * Color     - the color of the particle (4 normalized unsigned bytes).
+ * </pre>
+ * The corners of the quad are expanded by the axes in the vertex shader, so the material has to support the
+ * instanced quads, see {@link tonegod.emitter.material.ParticlesMaterial#PROP_INSTANCED_QUADS}.
+ * <p>
+ * Particles with the {@link BillboardMode#CAMERA} mode are billboarded in the vertex shader by the camera basis, so
+ * TexCoord3 contains the width, the height and the rotation around the direction of the camera, TexCoord4 isn't used
+ * and the rotations around the left and up axes of particles are ignored, see
+ * {@link tonegod.emitter.material.ParticlesMaterial#PROP_CAMERA_BILLBOARD}.
+ *
+ * @author JavaSaBr
+ */
+public final class ParticleDataInstancedMesh extends RotatedParticleDataMesh {
+
+    /**
+     * The count of vertices of the quad.
+     */
+    private static final int QUAD_VERTICES = 4;
+
+    /**
+     * The count of triangles of the quad.
+     */
+    private static final int QUAD_TRIANGLES = 2;
+
+    /**
+     * The type of the buffer of centers of particles.
+     */
+    public static final Type CENTER_BUFFER = Type.TexCoord2;
+
+    /**
+     * The type of the buffer of left axes of particles.
+     */
+    public static final Type LEFT_BUFFER = Type.TexCoord3;
+
+    /**
+     * The type of the buffer of up axes of particles.
+     */
+    public static final Type UP_BUFFER = Type.TexCoord4;
+
+    /**
+     * The type of the buffer of sprites of particles.
+     */
+    public static final Type SPRITE_BUFFER = Type.TexCoord5;
+
+    /**
+     * The color.
+     */
+    @NotNull
+    private ColorRGBA color;
+
+    /**
+     * The min point of the bound.
+     */
+    @NotNull
+    private Vector3f min;
+
+    /**
+     * The max point of the bound.
+     */
+    @NotNull
+    private Vector3f max;
+
+    /**
+     * The flag of billboarding particles by the camera in the vertex shader.
+     */
+    private boolean cameraBillboard;
+
+    public ParticleDataInstancedMesh() {
+        this.color = new ColorRGBA();
+        this.min = new Vector3f();
+        this.max = new Vector3f();
+    }
+
+    @Override
+    public void initParticleData(@NotNull final ParticleEmitterNode emitterNode, final int numParticles) {
+        super.initParticleData(emitterNode, numParticles);
+
+        setUniqueTexCoords(false);
+        setMode(Mode.Triangles);
+
+        // the corners of the quad are multipliers of the left and up axes
+        final FloatBuffer positions = BufferUtils.createFloatBuffer(
+                1f, 1f, 0f,
+                -1f, 1f, 0f,
+                1f, -1f, 0f,
+                -1f, -1f, 0f);
+
+        final FloatBuffer texCoords = BufferUtils.createFloatBuffer(
+                0f, 1f,
+                1f, 1f,
+                0f, 0f,
+                1f, 0f);
+
+        setTemplateBuffer(Type.Position, 3, positions);
+        setTemplateBuffer(Type.TexCoord, 2, texCoords);
+
+        final IndexBuffer ib = MeshUtils.createIndexBuffer(QUAD_VERTICES, QUAD_TRIANGLES * 3);
+
+        // triangle 1
+        ib.put(0, 1);
+        ib.put(1, 0);
+        ib.put(2, 2);
+
+        // triangle 2
+        ib.put(3, 1);
+        ib.put(4, 2);
+        ib.put(5, 3);
+
+        MeshUtils.setIndexBuffer(this, ib);
+
+        setInstanceBuffer(CENTER_BUFFER, 3, Format.Float, BufferUtils.createFloatBuffer(numParticles * 3));
+        setInstanceBuffer(LEFT_BUFFER, 3, Format.Float, BufferUtils.createFloatBuffer(numParticles * 3));
+        setInstanceBuffer(UP_BUFFER, 3, Format.Float, BufferUtils.createFloatBuffer(numParticles * 3));
+        setInstanceBuffer(SPRITE_BUFFER, 4, Format.Float, BufferUtils.createFloatBuffer(numParticles * 4));
+        setInstanceBuffer(Type.Color, 4, Format.UnsignedByte, BufferUtils.createByteBuffer(numParticles * 4));
+
+        updateCounts();
+    }
+
+    /**
+     * Sets the static buffer of the quad.
+     *
+     * @param type       the type of the buffer.
+     * @param components the count of components.
+     * @param data       the data.
+     */
+    private void setTemplateBuffer(@NotNull final Type type, final int components, @NotNull final FloatBuffer data) {
+
+        final VertexBuffer buffer = getBuffer(type);
+
+        if (buffer != null) {
+            buffer.updateData(data);
+        } else {
+            final VertexBuffer vb = new VertexBuffer(type);
+            vb.setupData(Usage.Static, components, Format.Float, data);
+            setBuffer(vb);
+        }
+    }
+
+    /**
+     * Sets the buffer of per instance data.
+     *
+     * @param type       the type of the buffer.
+     * @param components the count of components.
+     * @param format     the format of the buffer.
+     * @param data       the data.
+     */
+    private void setInstanceBuffer(@NotNull final Type type, final int components, @NotNull final Format format,
+                                   @NotNull final Buffer data) {
+
+        final VertexBuffer buffer = getBuffer(type);
+
+        if (buffer != null) {
+            buffer.updateData(data);
+        } else {
+            final VertexBuffer vb = new VertexBuffer(type);
+            vb.setupData(Usage.Stream, components, format, data);
+            vb.setNormalized(format == Format.UnsignedByte);
+            vb.setInstanced(true);
+            setBuffer(vb);
+        }
+    }
+
+    @Override
+    public void updateParticleData(@NotNull final ParticleData[] particles, @NotNull final Camera camera,
+                                   @NotNull final Matrix3f inverseRotation) {
+
+        final ParticleEmitterNode emitterNode = getEmitterNode();
+        final Vector3f worldTranslation = emitterNode.getWorldTranslation();
+        final BillboardMode billboardMode = emitterNode.getBillboardMode();
+
+        final VertexBuffer centerBuffer = getBuffer(CENTER_BUFFER);
+        final FloatBuffer centers = (FloatBuffer) centerBuffer.getData();
+
+        final VertexBuffer leftBuffer = getBuffer(LEFT_BUFFER);
+        final FloatBuffer lefts = (FloatBuffer) leftBuffer.getData();
+
+        final VertexBuffer upBuffer = getBuffer(UP_BUFFER);
+        final FloatBuffer ups = (FloatBuffer) upBuffer.getData();
+
+        final VertexBuffer spriteBuffer = getBuffer(SPRITE_BUFFER);
+        final FloatBuffer sprites = (FloatBuffer) spriteBuffer.getData();
+
+        final VertexBuffer colorBuffer = getBuffer(Type.Color);
+        final ByteBuffer colors = (ByteBuffer) colorBuffer.getData();
+
+        final boolean cameraBillboard = isCameraBillboard(billboardMode);
+        final boolean velocityStretching = emitterNode.isVelocityStretching();
+        final float velocityStretchFactor = emitterNode.getVelocityStretchFactor();
+
+        if (cameraBillboard) {
+            camera.getUp(up);
+        } else {
+            ups.clear();
+        }
+
+        centers.clear();
+        lefts.clear();
+        sprites.clear();
+        colors.clear();
+
+        int count = 0;
+
+        boolean centersChanged = false;
+        boolean axesChanged = false;
+        boolean spritesChanged = false;
+        boolean colorsChanged = false;
+
+        // live particles are packed to the start of instance buffers
+        for (final ParticleData particleData : particles) {
+
+            if (particleData.life == 0 || !particleData.isActive()) {
+                continue;
+            }
+
+            count++;
+
+            final Vector3f size = particleData.getSize();
+            final Vector3f angles = particleData.getAngles();
+
+            if (cameraBillboard) {
+
+                particleData.upVec.set(up);
+
+                final float stretch = velocityStretching ?
+                        particleData.getVelocity().length() * velocityStretchFactor : 1F;
+
+                axesChanged |= putVector(lefts, size.x, size.y * stretch, angles.z);
+
+            } else {
+
+                updateRotation(particleData, billboardMode, camera);
+
+                particleData.upVec.set(up);
+
+                if (velocityStretching) {
+                    final Vector3f velocity = particleData.getVelocity();
+                    up.multLocal(velocity.length() * velocityStretchFactor);
+                }
+
+                up.multLocal(size.y);
+                left.multLocal(size.x);
+
+                rotStore.fromAngleNormalAxis(angles.y, tempV3.set(left).normalizeLocal());
+
+                left.set(rotStore.mult(left, tempV2));
+                up.set(rotStore.mult(up, tempV2));
+
+                rotStore.fromAngleNormalAxis(angles.x, tempV3.set(up).normalizeLocal());
+
+                left.set(rotStore.mult(left, tempV2));
+                up.set(rotStore.mult(up, tempV2));
+
+                rotStore.fromAngleNormalAxis(angles.z, tempV3.set(dir).normalizeLocal());
+
+                left.set(rotStore.mult(left, tempV2));
+                up.set(rotStore.mult(up, tempV2));
+
+                axesChanged |= putVector(lefts, left.x, left.y, left.z);
+                axesChanged |= putVector(ups, up.x, up.y, up.z);
+            }
+
+            if (emitterNode.isParticlesFollowEmitter()) {
+                tempV1.set(particleData.position);
+            } else {
+
+                final Vector3f subtract = worldTranslation
+                        .subtract(particleData.initialPosition, tempV2);
+
+                tempV1.set(particleData.position)
+                        .subtractLocal(subtract);
+            }
+
+            centersChanged |= putVector(centers, tempV1.x, tempV1.y, tempV1.z);
+
+            if (isUniqueTexCoords()) {
+
+                final float startX = 1f / emitterNode.getSpriteColCount() * particleData.spriteCol;
+                final float startY = 1f / emitterNode.getSpriteRowCount() * particleData.spriteRow;
+
+                final float endX = startX + 1f / emitterNode.getSpriteColCount();
+                final float endY = startY + 1f / emitterNode.getSpriteRowCount();
+
+                spritesChanged |= putTexCoord(sprites, startX, startY);
+                spritesChanged |= putTexCoord(sprites, endX, endY);
+
+            } else {
+                spritesChanged |= putTexCoord(sprites, 0f, 0f);
+                spritesChanged |= putTexCoord(sprites, 1f, 1f);
+            }
+
+            color.set(particleData.color);
+            color.a *= particleData.alpha;
+
+            colorsChanged |= putColor(colors, color.asIntABGR(), 1);
+        }
+
+        centers.flip();
+        lefts.flip();
+        sprites.flip();
+        colors.flip();
+
+        // re-send only changed data to GPU
+        uploadData(centerBuffer, centers, count, centersChanged);
+        uploadData(leftBuffer, lefts, count, axesChanged);
+
+        if (!cameraBillboard) {
+            ups.flip();
+            uploadData(upBuffer, ups, count, axesChanged);
+        }
+
+        uploadData(spriteBuffer, sprites, count, spritesChanged);
+        uploadData(colorBuffer, colors, count, colorsChanged);
+
+        if (centersChanged || axesChanged || count != getDrawnParticleCount() ||
+                cameraBillboard != this.cameraBillboard) {
+            this.cameraBillboard = cameraBillboard;
+            updateBound();
+        }
+
+        setDrawnInstances(count, QUAD_VERTICES, QUAD_TRIANGLES);
+    }
+
+    /**
+     * Returns true if particles with the billboard mode are billboarded by the camera in the vertex shader.
+     *
+     * @param billboardMode the billboard mode.
+     * @return true if particles are billboarded by the camera in the vertex shader.
+     */
+    public static boolean isCameraBillboard(@NotNull final BillboardMode billboardMode) {
+        return billboardMode == BillboardMode.CAMERA;
+    }
+
+    @Override
+    public int getInstanceCount() {
+        return Math.max(getDrawnParticleCount(), 0);
+    }
+
+    /**
+     * Updates the bound of this mesh by the centers and the axes of particles, because the positions of this mesh
+     * contain only the template of a particle.
+     */
+    @Override
+    public void updateBound() {
+
+        final BoundingVolume bound = getBound();
+        final FloatBuffer centers = getFloatBuffer(CENTER_BUFFER);
+        final FloatBuffer lefts = getFloatBuffer(LEFT_BUFFER);
+        final FloatBuffer ups = getFloatBuffer(UP_BUFFER);
+
+        if (!(bound instanceof BoundingBox) || centers == null || lefts == null || ups == null) {
+            super.updateBound();
+            return;
+        }
+
+        final int limit = centers.limit();
+
+        if (limit < 3) {
+            ((BoundingBox) bound).setMinMax(min.set(Vector3f.ZERO), max.set(Vector3f.ZERO));
+            return;
+        }
+
+        min.set(Vector3f.POSITIVE_INFINITY);
+        max.set(Vector3f.NEGATIVE_INFINITY);
+
+        for (int i = 0; i < limit; i += 3) {
+
+            final float extentX, extentY, extentZ;
+
+            if (cameraBillboard) {
+                // the quad can be rotated in any direction by the camera
+                final float width = lefts.get(i);
+                final float height = lefts.get(i + 1);
+                extentX = extentY = extentZ = (float) Math.sqrt(width * width + height * height);
+            } else {
+                extentX = Math.abs(lefts.get(i)) + Math.abs(ups.get(i));
+                extentY = Math.abs(lefts.get(i + 1)) + Math.abs(ups.get(i + 1));
+                extentZ = Math.abs(lefts.get(i + 2)) + Math.abs(ups.get(i + 2));
+            }
+
+            final float x = centers.get(i);
+            final float y = centers.get(i + 1);
+            final float z = centers.get(i + 2);
+
+            min.set(Math.min(min.x, x - extentX), Math.min(min.y, y - extentY), Math.min(min.z, z - extentZ));
+            max.set(Math.max(max.x, x + extentX), Math.max(max.y, y + extentY), Math.max(max.z, z + extentZ));
+        }
+
+        ((BoundingBox) bound).setMinMax(min, max);
+    }
+
+    @Override
+    public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+        super.cloneFields(cloner, original);
+        color = cloner.clone(color);
+        min = cloner.clone(min);
+        max = cloner.clone(max);
+    }
+}
@@ -0,0 +1,222 @@
+package tonegod.emitter.particle;
+
+import com.jme3.util.clone.Cloner;
+import com.jme3.util.clone.JmeCloneable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The layout of additional data slots of particles of one emitter. Data ids reserved by influencers through {@link
+ * ParticleData#reserveObjectDataId()} and others are global keys, this layout maps them to compact slots which are
+ * assigned only for data ids which are actually used by particles of the emitter.
+ *
+ * @author JavaSaBr
+ */
+public final class ParticleDataLayout implements JmeCloneable, Cloneable {
+
+    @NotNull
+    private static final int[] EMPTY_SLOTS = new int[0];
+
+    /**
+     * The table of slots.
+     */
+    private static final class SlotTable implements Cloneable {
+
+        /**
+         * The slots by data ids.
+         */
+        @NotNull
+        private int[] slots;
+
+        /**
+         * The count of assigned slots.
+         */
+        private int count;
+
+        private SlotTable() {
+            this.slots = EMPTY_SLOTS;
+        }
+
+        /**
+         * Get a slot of the data id.
+         *
+         * @param dataId the data id.
+         * @return the slot or -1.
+         */
+        private int get(final int dataId) {
+            return dataId < slots.length ? slots[dataId] : -1;
+        }
+
+        /**
+         * Reserve a slot for the data id.
+         *
+         * @param dataId the data id.
+         * @return the slot.
+         */
+        private int reserve(final int dataId) {
+
+            if (dataId >= slots.length) {
+                final int prevLength = slots.length;
+                slots = Arrays.copyOf(slots, dataId + 1);
+                Arrays.fill(slots, prevLength, slots.length, -1);
+            }
+
+            int slot = slots[dataId];
+
+            if (slot == -1) {
+                slot = count++;
+                slots[dataId] = slot;
+            }
+
+            return slot;
+        }
+
+        @Override
+        protected @NotNull SlotTable clone() {
+            try {
+                final SlotTable clone = (SlotTable) super.clone();
+                clone.slots = slots.clone();
+                return clone;
+            } catch (final CloneNotSupportedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * The object slots.
+     */
+    @NotNull
+    private SlotTable objectSlots;
+
+    /**
+     * The int slots.
+     */
+    @NotNull
+    private SlotTable intSlots;
+
+    /**
+     * The float slots.
+     */
+    @NotNull
+    private SlotTable floatSlots;
+
+    public ParticleDataLayout() {
+        this.objectSlots = new SlotTable();
+        this.intSlots = new SlotTable();
+        this.floatSlots = new SlotTable();
+    }
+
+    /**
+     * Get an object slot of the data id.
+     *
+     * @param dataId the data id.
+     * @return the object slot or -1 if it isn't reserved.
+     */
+    public int getObjectSlot(final int dataId) {
+        return objectSlots.get(dataId);
+    }
+
+    /**
+     * Get an int slot of the data id.
+     *
+     * @param dataId the data id.
+     * @return the int slot or -1 if it isn't reserved.
+     */
+    public int getIntSlot(final int dataId) {
+        return intSlots.get(dataId);
+    }
+
+    /**
+     * Get a float slot of the data id.
+     *
+     * @param dataId the data id.
+     * @return the float slot or -1 if it isn't reserved.
+     */
+    public int getFloatSlot(final int dataId) {
+        return floatSlots.get(dataId);
+    }
+
+    /**
+     * Reserve an object slot for the data id.
+     *
+     * @param dataId the data id.
+     * @return the object slot.
+     */
+    public int reserveObjectSlot(final int dataId) {
+        return objectSlots.reserve(dataId);
+    }
+
+    /**
+     * Reserve an int slot for the data id.
+     *
+     * @param dataId the data id.
+     * @return the int slot.
+     */
+    public int reserveIntSlot(final int dataId) {
+        return intSlots.reserve(dataId);
+    }
+
+    /**
+     * Reserve a float slot for the data id.
+     *
+     * @param dataId the data id.
+     * @return the float slot.
+     */
+    public int reserveFloatSlot(final int dataId) {
+        return floatSlots.reserve(dataId);
+    }
+
+    /**
+     * Get the count of reserved object slots.
+     *
+     * @return the count of reserved object slots.
+     */
+    public int getObjectSlotCount() {
+        return objectSlots.count;
+    }
+
+    /**
+     * Get the count of reserved int slots.
+     *
+     * @return the count of reserved int slots.
+     */
+    public int getIntSlotCount() {
+        return intSlots.count;
+    }
+
+    /**
+     * Get the count of reserved float slots.
+     *
+     * @return the count of reserved float slots.
+     */
+    public int getFloatSlotCount() {
+        return floatSlots.count;
+    }
+
+    @Override
+    public @NotNull ParticleDataLayout jmeClone() {
+        try {
+            return (ParticleDataLayout) super.clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+        objectSlots = objectSlots.clone();
+        intSlots = intSlots.clone();
+        floatSlots = floatSlots.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "ParticleDataLayout{" +
+                "objectSlots=" + objectSlots.count +
+                ", intSlots=" + intSlots.count +
+                ", floatSlots=" + floatSlots.count +
+                '}';
+    }
+}
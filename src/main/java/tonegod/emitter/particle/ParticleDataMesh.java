@@ -9,6 +9,7 @@ import com.jme3.util.BufferUtils;
 import org.jetbrains.annotations.NotNull;
 import tonegod.emitter.ParticleEmitterNode;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 
@@ -39,9 +40,32 @@ public abstract class ParticleDataMesh extends Mesh {
      */
     private boolean uniqueTexCoords;
 
+    /**
+     * The count of indexes which were uploaded to the index buffer.
+     */
+    private int uploadedIndexCount;
+
+    /**
+     * The count of drawn particles or -1 if all particles are drawn.
+     */
+    private int drawnParticleCount;
+
+    /**
+     * The count of drawn vertices or -1 if all vertices are drawn.
+     */
+    private int drawnVertexCount;
+
+    /**
+     * The count of drawn triangles or -1 if all triangles are drawn.
+     */
+    private int drawnTriangleCount;
+
     public ParticleDataMesh() {
         this.imagesX = 1;
         this.imagesY = 1;
+        this.drawnParticleCount = -1;
+        this.drawnVertexCount = -1;
+        this.drawnTriangleCount = -1;
     }
 
     /**
@@ -83,6 +107,161 @@ public abstract class ParticleDataMesh extends Mesh {
         }
     }
 
+    /**
+     * Limits drawing of this mesh to the first particles, so only live particles which are packed to the start of
+     * buffers are drawn. The index buffer is uploaded again only when more indexes are drawn than were uploaded.
+     *
+     * @param count               the count of particles to draw.
+     * @param verticesPerParticle the count of vertices per particle.
+     * @param indexesPerParticle  the count of indexes per particle or 0 if the mesh doesn't have indexes.
+     */
+    protected void setDrawnParticles(final int count, final int verticesPerParticle, final int indexesPerParticle) {
+
+        drawnParticleCount = count;
+        drawnVertexCount = count * verticesPerParticle;
+        drawnTriangleCount = getMode() == Mode.Points ? drawnVertexCount : count * indexesPerParticle / 3;
+
+        if (indexesPerParticle < 1) {
+            return;
+        }
+
+        final int indexCount = count * indexesPerParticle;
+        final VertexBuffer buffer = getBuffer(VertexBuffer.Type.Index);
+        final Buffer data = buffer.getData();
+        data.limit(indexCount);
+
+        if (buffer.isUpdateNeeded()) {
+            // the pending upload sends only the drawn indexes
+            uploadedIndexCount = indexCount;
+        } else if (indexCount > uploadedIndexCount) {
+            buffer.updateData(data);
+            uploadedIndexCount = indexCount;
+        }
+    }
+
+    /**
+     * Limits drawing of this instanced mesh to the first instances, so only live particles which are packed to the
+     * start of instance buffers are drawn. The template of a particle isn't drawn if there are no live particles.
+     *
+     * @param count                the count of instances to draw.
+     * @param verticesPerInstance  the count of vertices of the template.
+     * @param trianglesPerInstance the count of triangles of the template.
+     */
+    protected void setDrawnInstances(final int count, final int verticesPerInstance, final int trianglesPerInstance) {
+        drawnParticleCount = count;
+        drawnVertexCount = count > 0 ? verticesPerInstance : 0;
+        drawnTriangleCount = count > 0 ? trianglesPerInstance : 0;
+    }
+
+    /**
+     * Gets the count of particles which were drawn by the previous update.
+     *
+     * @return the count of drawn particles or -1 if all particles are drawn.
+     */
+    protected int getDrawnParticleCount() {
+        return drawnParticleCount;
+    }
+
+    /**
+     * Marks the data of the vertex buffer to upload only if the data was changed or the count of drawn particles was
+     * changed, so untouched vertex buffers aren't uploaded again. Must be called before {@link
+     * #setDrawnParticles(int, int, int)}.
+     *
+     * @param buffer  the vertex buffer.
+     * @param data    the written data of the vertex buffer.
+     * @param count   the count of written particles.
+     * @param changed true if the written data is different from the previous data.
+     */
+    protected void uploadData(@NotNull final VertexBuffer buffer, @NotNull final Buffer data, final int count,
+                              final boolean changed) {
+        if (changed || count != drawnParticleCount) {
+            buffer.updateData(data);
+        }
+    }
+
+    /**
+     * Puts the vector to the current position of the buffer.
+     *
+     * @param buffer the buffer.
+     * @param x      the X component.
+     * @param y      the Y component.
+     * @param z      the Z component.
+     * @return true if the buffer contained another vector in this position.
+     */
+    protected static boolean putVector(@NotNull final FloatBuffer buffer, final float x, final float y,
+                                       final float z) {
+
+        final int position = buffer.position();
+        final boolean changed = buffer.get(position) != x || buffer.get(position + 1) != y ||
+                buffer.get(position + 2) != z;
+
+        buffer.put(x).put(y).put(z);
+
+        return changed;
+    }
+
+    /**
+     * Puts the texture coordinates to the current position of the buffer.
+     *
+     * @param buffer the buffer.
+     * @param u      the U coordinate.
+     * @param v      the V coordinate.
+     * @return true if the buffer contained other coordinates in this position.
+     */
+    protected static boolean putTexCoord(@NotNull final FloatBuffer buffer, final float u, final float v) {
+
+        final int position = buffer.position();
+        final boolean changed = buffer.get(position) != u || buffer.get(position + 1) != v;
+
+        buffer.put(u).put(v);
+
+        return changed;
+    }
+
+    /**
+     * Puts the value to the index of the buffer.
+     *
+     * @param buffer the buffer.
+     * @param index  the index.
+     * @param value  the value.
+     * @return true if the buffer contained another value in this index.
+     */
+    protected static boolean putFloat(@NotNull final FloatBuffer buffer, final int index, final float value) {
+        final boolean changed = buffer.get(index) != value;
+        buffer.put(index, value);
+        return changed;
+    }
+
+    /**
+     * Puts the color to the current position of the buffer for the count of vertices.
+     *
+     * @param buffer   the buffer.
+     * @param abgr     the color in ABGR format.
+     * @param vertices the count of vertices.
+     * @return true if the buffer contained another color in this position.
+     */
+    protected static boolean putColor(@NotNull final ByteBuffer buffer, final int abgr, final int vertices) {
+
+        boolean changed = false;
+
+        for (int i = 0; i < vertices; i++) {
+            changed |= buffer.getInt(buffer.position()) != abgr;
+            buffer.putInt(abgr);
+        }
+
+        return changed;
+    }
+
+    @Override
+    public int getVertexCount() {
+        return drawnVertexCount < 0 ? super.getVertexCount() : drawnVertexCount;
+    }
+
+    @Override
+    public int getTriangleCount() {
+        return drawnTriangleCount < 0 ? super.getTriangleCount() : drawnTriangleCount;
+    }
+
     /**
      * The particleMeshTemplate mesh to use for defining a particle
      *
@@ -99,6 +278,9 @@ public abstract class ParticleDataMesh extends Mesh {
      */
     public void initParticleData(@NotNull final ParticleEmitterNode emitterNode, final int numParticles) {
         this.emitterNode = emitterNode;
+        this.drawnParticleCount = -1;
+        this.drawnVertexCount = -1;
+        this.drawnTriangleCount = -1;
     }
 
     /**
@@ -116,7 +298,8 @@ public abstract class ParticleDataMesh extends Mesh {
     }
 
     /**
-     * Update the particle visual data. Typically called every frame.
+     * Update the particle visual data. Typically called every frame, so implementations must not allocate new objects
+     * here.
      *
      * @param particles       the particles
      * @param camera          the camera
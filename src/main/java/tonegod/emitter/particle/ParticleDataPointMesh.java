@@ -1,6 +1,7 @@
 package tonegod.emitter.particle;
 
 import com.jme3.math.Matrix3f;
+import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
@@ -30,7 +31,7 @@ public final class ParticleDataPointMesh extends ParticleDataMesh {
 
         setMode(Mode.Points);
         preparePositionBuffer(numParticles);
-        prepareColorBuffer(numParticles);
+        prepareColorBuffer(numParticles * 4);
 
         // set sizes
         FloatBuffer sb = BufferUtils.createFloatBuffer(numParticles);
@@ -80,21 +81,36 @@ public final class ParticleDataPointMesh extends ParticleDataMesh {
         //float sizeScale = emitter.getWorldScale().x;
 
         // update data in vertex buffers
-        positions.rewind();
-        colors.rewind();
-        sizes.rewind();
-        texcoords.rewind();
+        positions.clear();
+        colors.clear();
+        sizes.clear();
+        texcoords.clear();
 
+        int count = 0;
+
+        boolean positionsChanged = false;
+        boolean colorsChanged = false;
+        boolean sizesChanged = false;
+        boolean texCoordsChanged = false;
+
+        // live particles are packed to the start of buffers
         for (final ParticleData particleData : particles) {
 
-            positions.put(particleData.position.x)
-                    .put(particleData.position.y)
-                    .put(particleData.position.z);
+            if (particleData.life == 0 || !particleData.active) {
+                continue;
+            }
+
+            count++;
+
+            final Vector3f position = particleData.position;
 
+            positionsChanged |= putVector(positions, position.x, position.y, position.z);
+
+            sizesChanged |= sizes.get(sizes.position()) != particleData.size.x;
             sizes.put(particleData.size.x); // * worldSace);
 
             particleData.color.a *= particleData.alpha;
-            colors.putInt(particleData.color.asIntABGR());
+            colorsChanged |= putColor(colors, particleData.color.asIntABGR(), 1);
 
             int imgX = particleData.spriteCol; //particleData.imageIndex % imagesX;
             int imgY = particleData.spriteRow; //(particleData.imageIndex - imgX) / imagesY;
@@ -104,7 +120,8 @@ public final class ParticleDataPointMesh extends ParticleDataMesh {
             float endX = startX + (1f / getSpriteCols());
             float endY = startY + (1f / getSpriteRows());
 
-            texcoords.put(startX).put(startY).put(endX).put(endY);
+            texCoordsChanged |= putTexCoord(texcoords, startX, startY);
+            texCoordsChanged |= putTexCoord(texcoords, endX, endY);
         }
 
         positions.flip();
@@ -112,13 +129,17 @@ public final class ParticleDataPointMesh extends ParticleDataMesh {
         sizes.flip();
         texcoords.flip();
 
-        // force renderer to re-send data to GPU
-        pvb.updateData(positions);
-        cvb.updateData(colors);
-        svb.updateData(sizes);
-        tvb.updateData(texcoords);
+        // re-send only changed data to GPU
+        uploadData(pvb, positions, count, positionsChanged);
+        uploadData(cvb, colors, count, colorsChanged);
+        uploadData(svb, sizes, count, sizesChanged);
+        uploadData(tvb, texcoords, count, texCoordsChanged);
+
+        if (positionsChanged || count != getDrawnParticleCount()) {
+            updateBound();
+        }
 
-        updateBound();
+        setDrawnParticles(count, 1, 0);
     }
 
     @Override
@@ -19,7 +19,6 @@ import tonegod.emitter.ParticleEmitterNode;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
 import java.util.Objects;
 
 /**
@@ -35,7 +34,7 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
     private Mesh template;
 
     private IndexBuffer templateIndexes;
-    private ShortBuffer finIndexes;
+    private IndexBuffer finIndexes;
 
     private FloatBuffer finVerts;
     private FloatBuffer finCoords;
@@ -84,7 +83,8 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
             e.printStackTrace();
         }
 
-        this.finIndexes = BufferUtils.createShortBuffer(templateIndexes.size() * numParticles);
+        this.finIndexes = MeshUtils.createIndexBuffer(templateVerts.capacity() / 3 * numParticles,
+                templateIndexes.size() * numParticles);
         this.finNormals = BufferUtils.createFloatBuffer(templateNormals.capacity() * numParticles);
         this.finColors = BufferUtils.createFloatBuffer(templateVerts.capacity() / 3 * 4 * numParticles);
 
@@ -116,7 +116,7 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
             }
 
             for (int v = 0; v < templateIndexes.size(); v++) {
-                finIndexes.put(index3, (short) (templateIndexes.get(v) + indexOffset));
+                finIndexes.put(index3, templateIndexes.get(v) + indexOffset);
                 index3++;
             }
 
@@ -145,8 +145,7 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
             e.printStackTrace();
         }
 
-        clearBuffer(VertexBuffer.Type.Index);
-        setBuffer(VertexBuffer.Type.Index, 3, finIndexes);
+        MeshUtils.setIndexBuffer(this, finIndexes);
         clearBuffer(VertexBuffer.Type.Normal);
         setBuffer(VertexBuffer.Type.Normal, 3, finNormals);
         clearBuffer(VertexBuffer.Type.Color);
@@ -171,44 +170,56 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
         final BillboardMode billboardMode = emitterNode.getBillboardMode();
         final Vector3f worldTranslation = emitterNode.getWorldTranslation();
 
-        for (int i = 0; i < particles.length; i++) {
+        final boolean applyLightingTransform = emitterNode.isApplyLightingTransform();
 
-            final ParticleData particleData = particles[i];
+        finVerts.clear();
+        finColors.clear();
 
-            int offset = templateVerts.capacity() * i;
-            int colorOffset = templateColors.capacity() * i;
+        if (applyLightingTransform) {
+            finNormals.clear();
+        }
+
+        int count = 0;
+
+        boolean positionsChanged = false;
+        boolean normalsChanged = false;
+        boolean colorsChanged = false;
+
+        // live particles are packed to the start of buffers
+        for (final ParticleData particleData : particles) {
 
             if (particleData.life == 0 || !particleData.active) {
-                for (int x = 0; x < templateVerts.capacity(); x += 3) {
-                    finVerts.put(offset + x, 0);
-                    finVerts.put(offset + x + 1, 0);
-                    finVerts.put(offset + x + 2, 0);
-                }
-            } else {
-                for (int x = 0; x < templateVerts.capacity(); x += 3) {
+                continue;
+            }
 
-                    updateRotation(particleData, billboardMode, camera);
+            int offset = templateVerts.capacity() * count;
+            int colorOffset = templateColors.capacity() * count;
 
-                    tempV1.set(templateVerts.get(x), templateVerts.get(x + 1), templateVerts.get(x + 2));
-                    tempV1.set(rotStore.mult(tempV1, tempV2));
-                    tempV1.multLocal(particleData.size);
+            count++;
 
-                    rotStore.fromAngles(particleData.angles.x, particleData.angles.y, particleData.angles.z);
-                    tempV1.set(rotStore.mult(tempV1, tempV2));
+            for (int x = 0; x < templateVerts.capacity(); x += 3) {
+
+                updateRotation(particleData, billboardMode, camera);
+
+                tempV1.set(templateVerts.get(x), templateVerts.get(x + 1), templateVerts.get(x + 2));
+                tempV1.set(rotStore.mult(tempV1, tempV2));
+                tempV1.multLocal(particleData.size);
 
-                    tempV1.addLocal(particleData.position);
+                rotStore.fromAngles(particleData.angles.x, particleData.angles.y, particleData.angles.z);
+                tempV1.set(rotStore.mult(tempV1, tempV2));
 
-                    if (!emitterNode.isParticlesFollowEmitter()) {
-                        tempV1.subtractLocal(worldTranslation.subtract(particleData.initialPosition, tempV2));//.divide(8f));
-                    }
+                tempV1.addLocal(particleData.position);
 
-                    finVerts.put(offset + x, tempV1.getX());
-                    finVerts.put(offset + x + 1, tempV1.getY());
-                    finVerts.put(offset + x + 2, tempV1.getZ());
+                if (!emitterNode.isParticlesFollowEmitter()) {
+                    tempV1.subtractLocal(worldTranslation.subtract(particleData.initialPosition, tempV2));//.divide(8f));
                 }
+
+                positionsChanged |= putFloat(finVerts, offset + x, tempV1.getX());
+                positionsChanged |= putFloat(finVerts, offset + x + 1, tempV1.getY());
+                positionsChanged |= putFloat(finVerts, offset + x + 2, tempV1.getZ());
             }
 
-            if (emitterNode.isApplyLightingTransform()) {
+            if (applyLightingTransform) {
                 for (int v = 0; v < templateNormals.capacity(); v += 3) {
 
                     tempV1.set(templateNormals.get(v), templateNormals.get(v + 1), templateNormals.get(v + 2));
@@ -221,28 +232,41 @@ public final class ParticleDataTemplateMesh extends RotatedParticleDataMesh {
                     tempV1.y = mat3.get(1, 0) * vx + mat3.get(1, 1) * vy + mat3.get(1, 2) * vz;
                     tempV1.z = mat3.get(2, 0) * vx + mat3.get(2, 1) * vy + mat3.get(2, 2) * vz;
 
-                    finNormals.put(offset + v, tempV1.getX());
-                    finNormals.put(offset + v + 1, tempV1.getY());
-                    finNormals.put(offset + v + 2, tempV1.getZ());
+                    normalsChanged |= putFloat(finNormals, offset + v, tempV1.getX());
+                    normalsChanged |= putFloat(finNormals, offset + v + 1, tempV1.getY());
+                    normalsChanged |= putFloat(finNormals, offset + v + 2, tempV1.getZ());
                 }
             }
 
             for (int v = 0; v < templateColors.capacity(); v += 4) {
-                finColors.put(colorOffset + v, particleData.color.r)
-                        .put(colorOffset + v + 1, particleData.color.g)
-                        .put(colorOffset + v + 2, particleData.color.b)
-                        .put(colorOffset + v + 3, particleData.color.a * particleData.alpha);
+                colorsChanged |= putFloat(finColors, colorOffset + v, particleData.color.r);
+                colorsChanged |= putFloat(finColors, colorOffset + v + 1, particleData.color.g);
+                colorsChanged |= putFloat(finColors, colorOffset + v + 2, particleData.color.b);
+                colorsChanged |= putFloat(finColors, colorOffset + v + 3, particleData.color.a * particleData.alpha);
             }
         }
 
-        setBuffer(VertexBuffer.Type.Position, 3, finVerts);
+        finVerts.limit(templateVerts.capacity() * count);
+        finColors.limit(templateColors.capacity() * count);
 
-        if (emitterNode.isApplyLightingTransform()) {
+        // re-send only changed data to GPU
+        uploadData(getBuffer(VertexBuffer.Type.Position), finVerts, count, positionsChanged);
+
+        if (applyLightingTransform) {
+            finNormals.limit(templateNormals.capacity() * count);
+            uploadData(getBuffer(VertexBuffer.Type.Normal), finNormals, count, normalsChanged);
+        } else if (finNormals.limit() != finNormals.capacity()) {
+            finNormals.clear();
             setBuffer(VertexBuffer.Type.Normal, 3, finNormals);
         }
 
-        setBuffer(VertexBuffer.Type.Color, 4, finColors);
-        updateBound();
+        uploadData(getBuffer(VertexBuffer.Type.Color), finColors, count, colorsChanged);
+
+        if (positionsChanged || count != getDrawnParticleCount()) {
+            updateBound();
+        }
+
+        setDrawnParticles(count, templateVerts.capacity() / 3, templateIndexes.size());
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.jme3.renderer.Camera;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Format;
 import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.scene.mesh.IndexBuffer;
 import com.jme3.util.BufferUtils;
 import com.jme3.util.clone.Cloner;
 import org.jetbrains.annotations.NotNull;
@@ -15,7 +16,6 @@ import tonegod.emitter.ParticleEmitterNode;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
-import java.nio.ShortBuffer;
 
 /**
  * The type Particle data tri mesh.
@@ -66,34 +66,24 @@ public final class ParticleDataTriMesh extends RotatedParticleDataMesh {
         }
 
         // set indices
-        ShortBuffer ib = BufferUtils.createShortBuffer(numParticles * 6);
+        final IndexBuffer ib = MeshUtils.createIndexBuffer(numParticles * 4, numParticles * 6);
 
-        for (int i = 0; i < numParticles; i++) {
+        for (int i = 0, index = 0; i < numParticles; i++) {
 
             final int startIdx = (i * 4);
 
             // triangle 1
-            ib.put((short) (startIdx + 1))
-                    .put((short) (startIdx + 0))
-                    .put((short) (startIdx + 2));
+            ib.put(index++, startIdx + 1);
+            ib.put(index++, startIdx + 0);
+            ib.put(index++, startIdx + 2);
 
             // triangle 2
-            ib.put((short) (startIdx + 1))
-                    .put((short) (startIdx + 2))
-                    .put((short) (startIdx + 3));
+            ib.put(index++, startIdx + 1);
+            ib.put(index++, startIdx + 2);
+            ib.put(index++, startIdx + 3);
         }
 
-        ib.flip();
-
-        buf = getBuffer(VertexBuffer.Type.Index);
-
-        if (buf != null) {
-            buf.updateData(ib);
-        } else {
-            final VertexBuffer ivb = new VertexBuffer(VertexBuffer.Type.Index);
-            ivb.setupData(Usage.Static, 3, Format.UnsignedShort, ib);
-            setBuffer(ivb);
-        }
+        MeshUtils.setIndexBuffer(this, ib);
 
         updateCounts();
     }
@@ -130,72 +120,71 @@ public final class ParticleDataTriMesh extends RotatedParticleDataMesh {
         colors.clear();
         texcoords.clear();
 
-        for (final ParticleData particleData : particles) {
-            if (particleData.life == 0 || !particleData.isActive()) {
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-                positions.put(0).put(0).put(0);
-            } else {
+        int count = 0;
 
-                updateRotation(particleData, billboardMode, camera);
+        boolean positionsChanged = false;
+        boolean colorsChanged = false;
+        boolean texCoordsChanged = false;
 
-                particleData.upVec.set(up);
+        // live particles are packed to the start of buffers
+        for (final ParticleData particleData : particles) {
 
-                if (emitterNode.isVelocityStretching()) {
-                    final Vector3f velocity = particleData.getVelocity();
-                    up.multLocal(velocity.length() * emitterNode.getVelocityStretchFactor());
-                }
+            if (particleData.life == 0 || !particleData.isActive()) {
+                continue;
+            }
 
-                final Vector3f size = particleData.getSize();
-                final Vector3f angles = particleData.getAngles();
+            count++;
 
-                up.multLocal(size.y);
-                left.multLocal(size.x);
+            updateRotation(particleData, billboardMode, camera);
 
-                rotStore.fromAngleNormalAxis(angles.y, tempV3.set(left).normalizeLocal());
+            particleData.upVec.set(up);
 
-                left.set(rotStore.mult(left, tempV2));
-                up.set(rotStore.mult(up, tempV2));
+            if (emitterNode.isVelocityStretching()) {
+                final Vector3f velocity = particleData.getVelocity();
+                up.multLocal(velocity.length() * emitterNode.getVelocityStretchFactor());
+            }
 
-                rotStore.fromAngleNormalAxis(angles.x, tempV3.set(up).normalizeLocal());
+            final Vector3f size = particleData.getSize();
+            final Vector3f angles = particleData.getAngles();
 
-                left.set(rotStore.mult(left, tempV2));
-                up.set(rotStore.mult(up, tempV2));
+            up.multLocal(size.y);
+            left.multLocal(size.x);
 
-                rotStore.fromAngleNormalAxis(angles.z, tempV3.set(dir).normalizeLocal());
+            rotStore.fromAngleNormalAxis(angles.y, tempV3.set(left).normalizeLocal());
 
-                left.set(rotStore.mult(left, tempV2));
-                up.set(rotStore.mult(up, tempV2));
+            left.set(rotStore.mult(left, tempV2));
+            up.set(rotStore.mult(up, tempV2));
 
-                if (emitterNode.isParticlesFollowEmitter()) {
-                    tempV1.set(particleData.position);
-                } else {
+            rotStore.fromAngleNormalAxis(angles.x, tempV3.set(up).normalizeLocal());
 
-                    final Vector3f subtract = worldTranslation
-                            .subtract(particleData.initialPosition, tempV2);
+            left.set(rotStore.mult(left, tempV2));
+            up.set(rotStore.mult(up, tempV2));
 
-                    tempV1.set(particleData.position)
-                            .subtractLocal(subtract);
-                }
+            rotStore.fromAngleNormalAxis(angles.z, tempV3.set(dir).normalizeLocal());
 
-                positions.put(tempV1.x + left.x + up.x)
-                        .put(tempV1.y + left.y + up.y)
-                        .put(tempV1.z + left.z + up.z);
+            left.set(rotStore.mult(left, tempV2));
+            up.set(rotStore.mult(up, tempV2));
 
-                positions.put(tempV1.x - left.x + up.x)
-                        .put(tempV1.y - left.y + up.y)
-                        .put(tempV1.z - left.z + up.z);
+            if (emitterNode.isParticlesFollowEmitter()) {
+                tempV1.set(particleData.position);
+            } else {
 
-                positions.put(tempV1.x + left.x - up.x)
-                        .put(tempV1.y + left.y - up.y)
-                        .put(tempV1.z + left.z - up.z);
+                final Vector3f subtract = worldTranslation
+                        .subtract(particleData.initialPosition, tempV2);
 
-                positions.put(tempV1.x - left.x - up.x)
-                        .put(tempV1.y - left.y - up.y)
-                        .put(tempV1.z - left.z - up.z);
+                tempV1.set(particleData.position)
+                        .subtractLocal(subtract);
             }
 
+            positionsChanged |= putVector(positions, tempV1.x + left.x + up.x, tempV1.y + left.y + up.y,
+                    tempV1.z + left.z + up.z);
+            positionsChanged |= putVector(positions, tempV1.x - left.x + up.x, tempV1.y - left.y + up.y,
+                    tempV1.z - left.z + up.z);
+            positionsChanged |= putVector(positions, tempV1.x + left.x - up.x, tempV1.y + left.y - up.y,
+                    tempV1.z + left.z - up.z);
+            positionsChanged |= putVector(positions, tempV1.x - left.x - up.x, tempV1.y - left.y - up.y,
+                    tempV1.z - left.z - up.z);
+
             if (isUniqueTexCoords()) {
 
                 final float startX = 1f / emitterNode.getSpriteColCount() * particleData.spriteCol;
@@ -204,37 +193,37 @@ public final class ParticleDataTriMesh extends RotatedParticleDataMesh {
                 final float endX = startX + 1f / emitterNode.getSpriteColCount();
                 final float endY = startY + 1f / emitterNode.getSpriteRowCount();
 
-                texcoords.put(startX).put(endY);
-                texcoords.put(endX).put(endY);
-                texcoords.put(startX).put(startY);
-                texcoords.put(endX).put(startY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, endY);
+                texCoordsChanged |= putTexCoord(texcoords, startX, startY);
+                texCoordsChanged |= putTexCoord(texcoords, endX, startY);
             }
 
             color.set(particleData.color);
             color.a *= particleData.alpha;
 
-            int abgr = color.asIntABGR();
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
-            colors.putInt(abgr);
+            colorsChanged |= putColor(colors, color.asIntABGR(), 4);
         }
 
-        positions.clear();
-        colors.clear();
+        positions.flip();
+        colors.flip();
 
         if (!isUniqueTexCoords()) {
             texcoords.clear();
         } else {
-            texcoords.clear();
-            tvb.updateData(texcoords);
+            texcoords.flip();
+            uploadData(tvb, texcoords, count, texCoordsChanged);
         }
 
-        // force renderer to re-send data to GPU
-        pvb.updateData(positions);
-        cvb.updateData(colors);
+        // re-send only changed data to GPU
+        uploadData(pvb, positions, count, positionsChanged);
+        uploadData(cvb, colors, count, colorsChanged);
+
+        if (positionsChanged || count != getDrawnParticleCount()) {
+            updateBound();
+        }
 
-        updateBound();
+        setDrawnParticles(count, 4, 6);
     }
 
     @Override
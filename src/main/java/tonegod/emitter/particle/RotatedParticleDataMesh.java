@@ -116,7 +116,7 @@ public abstract class RotatedParticleDataMesh extends ParticleDataMesh {
                 left.set(velocity).crossLocal(up).normalizeLocal();
                 dir.set(velocity);
 
-                rotStore.fromAngleAxis(-90 * FastMath.DEG_TO_RAD, left);
+                rotStore.fromAngleNormalAxis(-90 * FastMath.DEG_TO_RAD, left);
 
                 left.set(rotStore.mult(left, tempV2));
                 up.set(rotStore.mult(up, tempV2));
@@ -131,10 +131,10 @@ public abstract class RotatedParticleDataMesh extends ParticleDataMesh {
                 dir.set(velocity);
 
                 tempV1.set(left).crossLocal(up).normalizeLocal();
-                rotStore.fromAngleAxis(90 * FastMath.DEG_TO_RAD, velocity);
+                rotStore.fromAngleNormalAxis(90 * FastMath.DEG_TO_RAD, tempV3.set(velocity).normalizeLocal());
                 left.set(rotStore.mult(left, tempV2));
                 up.set(rotStore.mult(up, tempV2));
-                rotStore.fromAngleAxis(-90 * FastMath.DEG_TO_RAD, left);
+                rotStore.fromAngleNormalAxis(-90 * FastMath.DEG_TO_RAD, left);
                 up.set(rotStore.mult(up, tempV2));
                 break;
             }
@@ -142,9 +142,7 @@ public abstract class RotatedParticleDataMesh extends ParticleDataMesh {
 
                 final ParticleEmitterNode emitterNode = getEmitterNode();
                 final EmitterMesh emitterShape = emitterNode.getEmitterShape();
-                emitterShape.setNext(particleData.triangleIndex);
-
-                tempV1.set(emitterShape.getNormal());
+                emitterShape.getEmissionNormal(particleData, tempV1);
 
                 if (Vector3f.UNIT_Y.equals(tempV1)) {
                     tempV1.set(particleData.getVelocity());
@@ -157,10 +155,6 @@ public abstract class RotatedParticleDataMesh extends ParticleDataMesh {
             }
             case NORMAL_Y_UP: {
 
-                final ParticleEmitterNode emitterNode = getEmitterNode();
-                final EmitterMesh emitterShape = emitterNode.getEmitterShape();
-                emitterShape.setNext(particleData.triangleIndex);
-
                 tempV1.set(particleData.getVelocity());
 
                 if (Vector3f.UNIT_Y.equals(tempV1)) {
@@ -209,6 +203,7 @@ public abstract class RotatedParticleDataMesh extends ParticleDataMesh {
         lock = cloner.clone(lock);
         tempV1 = cloner.clone(tempV1);
         tempV2 = cloner.clone(tempV2);
+        tempV3 = cloner.clone(tempV3);
         rotStore = cloner.clone(rotStore);
     }
 }
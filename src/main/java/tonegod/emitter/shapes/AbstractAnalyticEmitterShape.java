@@ -0,0 +1,93 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.clone.Cloner;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * The base implementation of analytic emitter shapes.
+ *
+ * @author JavaSaBr
+ */
+public abstract class AbstractAnalyticEmitterShape implements AnalyticEmitterShape, Cloneable {
+
+    /**
+     * The count of points in preview meshes.
+     */
+    protected static final int PREVIEW_POINTS = 512;
+
+    /**
+     * Takes a random unit vector which is uniformly distributed over the unit sphere.
+     *
+     * @param random the random.
+     * @param store  the vector to store the direction.
+     * @return the direction.
+     */
+    protected static @NotNull Vector3f randomDirection(@NotNull final Random random, @NotNull final Vector3f store) {
+
+        final float y = random.nextFloat() * 2F - 1F;
+        final float radius = FastMath.sqrt(Math.max(1F - y * y, 0F));
+        final float angle = random.nextFloat() * FastMath.TWO_PI;
+
+        return store.set(radius * FastMath.cos(angle), y, radius * FastMath.sin(angle));
+    }
+
+    @Override
+    public @NotNull Vector3f getCenter(@NotNull final Vector3f store) {
+        return store.set(Vector3f.ZERO);
+    }
+
+    /**
+     * Creates a point cloud of this shape with the fixed seed, so the preview doesn't change between calls.
+     *
+     * @return the new mesh.
+     */
+    @Override
+    public @NotNull Mesh createPreviewMesh() {
+
+        final Random random = new Random(0);
+        final Vector3f point = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        final FloatBuffer positions = BufferUtils.createFloatBuffer(PREVIEW_POINTS * 3);
+
+        for (int i = 0; i < PREVIEW_POINTS; i++) {
+            sample(random, point, normal);
+            positions.put(point.x).put(point.y).put(point.z);
+        }
+
+        positions.flip();
+
+        final Mesh mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Points);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.updateCounts();
+        mesh.updateBound();
+
+        return mesh;
+    }
+
+    @Override
+    public AbstractAnalyticEmitterShape clone() {
+        try {
+            return (AbstractAnalyticEmitterShape) super.clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public AbstractAnalyticEmitterShape jmeClone() {
+        return clone();
+    }
+
+    @Override
+    public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+    }
+}
@@ -0,0 +1,45 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.Savable;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.util.clone.JmeCloneable;
+import org.jetbrains.annotations.NotNull;
+import tonegod.emitter.EmitterMesh;
+
+import java.util.Random;
+
+/**
+ * The emitter shape which is sampled by closed-form math instead of triangles of a mesh, see {@link
+ * EmitterMesh#setShape(tonegod.emitter.ParticleEmitterNode, AnalyticEmitterShape)}. The shape is defined in the space
+ * of the emitter before applying its rotation and scale.
+ *
+ * @author JavaSaBr
+ */
+public interface AnalyticEmitterShape extends Savable, JmeCloneable {
+
+    /**
+     * Takes a random point of this shape.
+     *
+     * @param random the random.
+     * @param point  the vector to store the point.
+     * @param normal the vector to store the unit normal of the shape at the point, it's used by {@link
+     *               EmitterMesh.DirectionType}.
+     */
+    void sample(@NotNull Random random, @NotNull Vector3f point, @NotNull Vector3f normal);
+
+    /**
+     * Gets the center of this shape.
+     *
+     * @param store the vector to store the center.
+     * @return the center of this shape.
+     */
+    @NotNull Vector3f getCenter(@NotNull Vector3f store);
+
+    /**
+     * Creates a mesh to show this shape in the test geometry of an emitter.
+     *
+     * @return the new mesh.
+     */
+    @NotNull Mesh createPreviewMesh();
+}
@@ -0,0 +1,140 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.Vector3f;
+import com.jme3.util.clone.Cloner;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The box emitter shape with the center in the origin of the emitter, particles are emitted from the surface or the
+ * volume of the box. Normals are normals of the nearest faces of the box.
+ *
+ * @author JavaSaBr
+ */
+public class BoxEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The half extents.
+     */
+    @NotNull
+    private Vector3f extents;
+
+    /**
+     * The flag of emitting only from the surface.
+     */
+    private boolean surface;
+
+    public BoxEmitterShape() {
+        this(new Vector3f(1F, 1F, 1F), false);
+    }
+
+    public BoxEmitterShape(@NotNull final Vector3f extents, final boolean surface) {
+        this.extents = extents.clone();
+        this.surface = surface;
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        final Vector3f extents = this.extents;
+
+        point.set(extents.x * (random.nextFloat() * 2F - 1F),
+                extents.y * (random.nextFloat() * 2F - 1F),
+                extents.z * (random.nextFloat() * 2F - 1F));
+
+        final int axis;
+
+        if (surface) {
+
+            // choose a pair of faces by their area
+            final float areaX = extents.y * extents.z;
+            final float areaY = extents.x * extents.z;
+            final float areaZ = extents.x * extents.y;
+            final float value = random.nextFloat() * (areaX + areaY + areaZ);
+
+            axis = value < areaX ? 0 : value < areaX + areaY ? 1 : 2;
+
+            final float sign = random.nextBoolean() ? 1F : -1F;
+            point.set(axis, extents.get(axis) * sign);
+
+        } else {
+
+            final float distanceX = extents.x == 0F ? 0F : Math.abs(point.x) / extents.x;
+            final float distanceY = extents.y == 0F ? 0F : Math.abs(point.y) / extents.y;
+            final float distanceZ = extents.z == 0F ? 0F : Math.abs(point.z) / extents.z;
+
+            if (distanceX >= distanceY && distanceX >= distanceZ) {
+                axis = 0;
+            } else if (distanceY >= distanceZ) {
+                axis = 1;
+            } else {
+                axis = 2;
+            }
+        }
+
+        normal.set(Vector3f.ZERO);
+        normal.set(axis, point.get(axis) < 0F ? -1F : 1F);
+    }
+
+    /**
+     * Gets the half extents.
+     *
+     * @return the half extents.
+     */
+    public @NotNull Vector3f getExtents() {
+        return extents;
+    }
+
+    /**
+     * Sets the half extents.
+     *
+     * @param extents the half extents.
+     */
+    public void setExtents(@NotNull final Vector3f extents) {
+        this.extents.set(extents);
+    }
+
+    /**
+     * Returns true if particles are emitted only from the surface.
+     *
+     * @return true if particles are emitted only from the surface.
+     */
+    public boolean isSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets true if particles should be emitted only from the surface.
+     *
+     * @param surface true if particles should be emitted only from the surface.
+     */
+    public void setSurface(final boolean surface) {
+        this.surface = surface;
+    }
+
+    @Override
+    public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+        super.cloneFields(cloner, original);
+        extents = cloner.clone(extents);
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(extents, "extents", null);
+        capsule.write(surface, "surface", false);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        extents = (Vector3f) capsule.readSavable("extents", new Vector3f(1F, 1F, 1F));
+        surface = capsule.readBoolean("surface", false);
+    }
+}
@@ -0,0 +1,140 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The cone emitter shape with the apex in the origin of the emitter which is opened along the +Y axis, particles are
+ * emitted from the side surface or the volume of the cone. Normals are directions from the apex, so the {@link
+ * tonegod.emitter.EmitterMesh.DirectionType#NORMAL} direction type sprays particles inside the cone.
+ *
+ * @author JavaSaBr
+ */
+public class ConeEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The radius of the base.
+     */
+    private float radius;
+
+    /**
+     * The height.
+     */
+    private float height;
+
+    /**
+     * The flag of emitting only from the side surface.
+     */
+    private boolean surface;
+
+    public ConeEmitterShape() {
+        this(1F, 1F, false);
+    }
+
+    public ConeEmitterShape(final float radius, final float height, final boolean surface) {
+        this.radius = radius;
+        this.height = height;
+        this.surface = surface;
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        // the area of a section grows as a square of the distance from the apex and the side area grows linearly
+        final float level = surface ? FastMath.sqrt(random.nextFloat()) : (float) Math.cbrt(random.nextFloat());
+        final float sectionRadius = surface ? radius * level : radius * level * FastMath.sqrt(random.nextFloat());
+        final float angle = random.nextFloat() * FastMath.TWO_PI;
+
+        point.set(sectionRadius * FastMath.cos(angle), height * level, sectionRadius * FastMath.sin(angle));
+        normal.set(point);
+
+        if (normal.lengthSquared() < FastMath.ZERO_TOLERANCE) {
+            normal.set(Vector3f.UNIT_Y);
+        } else {
+            normal.normalizeLocal();
+        }
+    }
+
+    @Override
+    public @NotNull Vector3f getCenter(@NotNull final Vector3f store) {
+        return store.set(0F, height / 2F, 0F);
+    }
+
+    /**
+     * Gets the radius of the base.
+     *
+     * @return the radius of the base.
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Sets the radius of the base.
+     *
+     * @param radius the radius of the base.
+     */
+    public void setRadius(final float radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Gets the height.
+     *
+     * @return the height.
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Sets the height.
+     *
+     * @param height the height.
+     */
+    public void setHeight(final float height) {
+        this.height = height;
+    }
+
+    /**
+     * Returns true if particles are emitted only from the side surface.
+     *
+     * @return true if particles are emitted only from the side surface.
+     */
+    public boolean isSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets true if particles should be emitted only from the side surface.
+     *
+     * @param surface true if particles should be emitted only from the side surface.
+     */
+    public void setSurface(final boolean surface) {
+        this.surface = surface;
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(radius, "radius", 1F);
+        capsule.write(height, "height", 1F);
+        capsule.write(surface, "surface", false);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        radius = capsule.readFloat("radius", 1F);
+        height = capsule.readFloat("height", 1F);
+        surface = capsule.readBoolean("surface", false);
+    }
+}
@@ -0,0 +1,101 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The disc emitter shape in the XZ plane with the center in the origin of the emitter, a disc with an inner radius is
+ * a flat ring. Normals are the +Y axis.
+ *
+ * @author JavaSaBr
+ */
+public class DiscEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The radius.
+     */
+    private float radius;
+
+    /**
+     * The inner radius.
+     */
+    private float innerRadius;
+
+    public DiscEmitterShape() {
+        this(1F, 0F);
+    }
+
+    public DiscEmitterShape(final float radius, final float innerRadius) {
+        this.radius = radius;
+        this.innerRadius = innerRadius;
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        final float innerSquare = innerRadius * innerRadius;
+        final float distance = FastMath.sqrt(random.nextFloat() * (radius * radius - innerSquare) + innerSquare);
+        final float angle = random.nextFloat() * FastMath.TWO_PI;
+
+        point.set(distance * FastMath.cos(angle), 0F, distance * FastMath.sin(angle));
+        normal.set(Vector3f.UNIT_Y);
+    }
+
+    /**
+     * Gets the radius.
+     *
+     * @return the radius.
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Sets the radius.
+     *
+     * @param radius the radius.
+     */
+    public void setRadius(final float radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Gets the inner radius.
+     *
+     * @return the inner radius.
+     */
+    public float getInnerRadius() {
+        return innerRadius;
+    }
+
+    /**
+     * Sets the inner radius to make a ring.
+     *
+     * @param innerRadius the inner radius.
+     */
+    public void setInnerRadius(final float innerRadius) {
+        this.innerRadius = innerRadius;
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(radius, "radius", 1F);
+        capsule.write(innerRadius, "innerRadius", 0F);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        radius = capsule.readFloat("radius", 1F);
+        innerRadius = capsule.readFloat("innerRadius", 0F);
+    }
+}
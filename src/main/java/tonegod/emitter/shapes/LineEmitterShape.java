@@ -0,0 +1,142 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.util.clone.Cloner;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The line segment emitter shape, particles are emitted from random points of the segment. Normals are random
+ * directions perpendicular to the segment.
+ *
+ * @author JavaSaBr
+ */
+public class LineEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The start of the segment.
+     */
+    @NotNull
+    private Vector3f start;
+
+    /**
+     * The end of the segment.
+     */
+    @NotNull
+    private Vector3f end;
+
+    /**
+     * The direction of the segment.
+     */
+    @NotNull
+    private Vector3f direction;
+
+    public LineEmitterShape() {
+        this(new Vector3f(-1F, 0F, 0F), new Vector3f(1F, 0F, 0F));
+    }
+
+    public LineEmitterShape(@NotNull final Vector3f start, @NotNull final Vector3f end) {
+        this.start = start.clone();
+        this.end = end.clone();
+        this.direction = new Vector3f();
+        updateDirection();
+    }
+
+    private void updateDirection() {
+        direction.set(end).subtractLocal(start).normalizeLocal();
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        point.interpolateLocal(start, end, random.nextFloat());
+
+        final Vector3f direction = this.direction;
+
+        for (int i = 0; i < 4; i++) {
+
+            randomDirection(random, normal);
+            normal.scaleAdd(-normal.dot(direction), direction, normal);
+
+            if (normal.lengthSquared() > FastMath.ZERO_TOLERANCE) {
+                normal.normalizeLocal();
+                return;
+            }
+        }
+
+        normal.set(Vector3f.UNIT_Y);
+    }
+
+    @Override
+    public @NotNull Vector3f getCenter(@NotNull final Vector3f store) {
+        return store.set(start).addLocal(end).multLocal(0.5F);
+    }
+
+    /**
+     * Gets the start of the segment.
+     *
+     * @return the start of the segment.
+     */
+    public @NotNull Vector3f getStart() {
+        return start;
+    }
+
+    /**
+     * Sets the start of the segment.
+     *
+     * @param start the start of the segment.
+     */
+    public void setStart(@NotNull final Vector3f start) {
+        this.start.set(start);
+        updateDirection();
+    }
+
+    /**
+     * Gets the end of the segment.
+     *
+     * @return the end of the segment.
+     */
+    public @NotNull Vector3f getEnd() {
+        return end;
+    }
+
+    /**
+     * Sets the end of the segment.
+     *
+     * @param end the end of the segment.
+     */
+    public void setEnd(@NotNull final Vector3f end) {
+        this.end.set(end);
+        updateDirection();
+    }
+
+    @Override
+    public void cloneFields(@NotNull final Cloner cloner, @NotNull final Object original) {
+        super.cloneFields(cloner, original);
+        start = cloner.clone(start);
+        end = cloner.clone(end);
+        direction = cloner.clone(direction);
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(start, "start", null);
+        capsule.write(end, "end", null);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        start = (Vector3f) capsule.readSavable("start", new Vector3f(-1F, 0F, 0F));
+        end = (Vector3f) capsule.readSavable("end", new Vector3f(1F, 0F, 0F));
+        updateDirection();
+    }
+}
@@ -0,0 +1,32 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The point emitter shape, all particles are emitted from the origin of the emitter and normals are random
+ * directions.
+ *
+ * @author JavaSaBr
+ */
+public class PointEmitterShape extends AbstractAnalyticEmitterShape {
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+        point.set(Vector3f.ZERO);
+        randomDirection(random, normal);
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+    }
+}
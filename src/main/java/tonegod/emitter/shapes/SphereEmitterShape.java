@@ -0,0 +1,134 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The sphere emitter shape with the center in the origin of the emitter, particles are emitted from the surface or
+ * the volume of the sphere or of the upper (+Y) hemisphere. Normals are directions from the center.
+ *
+ * @author JavaSaBr
+ */
+public class SphereEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The radius.
+     */
+    private float radius;
+
+    /**
+     * The flag of using only the upper hemisphere.
+     */
+    private boolean hemisphere;
+
+    /**
+     * The flag of emitting only from the surface.
+     */
+    private boolean surface;
+
+    public SphereEmitterShape() {
+        this(1F, false, false);
+    }
+
+    public SphereEmitterShape(final float radius, final boolean hemisphere, final boolean surface) {
+        this.radius = radius;
+        this.hemisphere = hemisphere;
+        this.surface = surface;
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        randomDirection(random, normal);
+
+        if (hemisphere && normal.y < 0F) {
+            normal.y = -normal.y;
+        }
+
+        final float distance = surface ? radius : radius * (float) Math.cbrt(random.nextFloat());
+
+        point.set(normal).multLocal(distance);
+    }
+
+    @Override
+    public @NotNull Vector3f getCenter(@NotNull final Vector3f store) {
+        return store.set(0F, hemisphere ? radius / 2F : 0F, 0F);
+    }
+
+    /**
+     * Gets the radius.
+     *
+     * @return the radius.
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Sets the radius.
+     *
+     * @param radius the radius.
+     */
+    public void setRadius(final float radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Returns true if only the upper hemisphere is used.
+     *
+     * @return true if only the upper hemisphere is used.
+     */
+    public boolean isHemisphere() {
+        return hemisphere;
+    }
+
+    /**
+     * Sets true if only the upper hemisphere should be used.
+     *
+     * @param hemisphere true if only the upper hemisphere should be used.
+     */
+    public void setHemisphere(final boolean hemisphere) {
+        this.hemisphere = hemisphere;
+    }
+
+    /**
+     * Returns true if particles are emitted only from the surface.
+     *
+     * @return true if particles are emitted only from the surface.
+     */
+    public boolean isSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets true if particles should be emitted only from the surface.
+     *
+     * @param surface true if particles should be emitted only from the surface.
+     */
+    public void setSurface(final boolean surface) {
+        this.surface = surface;
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(radius, "radius", 1F);
+        capsule.write(hemisphere, "hemisphere", false);
+        capsule.write(surface, "surface", false);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        radius = capsule.readFloat("radius", 1F);
+        hemisphere = capsule.readBoolean("hemisphere", false);
+        surface = capsule.readBoolean("surface", false);
+    }
+}
@@ -0,0 +1,154 @@
+package tonegod.emitter.shapes;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The torus emitter shape around the Y axis with the center in the origin of the emitter, particles are emitted from
+ * the surface or the volume of the torus. Normals are directions from the center line of the tube.
+ *
+ * @author JavaSaBr
+ */
+public class TorusEmitterShape extends AbstractAnalyticEmitterShape {
+
+    /**
+     * The max count of attempts to take a point by rejection sampling.
+     */
+    private static final int MAX_ATTEMPTS = 16;
+
+    /**
+     * The radius from the center to the center line of the tube.
+     */
+    private float majorRadius;
+
+    /**
+     * The radius of the tube.
+     */
+    private float minorRadius;
+
+    /**
+     * The flag of emitting only from the surface.
+     */
+    private boolean surface;
+
+    public TorusEmitterShape() {
+        this(1F, 0.25F, false);
+    }
+
+    public TorusEmitterShape(final float majorRadius, final float minorRadius, final boolean surface) {
+        this.majorRadius = majorRadius;
+        this.minorRadius = minorRadius;
+        this.surface = surface;
+    }
+
+    @Override
+    public void sample(@NotNull final Random random, @NotNull final Vector3f point, @NotNull final Vector3f normal) {
+
+        float distance = minorRadius;
+        float tubeAngle = 0F;
+
+        // the outer side of the torus is longer than the inner side, so points are rejected by the ratio of the
+        // length of their ring to the length of the outermost ring
+        final float maxRingDistance = majorRadius + minorRadius;
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+
+            distance = surface ? minorRadius : minorRadius * FastMath.sqrt(random.nextFloat());
+            tubeAngle = random.nextFloat() * FastMath.TWO_PI;
+
+            final float ratio = (majorRadius + distance * FastMath.cos(tubeAngle)) / maxRingDistance;
+
+            if (random.nextFloat() <= ratio) {
+                break;
+            }
+        }
+
+        final float angle = random.nextFloat() * FastMath.TWO_PI;
+        final float cos = FastMath.cos(angle);
+        final float sin = FastMath.sin(angle);
+        final float tubeCos = FastMath.cos(tubeAngle);
+        final float tubeSin = FastMath.sin(tubeAngle);
+        final float ringDistance = majorRadius + distance * tubeCos;
+
+        point.set(ringDistance * cos, distance * tubeSin, ringDistance * sin);
+        normal.set(tubeCos * cos, tubeSin, tubeCos * sin);
+    }
+
+    /**
+     * Gets the radius from the center to the center line of the tube.
+     *
+     * @return the major radius.
+     */
+    public float getMajorRadius() {
+        return majorRadius;
+    }
+
+    /**
+     * Sets the radius from the center to the center line of the tube.
+     *
+     * @param majorRadius the major radius.
+     */
+    public void setMajorRadius(final float majorRadius) {
+        this.majorRadius = majorRadius;
+    }
+
+    /**
+     * Gets the radius of the tube.
+     *
+     * @return the minor radius.
+     */
+    public float getMinorRadius() {
+        return minorRadius;
+    }
+
+    /**
+     * Sets the radius of the tube.
+     *
+     * @param minorRadius the minor radius.
+     */
+    public void setMinorRadius(final float minorRadius) {
+        this.minorRadius = minorRadius;
+    }
+
+    /**
+     * Returns true if particles are emitted only from the surface.
+     *
+     * @return true if particles are emitted only from the surface.
+     */
+    public boolean isSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets true if particles should be emitted only from the surface.
+     *
+     * @param surface true if particles should be emitted only from the surface.
+     */
+    public void setSurface(final boolean surface) {
+        this.surface = surface;
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(majorRadius, "majorRadius", 1F);
+        capsule.write(minorRadius, "minorRadius", 0.25F);
+        capsule.write(surface, "surface", false);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        majorRadius = capsule.readFloat("majorRadius", 1F);
+        minorRadius = capsule.readFloat("minorRadius", 0.25F);
+        surface = capsule.readBoolean("surface", false);
+    }
+}
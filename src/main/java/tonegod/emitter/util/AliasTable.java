@@ -0,0 +1,152 @@
+package tonegod.emitter.util;
+
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The table of a discrete distribution (Walker's alias method) which samples an index proportionally to its weight in
+ * constant time.
+ *
+ * @author JavaSaBr
+ */
+public class AliasTable implements Savable {
+
+    @NotNull
+    private static final float[] EMPTY_PROBABILITIES = new float[0];
+
+    @NotNull
+    private static final int[] EMPTY_ALIASES = new int[0];
+
+    /**
+     * The probabilities to take an index instead of its alias.
+     */
+    @NotNull
+    private float[] probabilities;
+
+    /**
+     * The aliases of indexes.
+     */
+    @NotNull
+    private int[] aliases;
+
+    public AliasTable() {
+        this.probabilities = EMPTY_PROBABILITIES;
+        this.aliases = EMPTY_ALIASES;
+    }
+
+    /**
+     * Creates the table of the weights.
+     *
+     * @param weights the not negative weights.
+     */
+    public AliasTable(@NotNull final float[] weights) {
+
+        final int size = weights.length;
+
+        this.probabilities = new float[size];
+        this.aliases = new int[size];
+
+        double sum = 0;
+
+        for (final float weight : weights) {
+            sum += weight;
+        }
+
+        if (sum <= 0) {
+            for (int i = 0; i < size; i++) {
+                probabilities[i] = 1F;
+                aliases[i] = i;
+            }
+            return;
+        }
+
+        final double[] scaled = new double[size];
+        final int[] small = new int[size];
+        final int[] large = new int[size];
+
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < size; i++) {
+
+            scaled[i] = weights[i] * size / sum;
+
+            if (scaled[i] < 1D) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+
+            final int less = small[--smallCount];
+            final int more = large[--largeCount];
+
+            probabilities[less] = (float) scaled[less];
+            aliases[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1D;
+
+            if (scaled[more] < 1D) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // the rest is equal to 1 with a rounding error
+        while (largeCount > 0) {
+            final int index = large[--largeCount];
+            probabilities[index] = 1F;
+            aliases[index] = index;
+        }
+
+        while (smallCount > 0) {
+            final int index = small[--smallCount];
+            probabilities[index] = 1F;
+            aliases[index] = index;
+        }
+    }
+
+    /**
+     * Gets the count of indexes.
+     *
+     * @return the count of indexes.
+     */
+    public int size() {
+        return probabilities.length;
+    }
+
+    /**
+     * Takes a random index with probability proportional to its weight.
+     *
+     * @param random the random.
+     * @return the index.
+     */
+    public int sample(@NotNull final Random random) {
+        final int index = random.nextInt(probabilities.length);
+        return random.nextFloat() < probabilities[index] ? index : aliases[index];
+    }
+
+    @Override
+    public void write(@NotNull final JmeExporter exporter) throws IOException {
+        final OutputCapsule capsule = exporter.getCapsule(this);
+        capsule.write(probabilities, "probabilities", EMPTY_PROBABILITIES);
+        capsule.write(aliases, "aliases", EMPTY_ALIASES);
+    }
+
+    @Override
+    public void read(@NotNull final JmeImporter importer) throws IOException {
+        final InputCapsule capsule = importer.getCapsule(this);
+        probabilities = capsule.readFloatArray("probabilities", EMPTY_PROBABILITIES);
+        aliases = capsule.readIntArray("aliases", EMPTY_ALIASES);
+    }
+}
@@ -0,0 +1,14 @@
+#import "Common/ShaderLib/GLSLCompat.glsllib"
+#import "tonegod/emitter/shaders/ParticleQuad.glsllib"
+
+uniform mat4 g_WorldViewProjectionMatrix;
+
+attribute vec3 inPosition;
+attribute vec2 inTexCoord;
+
+varying vec2 texCoord1;
+
+void main() {
+    texCoord1 = getParticleTexCoord(inTexCoord);
+    gl_Position = g_WorldViewProjectionMatrix * getParticlePosition(inPosition);
+}
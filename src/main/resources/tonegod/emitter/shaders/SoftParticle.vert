@@ -1,4 +1,5 @@
 #import "Common/ShaderLib/GLSLCompat.glsllib"
+#import "tonegod/emitter/shaders/ParticleQuad.glsllib"
 
 uniform mat4 g_WorldViewProjectionMatrix;
 
@@ -30,9 +31,17 @@ varying vec4 color;
 
 void main() {
 
-    #ifdef SOFT_PARTICLES
+    vec4 pos = getParticlePosition(inPosition);
 
-        vec4 pos = vec4(inPosition, 1.0);
+    #ifdef USE_TEXTURE
+        #ifdef INSTANCED_QUADS
+            texCoord = vec4(getParticleTexCoord(inTexCoord.xy), 0.0, 1.0);
+        #else
+            texCoord = inTexCoord;
+        #endif
+    #endif
+
+    #ifdef SOFT_PARTICLES
 
         gl_Position = g_WorldViewProjectionMatrix * pos;
         color = inColor;
@@ -43,10 +52,6 @@ void main() {
         // Transforms the vPosition data to the range [0,1]
         vPos = (gl_Position.xy / gl_Position.w + 1.0) / 2.0;
 
-        #ifdef USE_TEXTURE
-            texCoord = inTexCoord;
-        #endif
-
         #ifdef POINT_SPRITE
             vec4 worldPos = g_WorldMatrix * pos;
             float d = distance(g_CameraPosition.xyz, worldPos.xyz);
@@ -59,16 +64,10 @@ void main() {
         #endif
     #else
 
-        vec4 pos = vec4(inPosition, 1.0);
-
         gl_Position = g_WorldViewProjectionMatrix * pos;
 
         color = inColor;
 
-        #ifdef USE_TEXTURE
-            texCoord = inTexCoord;
-        #endif
-
         #ifdef POINT_SPRITE
 
             vec4 worldPos = g_WorldMatrix * pos;
@@ -0,0 +1,209 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.scene.Node;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.budget.AdaptiveQualityController;
+import tonegod.emitter.metrics.ParticlePhase;
+import tonegod.emitter.metrics.ParticleTracer;
+import tonegod.emitter.metrics.ParticleTracing;
+
+/**
+ * The test of adapting quality of particles to frame time.
+ *
+ * @author JavaSaBr
+ */
+public class AdaptiveQualityControllerTest {
+
+    private static final float TPF = 1F / 60F;
+
+    private static final int EMITTERS = 10;
+
+    @Test
+    public void testAdaptQuality() {
+
+        final AdaptiveQualityController controller = new AdaptiveQualityController();
+        controller.setTargetFrameTime(TPF);
+
+        // the frame time in the band of hysteresis doesn't change quality
+        update(controller, TPF * 1.05F, 10F);
+
+        assertEquals(1F, controller.getQuality());
+
+        // a short spike doesn't change quality
+        update(controller, TPF * 2F, 0.3F);
+
+        assertEquals(1F, controller.getQuality());
+
+        update(controller, TPF * 2F, 10F);
+
+        assertEquals(controller.getMinQuality(), controller.getQuality(), 0.001F);
+        assertEquals(4, controller.getUpdateInterval());
+        assertEquals(25, controller.scaleParticles(100));
+
+        update(controller, TPF / 2F, 1F);
+
+        assertEquals(controller.getMinQuality(), controller.getQuality(), 0.001F);
+
+        update(controller, TPF / 2F, 30F);
+
+        assertEquals(1F, controller.getQuality(), 0.001F);
+        assertEquals(1, controller.getUpdateInterval());
+        assertEquals(100, controller.scaleParticles(100));
+    }
+
+    @Test
+    public void testScaleEmitters() {
+
+        final AdaptiveQualityController controller = new AdaptiveQualityController();
+        controller.setQuality(0.5F);
+
+        assertEquals(2, controller.getUpdateInterval());
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(10);
+        emitterNode.setLife(1F);
+        emitterNode.setEnabled(true);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        AdaptiveQualityController.setGlobal(controller);
+        try {
+
+            // the first update can be skipped by the phase of the emitter
+            for (int i = 0; i < 121; i++) {
+                rootNode.updateLogicalState(TPF);
+                assertTrue(emitterNode.getActiveParticleCount() <= 50);
+            }
+
+            assertEquals(50, emitterNode.getActiveParticleCount());
+
+        } finally {
+            AdaptiveQualityController.setGlobal(null);
+        }
+
+        for (int i = 0; i < 60; i++) {
+            rootNode.updateLogicalState(TPF);
+        }
+
+        assertEquals(100, emitterNode.getActiveParticleCount());
+    }
+
+    @Test
+    public void testSpreadUpdates() {
+
+        final AdaptiveQualityController controller = new AdaptiveQualityController();
+        controller.setQuality(0.5F);
+
+        assertEquals(2, controller.getUpdateInterval());
+
+        final DesktopAssetManager assetManager = new DesktopAssetManager(true);
+        final Node rootNode = new Node("Root");
+
+        for (int i = 0; i < EMITTERS; i++) {
+            final ParticleEmitterNode emitterNode = new ParticleEmitterNode(assetManager);
+            emitterNode.setEnabled(true);
+            rootNode.attachChild(emitterNode);
+        }
+
+        final int[] updates = new int[1];
+
+        AdaptiveQualityController.setGlobal(controller);
+        ParticleTracing.setTracer(new ParticleTracer() {
+
+            @Override
+            public @Nullable Object begin(@NotNull final ParticlePhase phase,
+                                          @NotNull final ParticleEmitterNode emitterNode) {
+                if (phase == ParticlePhase.SIMULATION) updates[0]++;
+                return null;
+            }
+
+            @Override
+            public void end(@NotNull final Object event, @NotNull final ParticleEmitterNode emitterNode,
+                            final long value) {
+            }
+        });
+        try {
+
+            for (int i = 0; i < 10; i++) {
+
+                updates[0] = 0;
+                rootNode.updateLogicalState(TPF);
+
+                // skipped updates are spread across frames instead of updating all emitters every second frame
+                assertEquals(EMITTERS / 2, updates[0], "frame " + i);
+            }
+
+        } finally {
+            ParticleTracing.setTracer(null);
+            AdaptiveQualityController.setGlobal(null);
+        }
+    }
+
+    @Test
+    public void testEmissionRate() {
+
+        final int fullCount = emitParticles(null);
+
+        assertTrue(fullCount > 0);
+
+        final float[] qualities = {1F, 0.5F, 0.25F};
+
+        for (final float quality : qualities) {
+
+            final AdaptiveQualityController controller = new AdaptiveQualityController();
+            controller.setQuality(quality);
+
+            final int count = emitParticles(controller);
+
+            // the emission is scaled by quality only once, the update rate doesn't change the emission rate
+            assertEquals(fullCount * quality, count, fullCount * 0.05F, "quality " + quality);
+        }
+    }
+
+    /**
+     * Runs an emitter through 10 seconds with the quality controller.
+     *
+     * @param controller the quality controller or null.
+     * @return the count of emitted particles.
+     */
+    private static int emitParticles(@Nullable final AdaptiveQualityController controller) {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(100000);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(10);
+        emitterNode.setLife(100F);
+        emitterNode.setEnabled(true);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        AdaptiveQualityController.setGlobal(controller);
+        try {
+
+            for (int i = 0; i < 600; i++) {
+                rootNode.updateLogicalState(TPF);
+            }
+
+        } finally {
+            AdaptiveQualityController.setGlobal(null);
+        }
+
+        return emitterNode.getActiveParticleCount();
+    }
+
+    private static void update(@NotNull final AdaptiveQualityController controller, final float tpf,
+                               final float time) {
+        for (float passed = 0F; passed < time; passed += tpf) {
+            controller.update(tpf);
+        }
+    }
+}
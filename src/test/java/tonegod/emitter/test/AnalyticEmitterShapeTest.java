@@ -0,0 +1,253 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.EmitterMesh;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.shapes.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * The test of analytic emitter shapes.
+ *
+ * @author JavaSaBr
+ */
+public class AnalyticEmitterShapeTest {
+
+    private static final float EPSILON = 0.0001F;
+    private static final int SAMPLES = 2000;
+    private static final int DISTRIBUTION_SAMPLES = 50000;
+    private static final float DISTRIBUTION_EPSILON = 0.01F;
+
+    public static class TestEmitterNode extends ParticleEmitterNode {
+
+        public TestEmitterNode() {
+        }
+
+        public TestEmitterNode(@NotNull final AssetManager assetManager) {
+            super(assetManager);
+        }
+
+        public @NotNull ParticleData[] getParticles() {
+            return particles;
+        }
+    }
+
+    private interface Check {
+        void check(@NotNull Vector3f point, @NotNull Vector3f normal);
+    }
+
+    @Test
+    public void testSampleShapes() {
+
+        check(new PointEmitterShape(), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertEquals(Vector3f.ZERO, point);
+            }
+        });
+
+        check(new SphereEmitterShape(2F, false, true), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertEquals(2F, point.length(), EPSILON);
+                assertEquals(1F, normal.dot(point) / 2F, EPSILON);
+            }
+        });
+
+        check(new SphereEmitterShape(2F, true, false), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertTrue(point.length() <= 2F + EPSILON);
+                assertTrue(point.y >= 0F);
+            }
+        });
+
+        check(new BoxEmitterShape(new Vector3f(1F, 2F, 3F), true), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                final boolean onFace = Math.abs(Math.abs(point.x) - 1F) < EPSILON
+                        || Math.abs(Math.abs(point.y) - 2F) < EPSILON
+                        || Math.abs(Math.abs(point.z) - 3F) < EPSILON;
+                assertTrue(onFace);
+                assertTrue(point.dot(normal) > 0F);
+            }
+        });
+
+        check(new BoxEmitterShape(new Vector3f(1F, 2F, 3F), false), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertTrue(Math.abs(point.x) <= 1F && Math.abs(point.y) <= 2F && Math.abs(point.z) <= 3F);
+            }
+        });
+
+        check(new ConeEmitterShape(1F, 2F, true), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                final float sectionRadius = FastMath.sqrt(point.x * point.x + point.z * point.z);
+                assertEquals(point.y / 2F, sectionRadius, EPSILON);
+                assertTrue(normal.y >= 0F);
+            }
+        });
+
+        check(new DiscEmitterShape(2F, 1F), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertEquals(0F, point.y, EPSILON);
+                assertTrue(point.length() >= 1F - EPSILON && point.length() <= 2F + EPSILON);
+                assertEquals(Vector3f.UNIT_Y, normal);
+            }
+        });
+
+        check(new TorusEmitterShape(2F, 0.5F, true), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                final float ringDistance = FastMath.sqrt(point.x * point.x + point.z * point.z) - 2F;
+                assertEquals(0.5F, FastMath.sqrt(ringDistance * ringDistance + point.y * point.y), EPSILON);
+            }
+        });
+
+        check(new LineEmitterShape(new Vector3f(0, 0, 0), new Vector3f(0, 4, 0)), new Check() {
+            @Override
+            public void check(@NotNull final Vector3f point, @NotNull final Vector3f normal) {
+                assertEquals(0F, point.x, EPSILON);
+                assertEquals(0F, point.z, EPSILON);
+                assertEquals(0F, normal.y, EPSILON);
+            }
+        });
+    }
+
+    @Test
+    public void testVolumeDistribution() {
+
+        // the volume of the tube with the half radius is a quarter of the volume of the torus
+        final Random random = new Random(42);
+        final TorusEmitterShape torus = new TorusEmitterShape(1F, 0.5F, false);
+        final Vector3f point = new Vector3f();
+        final Vector3f normal = new Vector3f();
+
+        int core = 0;
+        int outer = 0;
+
+        for (int i = 0; i < DISTRIBUTION_SAMPLES; i++) {
+
+            torus.sample(random, point, normal);
+
+            final float ringDistance = FastMath.sqrt(point.x * point.x + point.z * point.z) - 1F;
+            final float distance = FastMath.sqrt(ringDistance * ringDistance + point.y * point.y);
+
+            if (distance <= 0.25F) core++;
+            if (ringDistance > 0F) outer++;
+        }
+
+        assertEquals(0.25F, (float) core / DISTRIBUTION_SAMPLES, DISTRIBUTION_EPSILON);
+
+        // the outer half of the tube by the Pappus's theorem
+        final float outerShare = (1F + 4F * 0.5F / (3F * FastMath.PI)) / 2F;
+
+        assertEquals(outerShare, (float) outer / DISTRIBUTION_SAMPLES, DISTRIBUTION_EPSILON);
+
+        // the volume of the cone with the half height is an eighth of the volume of the cone
+        final ConeEmitterShape cone = new ConeEmitterShape(1F, 2F, false);
+
+        int top = 0;
+        int axis = 0;
+
+        for (int i = 0; i < DISTRIBUTION_SAMPLES; i++) {
+
+            cone.sample(random, point, normal);
+
+            final float sectionRadius = FastMath.sqrt(point.x * point.x + point.z * point.z);
+
+            if (point.y <= 1F) top++;
+            if (sectionRadius <= point.y / 4F) axis++;
+        }
+
+        assertEquals(0.125F, (float) top / DISTRIBUTION_SAMPLES, DISTRIBUTION_EPSILON);
+
+        // the area of the disc with the half radius is a quarter of the area of the section
+        assertEquals(0.25F, (float) axis / DISTRIBUTION_SAMPLES, DISTRIBUTION_EPSILON);
+    }
+
+    @Test
+    public void testEmitFromShape() throws IOException {
+
+        final DesktopAssetManager assetManager = new DesktopAssetManager(true);
+
+        final TestEmitterNode emitterNode = new TestEmitterNode(assetManager);
+        emitterNode.changeEmitterShape(new SphereEmitterShape(2F, false, true));
+        emitterNode.setLocalScale(2F);
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(10);
+        emitterNode.setStaticParticles(true);
+        emitterNode.setEnabled(true);
+
+        final Mesh previewMesh = emitterNode.getEmitterShape().getMesh();
+
+        assertTrue(previewMesh.getVertexCount() > 0);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        for (int i = 0; i < 10; i++) {
+            rootNode.updateLogicalState(1F / 60F);
+        }
+
+        assertTrue(emitterNode.getActiveParticleCount() > 0);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final Vector3f store = new Vector3f();
+
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+
+            if (!particleData.isActive()) {
+                continue;
+            }
+
+            assertEquals(4F, particleData.getPosition().length(), EPSILON * 10);
+            assertEquals(4F, emitterShape.getEmissionPoint(particleData, store).length(), EPSILON * 10);
+            assertEquals(1F, emitterShape.getEmissionNormal(particleData, store).length(), EPSILON);
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(emitterNode, out);
+
+        final BinaryImporter importer = BinaryImporter.getInstance();
+        importer.setAssetManager(assetManager);
+
+        final ParticleEmitterNode loaded = (ParticleEmitterNode) importer.load(new ByteArrayInputStream(out.toByteArray()));
+        final AnalyticEmitterShape shape = loaded.getEmitterShape().getAnalyticShape();
+
+        assertTrue(shape instanceof SphereEmitterShape);
+        assertEquals(2F, ((SphereEmitterShape) shape).getRadius());
+        assertTrue(((SphereEmitterShape) shape).isSurface());
+    }
+
+    private static void check(@NotNull final AnalyticEmitterShape shape, @NotNull final Check check) {
+
+        final Random random = new Random(42);
+        final Vector3f point = new Vector3f();
+        final Vector3f normal = new Vector3f();
+
+        for (int i = 0; i < SAMPLES; i++) {
+            shape.sample(random, point, normal);
+            assertEquals(1F, normal.length(), EPSILON, shape.getClass().getSimpleName());
+            check.check(point, normal);
+        }
+    }
+}
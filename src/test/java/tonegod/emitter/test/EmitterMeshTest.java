@@ -0,0 +1,437 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.animation.Bone;
+import com.jme3.animation.Skeleton;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Triangle;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Quad;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.EmissionBatch;
+import tonegod.emitter.EmitterMesh;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.util.AliasTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+/**
+ * The test of triangles of emitter shapes.
+ *
+ * @author JavaSaBr
+ */
+public class EmitterMeshTest {
+
+    private static final float EPSILON = 0.0001F;
+
+    @Test
+    public void testTransformedTriangles() {
+
+        final Mesh mesh = new Sphere(8, 8, 2F);
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+        emitterNode.setLocalTranslation(5, 5, 5);
+        emitterNode.setLocalScale(1F, 2F, 3F);
+        emitterNode.setLocalRotation(new Quaternion().fromAngles(0.3F, FastMath.HALF_PI, 0F));
+
+        checkTriangles(emitterNode, mesh);
+
+        emitterNode.setLocalRotation(new Quaternion().fromAngles(FastMath.PI, 0F, 0.7F));
+        emitterNode.setLocalScale(0.5F);
+
+        checkTriangles(emitterNode, mesh);
+    }
+
+    @Test
+    public void testAreaWeightedTriangles() {
+
+        final Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, new float[]{
+                0, 0, 0, 1, 0, 0, 0, 2, 0,
+                0, 0, 1, 3, 0, 1, 0, 2, 1
+        });
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, new short[]{0, 1, 2, 3, 4, 5});
+        mesh.updateCounts();
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+        emitterNode.setAreaWeightedEmission(true);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final int samples = 40000;
+
+        int small = 0;
+
+        for (int i = 0; i < samples; i++) {
+            emitterShape.setNext();
+            if (emitterShape.getTriangleIndex() == 0) small++;
+        }
+
+        assertEquals(0.25F, (float) small / samples, 0.02F);
+    }
+
+    @Test
+    public void testSampleBatch() {
+
+        final Mesh mesh = new Sphere(8, 8, 2F);
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+        emitterNode.setLocalScale(2F);
+        emitterNode.setSequentialEmissionFace(true);
+        emitterNode.setSequentialSkipPattern(true);
+        emitterNode.setRandomEmissionPoint(true);
+        emitterNode.setDirectionType(EmitterMesh.DirectionType.NORMAL_NEGATE);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final EmissionBatch batch = emitterShape.sample(100);
+        final int triangleCount = mesh.getTriangleCount();
+
+        final Vector3f center = new Vector3f();
+        final Vector3f normal = new Vector3f();
+        final Vector3f offset = new Vector3f();
+        final Vector3f store = new Vector3f();
+
+        assertEquals(100, batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+
+            final int triangleIndex = batch.getTriangleIndex(i);
+
+            assertEquals(((i + 1) * 2) % triangleCount, triangleIndex);
+
+            emitterShape.getTriangleCenter(triangleIndex, center);
+            emitterShape.getTriangleNormal(triangleIndex, normal);
+            batch.getOffset(i, offset);
+
+            assertVector(center.add(offset), batch.getPosition(i, store));
+            assertVector(normal, batch.getNormal(i, store));
+            assertVector(normal.negate(), batch.getDirection(i, store));
+
+            // the random point is in the plane of the triangle
+            assertEquals(0F, offset.dot(normal), EPSILON * 10);
+        }
+
+        emitterNode.setRandomEmissionPoint(false);
+        emitterNode.setDirectionType(EmitterMesh.DirectionType.RANDOM);
+
+        final EmissionBatch next = emitterShape.sample(10);
+
+        for (int i = 0; i < next.size(); i++) {
+            assertVector(Vector3f.ZERO, next.getOffset(i, store));
+            assertEquals(1F, next.getDirection(i, store).length(), EPSILON);
+        }
+    }
+
+    @Test
+    public void testVertexEmission() {
+
+        final Mesh mesh = new Sphere(8, 8, 2F);
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+        emitterNode.setVertexEmission(true);
+        emitterNode.setRandomEmissionPoint(true);
+        emitterNode.setDirectionType(EmitterMesh.DirectionType.NORMAL);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final EmissionBatch batch = emitterShape.sample(200);
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        final FloatBuffer normals = mesh.getFloatBuffer(VertexBuffer.Type.Normal);
+
+        final Vector3f expected = new Vector3f();
+        final Vector3f store = new Vector3f();
+
+        for (int i = 0; i < batch.size(); i++) {
+
+            final int vertexIndex = batch.getTriangleIndex(i);
+
+            assertTrue(vertexIndex < mesh.getVertexCount());
+
+            BufferUtils.populateFromBuffer(expected, positions, vertexIndex);
+            assertVector(expected, batch.getPosition(i, store));
+            assertVector(expected, emitterShape.getTriangleCenter(vertexIndex, store));
+
+            BufferUtils.populateFromBuffer(expected, normals, vertexIndex);
+            assertVector(expected.normalizeLocal(), batch.getDirection(i, store));
+        }
+    }
+
+    @Test
+    public void testPointCloud() {
+
+        final FloatBuffer points = BufferUtils.createFloatBuffer(new float[]{
+                1, 0, 0, 0, 2, 0, 0, 0, 3, -1, 0, 0
+        });
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapePoints(points, null);
+        emitterNode.setSequentialEmissionFace(true);
+        emitterNode.setDirectionType(EmitterMesh.DirectionType.NORMAL);
+        emitterNode.setLocalScale(2F);
+
+        final EmissionBatch batch = emitterNode.getEmitterShape().sample(4);
+        final Vector3f store = new Vector3f();
+
+        assertVector(new Vector3f(0, 4, 0), batch.getPosition(0, store));
+        assertVector(new Vector3f(0, 0, 6), batch.getPosition(1, store));
+        assertVector(new Vector3f(-2, 0, 0), batch.getPosition(2, store));
+        assertVector(new Vector3f(2, 0, 0), batch.getPosition(3, store));
+
+        // the bound of points is centered in (0, 1, 1.5) before scaling
+        assertVector(new Vector3f(0, 2, -3).normalizeLocal(), batch.getDirection(0, store));
+    }
+
+    @Test
+    public void testEmissionMask() {
+
+        final ByteBuffer data = BufferUtils.createByteBuffer(4 * 4 * 4);
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                final byte value = (byte) (x >= 2 && y < 2 ? 255 : 0);
+                data.put(value).put(value).put(value).put((byte) 255);
+            }
+        }
+
+        data.flip();
+
+        final Image mask = new Image(Image.Format.RGBA8, 4, 4, data, ColorSpace.Linear);
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(new Quad(4F, 4F));
+        emitterNode.setSequentialEmissionFace(true);
+        emitterNode.setEmissionMask(new Texture2D(mask));
+
+        final EmissionBatch batch = emitterNode.getEmitterShape().sample(2000);
+        final Vector3f store = new Vector3f();
+
+        int left = 0;
+
+        for (int i = 0; i < batch.size(); i++) {
+
+            batch.getPosition(i, store);
+
+            assertTrue(store.x >= 2F - EPSILON && store.x <= 4F + EPSILON, store.toString());
+            assertTrue(store.y >= -EPSILON && store.y <= 2F + EPSILON, store.toString());
+            assertEquals(0F, store.z, EPSILON);
+
+            if (store.x < 3F) left++;
+        }
+
+        // the masked area is uniformly covered
+        assertEquals(0.5F, left / 2000F, 0.05F);
+
+        emitterNode.setEmissionMask(null);
+
+        assertNull(emitterNode.getEmitterShape().getEmissionMask());
+    }
+
+    @Test
+    public void testAnimatedShape() {
+
+        final Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, new float[]{0, 0, 0, 3, 0, 0, 0, 3, 0});
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, new short[]{0, 1, 2});
+        mesh.updateCounts();
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final Vector3f store = new Vector3f();
+
+        assertVector(new Vector3f(1, 1, 0), emitterShape.getTriangleCenter(0, store));
+
+        // vertices are changed like by software skinning
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        positions.put(2, 3F).put(5, 3F).put(8, 3F);
+
+        emitterShape.update();
+
+        assertVector(new Vector3f(1, 1, 0), emitterShape.getTriangleCenter(0, store));
+
+        emitterNode.setAnimatedEmitterShape(true);
+
+        assertVector(new Vector3f(1, 1, 3), emitterShape.getTriangleCenter(0, store));
+
+        positions.put(2, 6F).put(5, 6F).put(8, 6F);
+
+        // the snapshot is shared in the same frame
+        assertVector(new Vector3f(1, 1, 3), emitterShape.sample(1).getPosition(0, store));
+
+        emitterShape.update();
+
+        assertVector(new Vector3f(1, 1, 6), emitterShape.sample(1).getPosition(0, store));
+    }
+
+    @Test
+    public void testSkinnedShape() {
+
+        final Mesh mesh = new Mesh();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, new float[]{0, 0, 0, 3, 0, 0, 0, 3, 0});
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, new short[]{0, 1, 2});
+        mesh.setBuffer(VertexBuffer.Type.BoneIndex, 4, new byte[]{0, 1, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0});
+        mesh.setBuffer(VertexBuffer.Type.BoneWeight, 4, new float[]{1, 0, 0, 0, 0.5F, 0.5F, 0, 0, 1, 0, 0, 0});
+        mesh.setMaxNumWeights(2);
+        mesh.updateCounts();
+
+        final Bone first = new Bone("first");
+        final Bone second = new Bone("second");
+        final Skeleton skeleton = new Skeleton(new Bone[]{first, second});
+        skeleton.setBindingPose();
+
+        first.setUserControl(true);
+        second.setUserControl(true);
+        second.setUserTransforms(new Vector3f(0, 0, 2), Quaternion.IDENTITY, Vector3f.UNIT_XYZ);
+        skeleton.updateWorldVectors();
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(mesh);
+        emitterNode.setAnimatedEmitterShape(true);
+        emitterNode.setEmitterShapeSkeleton(skeleton);
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+
+        // the first vertex is not moved, the second is moved by half, the third is moved fully
+        assertVector(new Vector3f(1, 1, 1), emitterShape.getTriangleCenter(0, new Vector3f()));
+    }
+
+    @Test
+    public void testPersistPreprocessedData() throws IOException {
+
+        final Vector3f center = new Vector3f();
+        final Vector3f store = new Vector3f();
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeEmitterShapeMesh(new Sphere(8, 8, 2F));
+        emitterNode.setAreaWeightedEmission(true);
+        emitterNode.setLocalScale(2F);
+        emitterNode.getEmitterShape().getTriangleCenter(5, center);
+
+        // the loaded cache is used without reading the mesh
+        EmitterMesh loaded = saveAndLoad(emitterNode).getEmitterShape();
+        scaleMesh(loaded.getMesh());
+
+        assertVector(center, loaded.getTriangleCenter(5, store));
+
+        // the cache isn't saved, so it's built from the loaded mesh
+        emitterNode.getEmitterShape().setPersistPreprocessedData(false);
+
+        loaded = saveAndLoad(emitterNode).getEmitterShape();
+        scaleMesh(loaded.getMesh());
+
+        assertFalse(loaded.isPersistPreprocessedData());
+        assertVector(center.mult(2F), loaded.getTriangleCenter(5, store));
+    }
+
+    @Test
+    public void testAliasTable() throws IOException {
+
+        final float[] weights = {1F, 0F, 2F, 5F};
+        final AliasTable table = new AliasTable(weights);
+        final int[] counts = sample(table, new Random(42), 80000);
+
+        assertEquals(0, counts[1]);
+        assertEquals(1F / 8F, counts[0] / 80000F, 0.01F);
+        assertEquals(2F / 8F, counts[2] / 80000F, 0.01F);
+        assertEquals(5F / 8F, counts[3] / 80000F, 0.01F);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(table, out);
+
+        final BinaryImporter importer = BinaryImporter.getInstance();
+        importer.setAssetManager(new DesktopAssetManager(true));
+
+        final AliasTable loaded = (AliasTable) importer.load(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(table.size(), loaded.size());
+        assertArrayEquals(sample(table, new Random(7), 1000), sample(loaded, new Random(7), 1000));
+    }
+
+    private static @NotNull ParticleEmitterNode saveAndLoad(@NotNull final ParticleEmitterNode emitterNode)
+            throws IOException {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryExporter.getInstance().save(emitterNode, out);
+
+        final BinaryImporter importer = BinaryImporter.getInstance();
+        importer.setAssetManager(new DesktopAssetManager(true));
+
+        return (ParticleEmitterNode) importer.load(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void scaleMesh(@NotNull final Mesh mesh) {
+
+        final FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+
+        for (int i = 0; i < positions.limit(); i++) {
+            positions.put(i, positions.get(i) * 2F);
+        }
+    }
+
+    private static @NotNull int[] sample(@NotNull final AliasTable table, @NotNull final Random random,
+                                         final int count) {
+
+        final int[] counts = new int[table.size()];
+
+        for (int i = 0; i < count; i++) {
+            counts[table.sample(random)]++;
+        }
+
+        return counts;
+    }
+
+    private static void checkTriangles(@NotNull final ParticleEmitterNode emitterNode, @NotNull final Mesh mesh) {
+
+        final EmitterMesh emitterShape = emitterNode.getEmitterShape();
+        final Quaternion rotation = emitterNode.getLocalRotation();
+        final Vector3f scale = emitterNode.getLocalScale();
+        final Triangle expected = new Triangle();
+
+        for (int i = 0; i < mesh.getTriangleCount(); i++) {
+
+            mesh.getTriangle(i, expected);
+            expected.set1(rotation.mult(expected.get1().mult(scale)));
+            expected.set2(rotation.mult(expected.get2().mult(scale)));
+            expected.set3(rotation.mult(expected.get3().mult(scale)));
+            expected.setCenter(null);
+            expected.setNormal(null);
+
+            emitterShape.setNext(i);
+
+            assertEquals(i, emitterShape.getTriangleIndex());
+            assertVector(expected.getCenter(), emitterShape.getNextTranslation());
+            assertVector(expected.getCenter(), emitterShape.getTriangleCenter(i, new Vector3f()));
+
+            if (expected.getNormal().isUnitVector()) {
+                assertVector(expected.getNormal(), emitterShape.getNormal());
+                assertVector(expected.getNormal(), emitterShape.getTriangleNormal(i, new Vector3f()));
+            }
+        }
+    }
+
+    private static void assertVector(@NotNull final Vector3f expected, @NotNull final Vector3f actual) {
+        assertEquals(expected.x, actual.x, EPSILON);
+        assertEquals(expected.y, actual.y, EPSILON);
+        assertEquals(expected.z, actual.z, EPSILON);
+    }
+}
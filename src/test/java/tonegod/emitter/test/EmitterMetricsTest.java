@@ -0,0 +1,197 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.influencers.impl.AlphaInfluencer;
+import tonegod.emitter.influencers.impl.GravityInfluencer;
+import tonegod.emitter.metrics.EmitterMetrics;
+import tonegod.emitter.metrics.EmitterMetricsSink;
+import tonegod.emitter.metrics.InfluencerProfile;
+import tonegod.emitter.metrics.InfluencerProfiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The test of collecting metrics of emitters and profiling of influencers.
+ *
+ * @author JavaSaBr
+ */
+public class EmitterMetricsTest {
+
+    private static final float TPF = 1F / 60F;
+
+    @Test
+    public void testCollectMetrics() {
+
+        final List<EmitterMetrics> registered = new ArrayList<>();
+
+        EmitterMetrics.setSink(new EmitterMetricsSink() {
+
+            @Override
+            public void register(@NotNull final EmitterMetrics metrics) {
+                registered.add(metrics);
+            }
+
+            @Override
+            public void unregister(@NotNull final EmitterMetrics metrics) {
+                registered.remove(metrics);
+            }
+        });
+
+        try {
+
+            final EmitterMetrics global = EmitterMetrics.getGlobal();
+            global.reset();
+
+            final long globalUpdates = global.getUpdates();
+            final long globalEmitted = global.getEmittedParticles();
+            final int globalActive = global.getActiveParticles();
+
+            final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+            emitterNode.setMaxParticles(100);
+            emitterNode.setEmissionsPerSecond(60);
+            emitterNode.setParticlesPerEmission(2);
+            emitterNode.setLife(1F);
+            emitterNode.setEnabled(true);
+
+            assertFalse(emitterNode.isMetricsEnabled());
+            assertNull(emitterNode.getMetrics());
+
+            emitterNode.setMetricsEnabled(true);
+
+            final EmitterMetrics metrics = emitterNode.getMetrics();
+
+            assertNotNull(metrics);
+            assertTrue(registered.contains(global));
+
+            // metrics are registered only while the emitter is attached
+            assertFalse(registered.contains(metrics));
+
+            final Camera camera = new Camera(640, 480);
+            camera.setFrustumPerspective(45F, 640F / 480F, 1F, 1000F);
+            camera.setLocation(new Vector3f(0, 0, 10));
+            camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+            camera.update();
+
+            final ViewPort viewPort = new ViewPort("Test", camera);
+            final Node rootNode = new Node("Root");
+            rootNode.attachChild(emitterNode);
+
+            assertTrue(registered.contains(metrics));
+            assertTrue(EmitterMetrics.isRegistered(metrics));
+
+            for (int i = 0; i < 30; i++) {
+                rootNode.updateLogicalState(TPF);
+                rootNode.updateGeometricState();
+                emitterNode.runControlRender(null, viewPort);
+            }
+
+            assertEquals(emitterNode.getActiveParticleCount(), metrics.getActiveParticles());
+            assertTrue(metrics.getEmittedParticles() > 0);
+            assertTrue(metrics.getPeakParticles() >= metrics.getActiveParticles());
+            assertTrue(metrics.getUpdateTime() > 0);
+            assertTrue(metrics.getMeshUpdateTime() > 0);
+            assertTrue(metrics.getUploadedBytes() > 0);
+            assertEquals(emitterNode.getName(), metrics.getName());
+
+            assertEquals(30, metrics.getUpdates());
+            assertEquals(globalUpdates + metrics.getUpdates(), global.getUpdates());
+            assertEquals(globalEmitted + metrics.getEmittedParticles(), global.getEmittedParticles());
+            assertEquals(globalActive + metrics.getActiveParticles(), global.getActiveParticles());
+
+            metrics.reset();
+
+            assertEquals(0, metrics.getEmittedParticles());
+            assertEquals(0, metrics.getUpdateTime());
+
+            final ParticleEmitterNode clone = (ParticleEmitterNode) emitterNode.clone(false);
+            final EmitterMetrics cloneMetrics = clone.getMetrics();
+
+            assertNotNull(cloneMetrics);
+            assertFalse(EmitterMetrics.isRegistered(cloneMetrics));
+
+            final int active = emitterNode.getActiveParticleCount();
+
+            // detached emitters are released by the registry and their particles are removed from the global metrics
+            rootNode.detachChild(emitterNode);
+
+            assertFalse(registered.contains(metrics));
+            assertFalse(EmitterMetrics.isRegistered(metrics));
+            assertEquals(globalActive, global.getActiveParticles());
+
+            rootNode.attachChild(emitterNode);
+
+            assertTrue(registered.contains(metrics));
+            assertEquals(globalActive + active, global.getActiveParticles());
+
+            emitterNode.setMetricsEnabled(false);
+
+            assertNull(emitterNode.getMetrics());
+            assertFalse(registered.contains(metrics));
+            assertEquals(globalActive, global.getActiveParticles());
+
+        } finally {
+            EmitterMetrics.setSink(null);
+        }
+
+        assertTrue(registered.isEmpty());
+    }
+
+    @Test
+    public void testProfileInfluencers() {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(5);
+        emitterNode.setLife(0.2F);
+        emitterNode.setEnabled(true);
+
+        final AlphaInfluencer alphaInfluencer = new AlphaInfluencer();
+        final GravityInfluencer gravityInfluencer = new GravityInfluencer();
+
+        emitterNode.addInfluencers(alphaInfluencer, gravityInfluencer);
+        emitterNode.setInfluencerProfiling(true);
+
+        final InfluencerProfiler profiler = emitterNode.getInfluencerProfiler();
+
+        assertNotNull(profiler);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        for (int i = 0; i < 60; i++) {
+            rootNode.updateLogicalState(TPF);
+        }
+
+        final InfluencerProfile alphaProfile = profiler.getProfile(alphaInfluencer);
+        final InfluencerProfile gravityProfile = profiler.getProfile(gravityInfluencer);
+
+        assertNotNull(alphaProfile);
+        assertNotNull(gravityProfile);
+        assertEquals(2, profiler.getProfiles().size());
+        assertTrue(alphaProfile.getInitializeCalls() > 0);
+        assertTrue(alphaProfile.getUpdateCalls() > 0);
+        assertTrue(alphaProfile.getResetCalls() > 0);
+        assertEquals(alphaProfile.getUpdateCalls(), gravityProfile.getUpdateCalls());
+        assertTrue(gravityProfile.getTotalTime() > 0);
+        assertTrue(profiler.report().contains(gravityInfluencer.getName()));
+
+        profiler.reset();
+
+        assertEquals(0, alphaProfile.getUpdateCalls());
+        assertEquals(0, gravityProfile.getTotalTime());
+
+        emitterNode.setInfluencerProfiling(false);
+
+        assertNull(emitterNode.getInfluencerProfiler());
+    }
+}
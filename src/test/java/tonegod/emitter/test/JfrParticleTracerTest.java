@@ -0,0 +1,126 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.jfr.EmissionEvent;
+import tonegod.emitter.jfr.JfrParticleTracer;
+import tonegod.emitter.jfr.MeshFillEvent;
+import tonegod.emitter.jfr.SimulationEvent;
+import tonegod.emitter.metrics.ParticleTracing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The test of JFR events of emitters.
+ *
+ * @author JavaSaBr
+ */
+public class JfrParticleTracerTest {
+
+    private static final float TPF = 1F / 60F;
+
+    private static final int FRAMES = 10;
+
+    @Test
+    public void testRecordEvents() throws IOException {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setName("Traced Emitter");
+        emitterNode.setMaxParticles(1000);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(10);
+        emitterNode.setLife(100F);
+        emitterNode.setEnabled(true);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        final ViewPort viewPort = new ViewPort("Test", new Camera(100, 100));
+        final Path file = Files.createTempFile("particles", ".jfr");
+
+        try (final Recording recording = new Recording()) {
+
+            recording.enable(SimulationEvent.class).withoutThreshold();
+            recording.enable(EmissionEvent.class).withoutThreshold();
+            recording.enable(MeshFillEvent.class).withoutThreshold();
+            recording.start();
+
+            JfrParticleTracer.install();
+            try {
+
+                for (int i = 0; i < FRAMES; i++) {
+                    rootNode.updateLogicalState(TPF);
+                    emitterNode.runControlRender(null, viewPort);
+                }
+
+            } finally {
+                ParticleTracing.setTracer(null);
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final List<RecordedEvent> events;
+        try {
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+
+        final List<RecordedEvent> simulationEvents = getEvents(events, "tonegod.emitter.Simulation");
+        final List<RecordedEvent> emissionEvents = getEvents(events, "tonegod.emitter.Emission");
+        final List<RecordedEvent> meshFillEvents = getEvents(events, "tonegod.emitter.MeshFill");
+
+        assertEquals(FRAMES, simulationEvents.size());
+        assertEquals(FRAMES, meshFillEvents.size());
+        assertFalse(emissionEvents.isEmpty());
+
+        for (final RecordedEvent event : events) {
+            assertEquals("Traced Emitter", event.getString("emitterName"));
+            assertEquals(System.identityHashCode(emitterNode), event.getInt("emitterId"));
+        }
+
+        int emittedParticles = 0;
+
+        for (final RecordedEvent event : emissionEvents) {
+            assertTrue(event.getInt("emittedParticles") > 0);
+            emittedParticles += event.getInt("emittedParticles");
+        }
+
+        final RecordedEvent lastSimulation = simulationEvents.get(simulationEvents.size() - 1);
+
+        assertEquals(emitterNode.getActiveParticleCount(), emittedParticles);
+        assertEquals(emitterNode.getActiveParticleCount(), lastSimulation.getInt("activeParticles"));
+
+        // the first fill uploads all vertex buffers of the emitted particles
+        assertTrue(meshFillEvents.get(0).getLong("uploadedBytes") > 0);
+    }
+
+    private static @NotNull List<RecordedEvent> getEvents(@NotNull final List<RecordedEvent> events,
+                                                          @NotNull final String name) {
+
+        final List<RecordedEvent> result = new ArrayList<>();
+
+        for (final RecordedEvent event : events) {
+            if (name.equals(event.getEventType().getName())) {
+                result.add(event);
+            }
+        }
+
+        return result;
+    }
+}
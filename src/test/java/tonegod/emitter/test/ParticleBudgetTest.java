@@ -0,0 +1,190 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Node;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.budget.ParticleBudget;
+
+/**
+ * The test of distributing the global budget of particles between emitters.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleBudgetTest {
+
+    private static final float TPF = 1F / 60F;
+
+    @Test
+    public void testLimitParticles() {
+
+        final ParticleBudget budget = new ParticleBudget();
+        budget.setMaxParticles(150);
+
+        final Camera camera = new Camera(640, 480);
+        camera.setFrustumPerspective(45F, 640F / 480F, 1F, 1000F);
+        camera.setLocation(new Vector3f(0, 0, 10));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        camera.update();
+
+        final ParticleEmitterNode important = createEmitter(1);
+        final ParticleEmitterNode near = createEmitter(0);
+        final ParticleEmitterNode far = createEmitter(0);
+
+        near.setLocalTranslation(0, 0, 5);
+        far.setLocalTranslation(0, 0, -100);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(far);
+        rootNode.attachChild(near);
+        rootNode.attachChild(important);
+
+        ParticleBudget.setGlobal(budget);
+        try {
+
+            for (int i = 0; i < 120; i++) {
+                rootNode.updateLogicalState(TPF);
+                rootNode.updateGeometricState();
+                budget.update(camera);
+            }
+
+            assertEquals(300, budget.getLastDemandedParticles());
+            assertEquals(150, budget.getLastParticleBudget());
+
+            assertEquals(100, important.getActiveParticleCount());
+            assertEquals(1F, important.getEmissionScale());
+            assertEquals(50, near.getParticleLimit());
+            assertTrue(near.getActiveParticleCount() <= 50);
+            assertTrue(near.getActiveParticleCount() > 0);
+            assertEquals(0, far.getParticleLimit());
+            assertEquals(0, far.getActiveParticleCount());
+
+            budget.setMaxParticles(ParticleBudget.UNLIMITED);
+
+            for (int i = 0; i < 120; i++) {
+                rootNode.updateLogicalState(TPF);
+                rootNode.updateGeometricState();
+                budget.update(camera);
+            }
+
+            assertEquals(100, far.getActiveParticleCount());
+            assertEquals(ParticleBudget.UNLIMITED, far.getParticleLimit());
+
+            budget.setMaxParticles(120);
+            rootNode.updateLogicalState(TPF);
+            budget.update(camera);
+
+            assertEquals(180, budget.getLastKilledParticles());
+            assertEquals(120, important.getActiveParticleCount() + near.getActiveParticleCount()
+                    + far.getActiveParticleCount());
+
+        } finally {
+            ParticleBudget.setGlobal(null);
+        }
+
+        assertEquals(1F, near.getEmissionScale());
+        assertEquals(ParticleBudget.UNLIMITED, near.getParticleLimit());
+    }
+
+    @Test
+    public void testReleaseMetrics() {
+
+        final ParticleBudget budget = new ParticleBudget();
+        budget.setMaxUpdateTime(1000000000L);
+
+        final ParticleEmitterNode metered = createEmitter(0);
+        final ParticleEmitterNode measured = createEmitter(0);
+        measured.setMetricsEnabled(true);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(metered);
+        rootNode.attachChild(measured);
+
+        ParticleBudget.setGlobal(budget);
+        try {
+
+            rootNode.updateLogicalState(TPF);
+            budget.update(null);
+
+            assertTrue(metered.isMetricsEnabled());
+            assertTrue(measured.isMetricsEnabled());
+
+            // metrics are disabled when the time becomes unlimited
+            budget.setMaxUpdateTime(0);
+            rootNode.updateLogicalState(TPF);
+            budget.update(null);
+
+            assertFalse(metered.isMetricsEnabled());
+            assertTrue(measured.isMetricsEnabled());
+
+            budget.setMaxUpdateTime(1000000000L);
+            rootNode.updateLogicalState(TPF);
+            budget.update(null);
+
+            assertTrue(metered.isMetricsEnabled());
+
+        } finally {
+            ParticleBudget.setGlobal(null);
+        }
+
+        // only metrics which were enabled by the budget are disabled by releasing
+        assertFalse(metered.isMetricsEnabled());
+        assertTrue(measured.isMetricsEnabled());
+    }
+
+    @Test
+    public void testReleaseUncheckedMetrics() {
+
+        final ParticleBudget budget = new ParticleBudget();
+        budget.setMaxUpdateTime(1000000000L);
+
+        final ParticleEmitterNode finished = createEmitter(0);
+        final ParticleEmitterNode running = createEmitter(0);
+
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(finished);
+        rootNode.attachChild(running);
+
+        ParticleBudget.setGlobal(budget);
+        try {
+
+            rootNode.updateLogicalState(TPF);
+            budget.update(null);
+
+            assertTrue(finished.isMetricsEnabled());
+            assertTrue(running.isMetricsEnabled());
+
+            // the finished emitter doesn't check in anymore
+            rootNode.detachChild(finished);
+            rootNode.updateLogicalState(TPF);
+            budget.update(null);
+
+            assertFalse(finished.isMetricsEnabled());
+            assertTrue(running.isMetricsEnabled());
+
+            // the finished emitter isn't kept by the budget, so its metrics aren't touched by releasing
+            finished.setMetricsEnabled(true);
+
+        } finally {
+            ParticleBudget.setGlobal(null);
+        }
+
+        assertTrue(finished.isMetricsEnabled());
+        assertFalse(running.isMetricsEnabled());
+    }
+
+    private static @NotNull ParticleEmitterNode createEmitter(final int priority) {
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEmissionsPerSecond(60);
+        emitterNode.setParticlesPerEmission(2);
+        emitterNode.setLife(1F);
+        emitterNode.setPriority(priority);
+        emitterNode.setEnabled(true);
+        return emitterNode;
+    }
+}
@@ -0,0 +1,151 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.influencers.impl.AbstractParticleInfluencer;
+import tonegod.emitter.influencers.impl.AlphaInfluencer;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.particle.ParticleDataLayout;
+
+/**
+ * The test of layouts of data slots of particles.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleDataLayoutTest {
+
+    private static final float EPSILON = 0.0001F;
+
+    /**
+     * The test influencer which keeps the index of a particle in int, float and object data.
+     */
+    private static final class SlotInfluencer extends AbstractParticleInfluencer {
+
+        private static final int INT_ID = ParticleData.reserveIntDataId();
+        private static final int FLOAT_ID = ParticleData.reserveFloatDataId();
+        private static final int OBJECT_ID = ParticleData.reserveObjectDataId();
+
+        /**
+         * The offset of values of this influencer.
+         */
+        private final int offset;
+
+        private SlotInfluencer(final int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public @NotNull String getName() {
+            return "Slots";
+        }
+
+        @Override
+        protected void initializeImpl(@NotNull final ParticleData particleData) {
+            final int value = offset + particleData.index;
+            particleData.initializeIntData(INT_ID, value);
+            particleData.initializeFloatData(FLOAT_ID, value);
+            particleData.reserveObjectData(OBJECT_ID);
+            particleData.setObjectData(OBJECT_ID, String.valueOf(value));
+            super.initializeImpl(particleData);
+        }
+    }
+
+    @Test
+    public void testEmitterLayouts() {
+
+        final DesktopAssetManager assetManager = new DesktopAssetManager(true);
+
+        final AnalyticEmitterShapeTest.TestEmitterNode firstEmitter =
+                new AnalyticEmitterShapeTest.TestEmitterNode(assetManager);
+        firstEmitter.addInfluencers(new AlphaInfluencer(), new SlotInfluencer(100));
+        firstEmitter.setMaxParticles(10);
+        firstEmitter.setEnabled(true);
+        firstEmitter.emitNextParticles(10);
+
+        final AnalyticEmitterShapeTest.TestEmitterNode secondEmitter =
+                new AnalyticEmitterShapeTest.TestEmitterNode(assetManager);
+        secondEmitter.addInfluencer(new SlotInfluencer(200));
+        secondEmitter.setMaxParticles(10);
+        secondEmitter.setEnabled(true);
+        secondEmitter.emitNextParticles(10);
+
+        final ParticleDataLayout firstLayout = firstEmitter.getDataLayout();
+        final ParticleDataLayout secondLayout = secondEmitter.getDataLayout();
+
+        assertNotSame(firstLayout, secondLayout);
+
+        // slots are assigned only for data of influencers of the emitter
+        assertEquals(2, firstLayout.getObjectSlotCount());
+        assertEquals(1, firstLayout.getIntSlotCount());
+        assertEquals(1, firstLayout.getFloatSlotCount());
+        assertEquals(1, firstLayout.getObjectSlot(SlotInfluencer.OBJECT_ID));
+        assertEquals(0, firstLayout.getIntSlot(SlotInfluencer.INT_ID));
+        assertEquals(0, firstLayout.getFloatSlot(SlotInfluencer.FLOAT_ID));
+
+        // the data ids of other influencers don't take slots of the second emitter
+        assertEquals(1, secondLayout.getObjectSlotCount());
+        assertEquals(1, secondLayout.getIntSlotCount());
+        assertEquals(1, secondLayout.getFloatSlotCount());
+        assertEquals(0, secondLayout.getObjectSlot(SlotInfluencer.OBJECT_ID));
+        assertEquals(0, secondLayout.getIntSlot(SlotInfluencer.INT_ID));
+        assertEquals(0, secondLayout.getFloatSlot(SlotInfluencer.FLOAT_ID));
+
+        checkSlotData(firstEmitter, 100);
+        checkSlotData(secondEmitter, 200);
+    }
+
+    @Test
+    public void testCloneLayout() {
+
+        final AnalyticEmitterShapeTest.TestEmitterNode emitterNode =
+                new AnalyticEmitterShapeTest.TestEmitterNode(new DesktopAssetManager(true));
+        emitterNode.addInfluencer(new SlotInfluencer(100));
+        emitterNode.setMaxParticles(10);
+        emitterNode.setEnabled(true);
+        emitterNode.emitNextParticles(10);
+
+        final AnalyticEmitterShapeTest.TestEmitterNode clone =
+                (AnalyticEmitterShapeTest.TestEmitterNode) emitterNode.clone();
+        final ParticleDataLayout layout = clone.getDataLayout();
+
+        assertNotSame(emitterNode.getDataLayout(), layout);
+        assertEquals(1, layout.getObjectSlotCount());
+        assertEquals(1, layout.getIntSlotCount());
+        assertEquals(1, layout.getFloatSlotCount());
+
+        for (final ParticleData particleData : clone.getParticles()) {
+            assertSame(layout, particleData.getDataLayout());
+        }
+
+        checkSlotData(clone, 100);
+
+        final int floatId = ParticleData.reserveFloatDataId();
+
+        // changes of data and slots of the clone don't affect the original emitter
+        for (final ParticleData particleData : clone.getParticles()) {
+            final int value = 300 + particleData.index;
+            particleData.setIntData(SlotInfluencer.INT_ID, value);
+            particleData.setFloatData(SlotInfluencer.FLOAT_ID, value);
+            particleData.setObjectData(SlotInfluencer.OBJECT_ID, String.valueOf(value));
+            particleData.reserveFloatData(floatId);
+        }
+
+        assertEquals(2, layout.getFloatSlotCount());
+        assertEquals(1, emitterNode.getDataLayout().getFloatSlotCount());
+
+        checkSlotData(clone, 300);
+        checkSlotData(emitterNode, 100);
+    }
+
+    private static void checkSlotData(@NotNull final AnalyticEmitterShapeTest.TestEmitterNode emitterNode,
+                                      final int offset) {
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+            final int value = offset + particleData.index;
+            assertEquals(value, particleData.getIntData(SlotInfluencer.INT_ID));
+            assertEquals(value, particleData.getFloatData(SlotInfluencer.FLOAT_ID), EPSILON);
+            assertEquals(String.valueOf(value), particleData.getObjectData(SlotInfluencer.OBJECT_ID));
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package tonegod.emitter.test;
+
+import static com.jme3.util.BufferUtils.populateFromBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.MatParam;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import tonegod.emitter.BillboardMode;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.material.ParticlesMaterial;
+import tonegod.emitter.particle.ParticleData;
+import tonegod.emitter.particle.ParticleDataImpostorMesh;
+import tonegod.emitter.particle.ParticleDataInstancedMesh;
+import tonegod.emitter.particle.ParticleDataMesh;
+import tonegod.emitter.particle.ParticleDataPointMesh;
+import tonegod.emitter.particle.ParticleDataTemplateMesh;
+import tonegod.emitter.particle.ParticleDataTriMesh;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The test of meshes of particles.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleDataMeshTest {
+
+    private static final float EPSILON = 0.0001F;
+
+    @Test
+    public void testIndexFormat() {
+
+        checkIndexes(ParticleDataTriMesh.class, null, 1000, 4, VertexBuffer.Format.UnsignedShort);
+        checkIndexes(ParticleDataTriMesh.class, null, 50000, 4, VertexBuffer.Format.UnsignedInt);
+        checkIndexes(ParticleDataImpostorMesh.class, null, 5000, 12, VertexBuffer.Format.UnsignedShort);
+        checkIndexes(ParticleDataImpostorMesh.class, null, 20000, 12, VertexBuffer.Format.UnsignedInt);
+
+        final Box box = new Box(1, 1, 1);
+
+        checkIndexes(ParticleDataTemplateMesh.class, box, 100, 24, VertexBuffer.Format.UnsignedShort);
+        checkIndexes(ParticleDataTemplateMesh.class, box, 3000, 24, VertexBuffer.Format.UnsignedInt);
+    }
+
+    @Test
+    public void testChangeIndexFormat() {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(50000);
+
+        assertEquals(VertexBuffer.Format.UnsignedInt, getIndexFormat(emitterNode));
+
+        emitterNode.setMaxParticles(100);
+
+        assertEquals(VertexBuffer.Format.UnsignedShort, getIndexFormat(emitterNode));
+        assertEquals(200, getParticleMesh(emitterNode).getTriangleCount());
+    }
+
+    @Test
+    public void testParticleChunks() {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.setMaxParticles(40);
+        emitterNode.setParticleChunkSize(16);
+
+        assertEquals(3, emitterNode.getParticleChunkCount());
+        assertEquals(3, emitterNode.getParticleNode().getQuantity());
+        assertEquals(64, emitterNode.getParticleChunkGeometry(0).getMesh().getVertexCount());
+        assertEquals(64, emitterNode.getParticleChunkGeometry(1).getMesh().getVertexCount());
+        assertEquals(32, emitterNode.getParticleChunkGeometry(2).getMesh().getVertexCount());
+        assertSame(emitterNode.getParticleGeometry(), emitterNode.getParticleChunkGeometry(0));
+
+        emitterNode.setEnabled(true);
+        emitterNode.emitNextParticles(10);
+        emitterNode.runControlRender(null, new ViewPort("Test", new Camera(100, 100)));
+
+        assertEquals(Spatial.CullHint.Inherit, emitterNode.getParticleChunkGeometry(0).getLocalCullHint());
+        assertEquals(Spatial.CullHint.Always, emitterNode.getParticleChunkGeometry(1).getLocalCullHint());
+        assertEquals(Spatial.CullHint.Always, emitterNode.getParticleChunkGeometry(2).getLocalCullHint());
+
+        final ParticleEmitterNode clone = (ParticleEmitterNode) emitterNode.clone(false);
+
+        assertEquals(3, clone.getParticleChunkCount());
+        assertSame(clone.getParticleNode(), clone.getParticleChunkGeometry(2).getParent());
+
+        emitterNode.setMaxParticles(100);
+
+        assertEquals(7, emitterNode.getParticleChunkCount());
+        assertEquals(7, emitterNode.getParticleNode().getQuantity());
+
+        emitterNode.setParticleChunkSize(0);
+
+        assertEquals(1, emitterNode.getParticleChunkCount());
+        assertEquals(1, emitterNode.getParticleNode().getQuantity());
+        assertEquals(400, emitterNode.getParticleGeometry().getMesh().getVertexCount());
+        assertEquals(Spatial.CullHint.Inherit, emitterNode.getParticleGeometry().getLocalCullHint());
+    }
+
+    @Test
+    public void testPackLiveParticles() {
+
+        checkLiveParticles(ParticleDataTriMesh.class, null, 4, 6);
+        checkLiveParticles(ParticleDataImpostorMesh.class, null, 12, 18);
+        checkLiveParticles(ParticleDataTemplateMesh.class, new Box(1, 1, 1), 24, 36);
+        checkLiveParticles(ParticleDataPointMesh.class, null, 1, 0);
+    }
+
+    @Test
+    public void testUploadChangedData() {
+
+        checkUploadChangedData(ParticleDataTriMesh.class, null);
+        checkUploadChangedData(ParticleDataImpostorMesh.class, null);
+        checkUploadChangedData(ParticleDataTemplateMesh.class, new Box(1, 1, 1));
+        checkUploadChangedData(ParticleDataPointMesh.class, null);
+    }
+
+    @Test
+    public void testInstancedQuads() {
+
+        final AnalyticEmitterShapeTest.TestEmitterNode emitterNode =
+                new AnalyticEmitterShapeTest.TestEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeParticleMeshType(ParticleDataInstancedMesh.class, null);
+        emitterNode.setBillboardMode(BillboardMode.UNIT_Y);
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEnabled(true);
+        emitterNode.emitNextParticles(10);
+
+        final ViewPort viewPort = new ViewPort("Test", new Camera(100, 100));
+        final Mesh mesh = getParticleMesh(emitterNode);
+
+        emitterNode.runControlRender(null, viewPort);
+
+        assertEquals(10, mesh.getInstanceCount());
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(2, mesh.getTriangleCount());
+        assertEquals(6, mesh.getBuffer(VertexBuffer.Type.Index).getData().limit());
+        assertTrue(mesh.getBuffer(ParticleDataInstancedMesh.CENTER_BUFFER).isInstanced());
+
+        final FloatBuffer centers = mesh.getFloatBuffer(ParticleDataInstancedMesh.CENTER_BUFFER);
+        final FloatBuffer lefts = mesh.getFloatBuffer(ParticleDataInstancedMesh.LEFT_BUFFER);
+        final FloatBuffer ups = mesh.getFloatBuffer(ParticleDataInstancedMesh.UP_BUFFER);
+        final FloatBuffer sprites = mesh.getFloatBuffer(ParticleDataInstancedMesh.SPRITE_BUFFER);
+        final ByteBuffer colors = (ByteBuffer) mesh.getBuffer(VertexBuffer.Type.Color).getData();
+
+        assertEquals(30, centers.limit());
+        assertEquals(40, sprites.limit());
+        assertEquals(40, colors.limit());
+
+        final Vector3f store = new Vector3f();
+        final ColorRGBA color = new ColorRGBA();
+
+        int index = 0;
+
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+
+            if (!particleData.isActive()) {
+                continue;
+            }
+
+            populateFromBuffer(store, centers, index);
+            assertTrue(particleData.getPosition().distance(store) < EPSILON);
+
+            populateFromBuffer(store, lefts, index);
+            assertEquals(particleData.getSize().x, store.length(), EPSILON);
+
+            populateFromBuffer(store, ups, index);
+            assertEquals(particleData.getSize().y, store.length(), EPSILON);
+
+            color.set(particleData.color);
+            color.a *= particleData.alpha;
+
+            assertEquals(color.asIntABGR(), colors.getInt(index * 4));
+            assertEquals(0F, sprites.get(index * 4), EPSILON);
+            assertEquals(1F, sprites.get(index * 4 + 3), EPSILON);
+
+            index++;
+        }
+
+        assertEquals(10, index);
+
+        final BoundingBox bound = (BoundingBox) mesh.getBound();
+        final Vector3f min = bound.getMin(null);
+        final Vector3f max = bound.getMax(null);
+        final Vector3f axis = new Vector3f();
+
+        // the corner of the first particle
+        populateFromBuffer(store, centers, 0);
+        populateFromBuffer(axis, lefts, 0);
+        store.addLocal(axis);
+        populateFromBuffer(axis, ups, 0);
+        store.addLocal(axis);
+
+        assertTrue(store.x >= min.x - EPSILON && store.y >= min.y - EPSILON && store.z >= min.z - EPSILON);
+        assertTrue(store.x <= max.x + EPSILON && store.y <= max.y + EPSILON && store.z <= max.z + EPSILON);
+
+        emitterNode.killAllParticles();
+        emitterNode.runControlRender(null, viewPort);
+
+        assertEquals(0, mesh.getInstanceCount());
+        assertEquals(0, mesh.getTriangleCount());
+    }
+
+    @Test
+    public void testCameraBillboards() {
+
+        final AnalyticEmitterShapeTest.TestEmitterNode emitterNode =
+                new AnalyticEmitterShapeTest.TestEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeParticleMeshType(ParticleDataInstancedMesh.class, null);
+        emitterNode.setBillboardMode(BillboardMode.CAMERA);
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEnabled(true);
+        emitterNode.emitNextParticles(10);
+
+        final Camera camera = new Camera(100, 100);
+        camera.setLocation(new Vector3f(5F, 3F, -10F));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        final Mesh mesh = getParticleMesh(emitterNode);
+
+        float angle = 0F;
+
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+            if (particleData.isActive()) {
+                particleData.getAngles().z = angle;
+                angle += 0.3F;
+            }
+        }
+
+        emitterNode.runControlRender(null, new ViewPort("Test", camera));
+
+        final FloatBuffer sizes = mesh.getFloatBuffer(ParticleDataInstancedMesh.LEFT_BUFFER);
+
+        assertEquals(10, mesh.getInstanceCount());
+        assertEquals(30, sizes.limit());
+
+        final Vector3f cameraLeft = camera.getLeft();
+        final Vector3f cameraUp = camera.getUp();
+        final Vector3f cameraDirection = camera.getDirection();
+
+        final Quaternion rotation = new Quaternion();
+        final Vector3f store = new Vector3f();
+        final Vector3f left = new Vector3f();
+        final Vector3f up = new Vector3f();
+
+        int index = 0;
+
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+
+            if (!particleData.isActive()) {
+                continue;
+            }
+
+            populateFromBuffer(store, sizes, index);
+
+            final Vector3f size = particleData.getSize();
+
+            assertEquals(size.x, store.x, EPSILON);
+            assertEquals(size.y, store.y, EPSILON);
+            assertEquals(particleData.getAngles().z, store.z, EPSILON);
+
+            // the axes which are expanded by the vertex shader
+            final float cos = FastMath.cos(store.z);
+            final float sin = FastMath.sin(store.z);
+
+            left.set(cameraLeft).multLocal(cos).addLocal(cameraUp.x * sin, cameraUp.y * sin, cameraUp.z * sin)
+                    .multLocal(store.x);
+            up.set(cameraUp).multLocal(cos).subtractLocal(cameraLeft.x * sin, cameraLeft.y * sin,
+                    cameraLeft.z * sin).multLocal(store.y);
+
+            // the axes which are calculated by CPU for other meshes
+            rotation.fromAngleNormalAxis(store.z, cameraDirection);
+
+            assertTrue(rotation.mult(cameraLeft).multLocal(size.x).distance(left) < EPSILON);
+            assertTrue(rotation.mult(cameraUp).multLocal(size.y).distance(up) < EPSILON);
+
+            index++;
+        }
+
+        assertEquals(10, index);
+
+        final BoundingBox bound = (BoundingBox) mesh.getBound();
+
+        assertTrue(bound.getXExtent() >= 1F);
+
+        // the layout of instance data is changed with the billboard mode
+        emitterNode.setBillboardMode(BillboardMode.UNIT_Y);
+        emitterNode.runControlRender(null, new ViewPort("Test", camera));
+
+        assertTrue(mesh.getBuffer(ParticleDataInstancedMesh.UP_BUFFER).isUpdateNeeded());
+        assertEquals(30, mesh.getFloatBuffer(ParticleDataInstancedMesh.UP_BUFFER).limit());
+    }
+
+    @Test
+    public void testSharedMaterial() {
+
+        final DesktopAssetManager assetManager = new DesktopAssetManager(true);
+        final ViewPort viewPort = new ViewPort("Test", new Camera(100, 100));
+
+        final AnalyticEmitterShapeTest.TestEmitterNode triEmitter =
+                new AnalyticEmitterShapeTest.TestEmitterNode(assetManager);
+        triEmitter.setMaxParticles(100);
+        triEmitter.setEnabled(true);
+
+        final Material sharedMaterial = triEmitter.getMaterial();
+
+        final AnalyticEmitterShapeTest.TestEmitterNode instancedEmitter =
+                new AnalyticEmitterShapeTest.TestEmitterNode(assetManager);
+        instancedEmitter.setParticlesMaterial(triEmitter.getParticlesMaterial());
+        instancedEmitter.changeParticleMeshType(ParticleDataInstancedMesh.class, null);
+        instancedEmitter.setBillboardMode(BillboardMode.CAMERA);
+        instancedEmitter.setMaxParticles(100);
+        instancedEmitter.setEnabled(true);
+
+        triEmitter.runControlRender(null, viewPort);
+        instancedEmitter.runControlRender(null, viewPort);
+
+        final Material instancedMaterial = instancedEmitter.getMaterial();
+
+        // the instanced emitter uses its own copy of the material with the defines of instanced quads
+        assertNotSame(sharedMaterial, instancedMaterial);
+        assertSame(sharedMaterial, triEmitter.getMaterial());
+        assertSame(instancedMaterial, instancedEmitter.getParticleGeometry().getMaterial());
+        assertTrue(isMaterialFlag(instancedMaterial, ParticlesMaterial.PROP_INSTANCED_QUADS));
+        assertTrue(isMaterialFlag(instancedMaterial, ParticlesMaterial.PROP_CAMERA_BILLBOARD));
+        assertFalse(isMaterialFlag(sharedMaterial, ParticlesMaterial.PROP_INSTANCED_QUADS));
+        assertFalse(isMaterialFlag(sharedMaterial, ParticlesMaterial.PROP_CAMERA_BILLBOARD));
+
+        // the own copy is changed without copying again
+        instancedEmitter.runControlRender(null, viewPort);
+        instancedEmitter.changeParticleMeshType(ParticleDataTriMesh.class, null);
+        instancedEmitter.runControlRender(null, viewPort);
+
+        assertSame(instancedMaterial, instancedEmitter.getMaterial());
+        assertFalse(isMaterialFlag(instancedMaterial, ParticlesMaterial.PROP_INSTANCED_QUADS));
+        assertFalse(isMaterialFlag(instancedMaterial, ParticlesMaterial.PROP_CAMERA_BILLBOARD));
+    }
+
+    private static boolean isMaterialFlag(@NotNull final Material material, @NotNull final String name) {
+        final MatParam param = material.getParam(name);
+        return param != null && (Boolean) param.getValue();
+    }
+
+    private static void checkUploadChangedData(@NotNull final Class<? extends ParticleDataMesh> type,
+                                               @Nullable final Mesh template) {
+
+        final AnalyticEmitterShapeTest.TestEmitterNode emitterNode =
+                new AnalyticEmitterShapeTest.TestEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeParticleMeshType(type, template);
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEnabled(true);
+        emitterNode.emitNextParticles(10);
+
+        final ViewPort viewPort = new ViewPort("Test", new Camera(100, 100));
+        final Mesh mesh = getParticleMesh(emitterNode);
+        final String message = type.getSimpleName();
+
+        emitterNode.runControlRender(null, viewPort);
+
+        for (final VertexBuffer buffer : mesh.getBufferList()) {
+            assertTrue(buffer.isUpdateNeeded(), message + " " + buffer.getBufferType());
+            buffer.clearUpdateNeeded();
+        }
+
+        // nothing is changed
+        emitterNode.runControlRender(null, viewPort);
+
+        for (final VertexBuffer buffer : mesh.getBufferList()) {
+            assertFalse(buffer.isUpdateNeeded(), message + " " + buffer.getBufferType());
+        }
+
+        for (final ParticleData particleData : emitterNode.getParticles()) {
+            if (particleData.isActive()) {
+                particleData.getPosition().addLocal(1F, 0F, 0F);
+                break;
+            }
+        }
+
+        // only positions are changed
+        emitterNode.runControlRender(null, viewPort);
+
+        for (final VertexBuffer buffer : mesh.getBufferList()) {
+            final boolean positions = buffer.getBufferType() == VertexBuffer.Type.Position;
+            assertEquals(positions, buffer.isUpdateNeeded(), message + " " + buffer.getBufferType());
+            buffer.clearUpdateNeeded();
+        }
+
+        emitterNode.emitNextParticles(1);
+
+        // the count of particles is changed
+        emitterNode.runControlRender(null, viewPort);
+
+        assertTrue(mesh.getBuffer(VertexBuffer.Type.Position).isUpdateNeeded(), message);
+        assertTrue(mesh.getBuffer(VertexBuffer.Type.Color).isUpdateNeeded(), message);
+    }
+
+    private static void checkLiveParticles(@NotNull final Class<? extends ParticleDataMesh> type,
+                                           @Nullable final Mesh template, final int verticesPerParticle,
+                                           final int indexesPerParticle) {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeParticleMeshType(type, template);
+        emitterNode.setMaxParticles(100);
+        emitterNode.setEnabled(true);
+
+        final ViewPort viewPort = new ViewPort("Test", new Camera(100, 100));
+        final Mesh mesh = getParticleMesh(emitterNode);
+
+        emitterNode.emitNextParticles(10);
+        emitterNode.runControlRender(null, viewPort);
+
+        checkDrawnParticles(mesh, 10, verticesPerParticle, indexesPerParticle, type);
+
+        final VertexBuffer indexes = mesh.getBuffer(VertexBuffer.Type.Index);
+
+        if (indexes != null) {
+
+            // the renderer uploads the first indexes
+            indexes.clearUpdateNeeded();
+
+            emitterNode.killAllParticles();
+            emitterNode.emitNextParticles(5);
+            emitterNode.runControlRender(null, viewPort);
+
+            checkDrawnParticles(mesh, 5, verticesPerParticle, indexesPerParticle, type);
+            assertFalse(indexes.isUpdateNeeded(), type.getSimpleName());
+
+            emitterNode.emitNextParticles(10);
+            emitterNode.runControlRender(null, viewPort);
+
+            checkDrawnParticles(mesh, 15, verticesPerParticle, indexesPerParticle, type);
+            assertTrue(indexes.isUpdateNeeded(), type.getSimpleName());
+        }
+
+        emitterNode.killAllParticles();
+        emitterNode.runControlRender(null, viewPort);
+
+        checkDrawnParticles(mesh, 0, verticesPerParticle, indexesPerParticle, type);
+    }
+
+    private static void checkDrawnParticles(@NotNull final Mesh mesh, final int count, final int verticesPerParticle,
+                                            final int indexesPerParticle,
+                                            @NotNull final Class<? extends ParticleDataMesh> type) {
+
+        final String message = type.getSimpleName();
+
+        assertEquals(count * verticesPerParticle, mesh.getVertexCount(), message);
+        assertEquals(count * verticesPerParticle * 3, mesh.getBuffer(VertexBuffer.Type.Position).getData().limit(),
+                message);
+
+        if (indexesPerParticle > 0) {
+            assertEquals(count * indexesPerParticle, mesh.getBuffer(VertexBuffer.Type.Index).getData().limit(), message);
+            assertEquals(count * indexesPerParticle / 3, mesh.getTriangleCount(), message);
+        }
+    }
+
+    private static void checkIndexes(@NotNull final Class<? extends ParticleDataMesh> type,
+                                     @Nullable final Mesh template, final int maxParticles,
+                                     final int verticesPerParticle, @NotNull final VertexBuffer.Format format) {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(new DesktopAssetManager(true));
+        emitterNode.changeParticleMeshType(type, template);
+        emitterNode.setMaxParticles(maxParticles);
+
+        final Mesh mesh = getParticleMesh(emitterNode);
+        final IndexBuffer indexes = mesh.getIndexBuffer();
+
+        assertEquals(format, getIndexFormat(emitterNode), type.getSimpleName());
+        assertEquals(maxParticles * verticesPerParticle, mesh.getVertexCount());
+
+        int maxIndex = 0;
+
+        for (int i = 0; i < indexes.size(); i++) {
+            maxIndex = Math.max(maxIndex, indexes.get(i));
+        }
+
+        assertEquals(mesh.getVertexCount() - 1, maxIndex, type.getSimpleName());
+    }
+
+    private static @NotNull VertexBuffer.Format getIndexFormat(@NotNull final ParticleEmitterNode emitterNode) {
+        return getParticleMesh(emitterNode).getBuffer(VertexBuffer.Type.Index).getFormat();
+    }
+
+    private static @NotNull Mesh getParticleMesh(@NotNull final ParticleEmitterNode emitterNode) {
+        return ((Geometry) emitterNode.getParticleNode().getChild(0)).getMesh();
+    }
+}
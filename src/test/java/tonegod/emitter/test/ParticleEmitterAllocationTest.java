@@ -0,0 +1,196 @@
+package tonegod.emitter.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import tonegod.emitter.BillboardMode;
+import tonegod.emitter.EmitterMesh.DirectionType;
+import tonegod.emitter.ParticleEmitterNode;
+import tonegod.emitter.influencers.ParticleInfluencer;
+import tonegod.emitter.influencers.impl.*;
+import tonegod.emitter.particle.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The test of allocations in the steady state of updating, emitting and filling meshes of particles.
+ *
+ * @author JavaSaBr
+ */
+public class ParticleEmitterAllocationTest {
+
+    private static final float TPF = 1F / 60F;
+
+    private static final int WARM_UP_FRAMES = 600;
+    private static final int MEASURE_FRAMES = 300;
+
+    /**
+     * The count of measurements, the best one is checked to skip one-time allocations of JIT and lazy initializations.
+     */
+    private static final int MEASURE_ATTEMPTS = 5;
+
+    /**
+     * The max count of bytes which can be allocated during all measured frames.
+     */
+    private static final long ALLOCATION_LIMIT = 1024;
+
+    private static AssetManager assetManager;
+
+    private static synchronized @NotNull AssetManager getAssetManager() {
+
+        if (assetManager == null) {
+            assetManager = new DesktopAssetManager(true);
+        }
+
+        return assetManager;
+    }
+
+    @TestFactory
+    public Collection<DynamicTest> testInfluencers() {
+
+        final List<Supplier<ParticleInfluencer>> influencers = new ArrayList<>();
+        influencers.add(AlphaInfluencer::new);
+        influencers.add(ColorInfluencer::new);
+        influencers.add(DestinationInfluencer::new);
+        influencers.add(GravityInfluencer::new);
+        influencers.add(ImpulseInfluencer::new);
+        influencers.add(PhysicsInfluencer::new);
+        influencers.add(RadialVelocityInfluencer::new);
+        influencers.add(RotationInfluencer::new);
+        influencers.add(SizeInfluencer::new);
+        influencers.add(SpriteInfluencer::new);
+
+        final List<DynamicTest> tests = new ArrayList<>();
+
+        for (final Supplier<ParticleInfluencer> factory : influencers) {
+            final ParticleInfluencer influencer = factory.get();
+            tests.add(dynamicTest(influencer.getClass().getSimpleName(), () -> {
+                final ParticleEmitterNode emitterNode = createEmitter(ParticleDataTriMesh.class);
+                emitterNode.addInfluencer(influencer);
+                assertNoAllocations(emitterNode);
+            }));
+        }
+
+        return tests;
+    }
+
+    @TestFactory
+    public Collection<DynamicTest> testMeshes() {
+
+        final List<Class<? extends ParticleDataMesh>> meshTypes = new ArrayList<>();
+        meshTypes.add(ParticleDataTriMesh.class);
+        meshTypes.add(ParticleDataImpostorMesh.class);
+        meshTypes.add(ParticleDataPointMesh.class);
+        meshTypes.add(ParticleDataTemplateMesh.class);
+        meshTypes.add(ParticleDataInstancedMesh.class);
+
+        final List<DynamicTest> tests = new ArrayList<>();
+
+        for (final Class<? extends ParticleDataMesh> meshType : meshTypes) {
+            for (final BillboardMode billboardMode : BillboardMode.values()) {
+                tests.add(dynamicTest(meshType.getSimpleName() + " " + billboardMode.name(), () -> {
+                    final ParticleEmitterNode emitterNode = createEmitter(meshType);
+                    emitterNode.setBillboardMode(billboardMode);
+                    emitterNode.setVelocityStretching(true);
+                    emitterNode.setRandomEmissionPoint(true);
+                    emitterNode.setSpriteCount(2, 2);
+                    emitterNode.addInfluencers(new SpriteInfluencer(), new RotationInfluencer());
+                    assertNoAllocations(emitterNode);
+                }));
+            }
+        }
+
+        return tests;
+    }
+
+    @TestFactory
+    public Collection<DynamicTest> testDirectionTypes() {
+
+        final List<DynamicTest> tests = new ArrayList<>();
+
+        for (final DirectionType directionType : DirectionType.values()) {
+            tests.add(dynamicTest(directionType.name(), () -> {
+                final ParticleEmitterNode emitterNode = createEmitter(ParticleDataTriMesh.class);
+                emitterNode.changeEmitterShapeMesh(new Box(1, 1, 1));
+                emitterNode.setDirectionType(directionType);
+                emitterNode.setSequentialEmissionFace(true);
+                emitterNode.setStaticParticles(directionType == DirectionType.NORMAL);
+                assertNoAllocations(emitterNode);
+            }));
+        }
+
+        return tests;
+    }
+
+    private static @NotNull ParticleEmitterNode createEmitter(@NotNull final Class<? extends ParticleDataMesh> meshType) {
+
+        final ParticleEmitterNode emitterNode = new ParticleEmitterNode(getAssetManager());
+        emitterNode.changeParticleMeshType(meshType, meshType == ParticleDataTemplateMesh.class ? new Box(1, 1, 1) : null);
+        emitterNode.setMaxParticles(300);
+        emitterNode.setEmissionsPerSecond(600);
+        emitterNode.setParticlesPerEmission(1);
+        emitterNode.setLifeMinMax(0.2F, 0.4F);
+        emitterNode.setEnabled(true);
+
+        return emitterNode;
+    }
+
+    private static void assertNoAllocations(@NotNull final ParticleEmitterNode emitterNode) {
+
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final Camera camera = new Camera(640, 480);
+        camera.setFrustumPerspective(45F, 640F / 480F, 1F, 1000F);
+        camera.setLocation(new Vector3f(0, 0, 10));
+        camera.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        camera.update();
+
+        final ViewPort viewPort = new ViewPort("Test", camera);
+        final Node rootNode = new Node("Root");
+        rootNode.attachChild(emitterNode);
+
+        runFrames(rootNode, emitterNode, viewPort, WARM_UP_FRAMES);
+
+        final long threadId = Thread.currentThread().getId();
+
+        long allocated = Long.MAX_VALUE;
+
+        for (int i = 0; i < MEASURE_ATTEMPTS && allocated > ALLOCATION_LIMIT; i++) {
+            final long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            runFrames(rootNode, emitterNode, viewPort, MEASURE_FRAMES);
+            allocated = Math.min(allocated, threadMXBean.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        assertTrue(allocated <= ALLOCATION_LIMIT, "Allocated " + allocated + " bytes during " + MEASURE_FRAMES +
+                " frames, the limit is " + ALLOCATION_LIMIT + " bytes.");
+    }
+
+    private static void runFrames(@NotNull final Node rootNode, @NotNull final ParticleEmitterNode emitterNode,
+                                  @NotNull final ViewPort viewPort, final int frames) {
+
+        for (int i = 0; i < frames; i++) {
+            rootNode.updateLogicalState(TPF);
+            rootNode.updateGeometricState();
+            emitterNode.runControlRender(null, viewPort);
+        }
+    }
+}